@@ -0,0 +1,148 @@
+package analysis;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free, fixed capacity set of long keys shared by the parallel searches.
+ *
+ * Keys are claimed with a compare-and-set (through a VarHandle, so the
+ * table stays a plain long[] that clears with one fill) on an open
+ * addressing table.
+ * Once the table is 3/4 full further keys are dropped rather than stored:
+ * the set is a cache of proven facts, so a dropped key only costs a repeated
+ * search, never a wrong answer.
+ *
+ * The fill is checked approximately, so add stays cheap under contention:
+ * the count is summed only by the adds whose key hashes to a multiple of
+ * the check period (about one add in 1024 on a large table), and the
+ * result is kept in a volatile flag every add reads. The table may pass
+ * 3/4 full by a few periods before the flag is raised; the last quarter
+ * is there to absorb that.
+ *
+ * Each block of BLOCK slots has a byte marking it written, so clear only
+ * fills the blocks in use: a search that stores a few thousand keys does
+ * not pay for wiping the whole table before the next one.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public final class ConcurrentLongSet {
+
+    private static final long      EMPTY = 0L;
+    private static final int       BLOCK = 64;
+    private static final VarHandle SLOT  = MethodHandles.arrayElementVarHandle( long[].class );
+
+    private final long[]    keys;
+    private final byte[]    written;
+    private final int       mask;
+    private final int       limit;
+    private final int       period;
+    private final LongAdder size;
+    private final LongAdder dropped;
+    private volatile boolean full;
+
+
+    /**
+     * Creates a set holding up to 3/4 of capacity keys.
+     * @param int capacity, rounded up to a power of two
+     */
+    public ConcurrentLongSet( int capacity ) {
+        int length = Integer.highestOneBit( Math.max(capacity - 1, 1) ) << 1;
+
+        keys    = new long[length];
+        written = new byte[(length + BLOCK - 1) / BLOCK];
+        mask    = length - 1;
+        limit   = length - (length >>> 2);
+        period  = Math.min( 1024, Integer.highestOneBit(Math.max(length >>> 6, 1)) ) - 1;
+        size    = new LongAdder();
+        dropped = new LongAdder();
+    }
+
+    /**
+     * Add key to this set. The key 0 is never stored.
+     * @param long key
+     * @return boolean true if this call stored the key; otherwise, false
+     */
+    public boolean add( long key ) {
+        int hash;
+        int i;
+
+        if ( (key == EMPTY) || full ) {
+            dropped.increment();
+            return false;
+        }
+
+        hash = model.LongHashSet.index( key );
+        i    = hash & mask;
+        for( ;; ) {
+            long current = (long) SLOT.getAcquire( keys, i );
+            if ( current == key )
+                return false;
+            if ( current == EMPTY ) {
+                if ( SLOT.compareAndSet(keys, i, EMPTY, key) ) {
+                    size.increment();
+                    if ( written[i / BLOCK] == 0 )
+                        written[i / BLOCK] = 1;
+                    if ( ((hash & period) == 0) && (size.sum() >= limit) )
+                        full = true;
+                    return true;
+                }
+                if ( (long) SLOT.getAcquire(keys, i) == key )
+                    return false;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Remove every key. Must not run concurrently with add or contains.
+     */
+    public void clear() {
+        for( int block = 0; block < written.length; block++ ) {
+            if ( written[block] != 0 ) {
+                Arrays.fill( keys, block * BLOCK, Math.min((block + 1) * BLOCK, keys.length), EMPTY );
+                written[block] = 0;
+            }
+        }
+        size.reset();
+        dropped.reset();
+        full = false;
+    }
+
+    /**
+     * Answer whether or not key is in this set.
+     * @param long key
+     * @return boolean true if present; otherwise, false
+     */
+    public boolean contains( long key ) {
+        int i = model.LongHashSet.index( key ) & mask;
+
+        for( ;; ) {
+            long current = (long) SLOT.getAcquire( keys, i );
+            if ( current == key )
+                return key != EMPTY;
+            if ( current == EMPTY )
+                return false;
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Answer the number of keys dropped because the table was full.
+     * @return long the number of dropped keys
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Answer the number of keys in this set.
+     * @return long the number of keys
+     */
+    public long size() {
+        return size.sum();
+    }
+}
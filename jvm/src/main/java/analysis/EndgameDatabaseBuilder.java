@@ -0,0 +1,220 @@
+package analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.stream.IntStream;
+
+import model.BoardGeometry;
+import model.EndgameDatabase;
+import model.EndgameIndex;
+
+/**
+ * Builds the file read by EndgameDatabase: the winnable and ideally
+ * winnable bit of every position with up to maxPegs pegs.
+ *
+ * Positions are solved one peg count at a time, from a single peg up: a
+ * position is winnable when one of its jumps leads to a winnable position
+ * with one peg less, so each layer only reads the layer below it. A layer
+ * is split into chunks of whole 64-bit words, solved in parallel with no
+ * locking since no two chunks share a word.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class EndgameDatabaseBuilder {
+
+    /* Positions per parallel chunk, a multiple of 64. */
+    private static final int CHUNK = 1 << 16;
+
+    private final EndgameIndex index;
+
+
+    /**
+     * Creates a builder of the positions with up to maxPegs pegs.
+     * @param BoardGeometry the board
+     * @param int largest number of pegs
+     * @throws IllegalArgumentException if the tables would not fit in memory arrays
+     */
+    public EndgameDatabaseBuilder( BoardGeometry geometry, int maxPegs ) {
+        this.index = new EndgameIndex( geometry, maxPegs );
+        if ( index.getSize() > Integer.MAX_VALUE )
+            throw new IllegalArgumentException( "a database of " + index.getSize() + " bytes cannot be mapped" );
+    }
+
+    /**
+     * Solve every position and write the database to file.
+     * @param File the file, replaced if it exists
+     * @return EndgameDatabase the database, opened on the new file
+     * @throws IOException if the file cannot be written
+     */
+    public EndgameDatabase build( File file ) throws IOException {
+        BoardGeometry geometry = index.getGeometry();
+        long[]        winnable = null;
+        long[]        ideal    = null;
+
+        try ( RandomAccessFile raf = new RandomAccessFile(file, "rw");
+              FileChannel channel = raf.getChannel() ) {
+            channel.truncate( 0 );
+            channel.write( this.header(), 0 );
+
+            for( int pegs = 1; pegs <= index.getMaxPegs(); pegs++ ) {
+                long[][] layer = this.solve( pegs, winnable, ideal );
+                winnable = layer[EndgameIndex.WINNABLE];
+                ideal    = layer[EndgameIndex.IDEAL];
+                this.write( channel, index.tableOffset(pegs, EndgameIndex.WINNABLE), winnable );
+                this.write( channel, index.tableOffset(pegs, EndgameIndex.IDEAL), ideal );
+            }
+        }
+
+        return EndgameDatabase.open( file, geometry );
+    }
+
+    /**
+     * Get the index of the database.
+     * @return EndgameIndex the index
+     */
+    public EndgameIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Build the file header.
+     * @return ByteBuffer the header, ready to write
+     */
+    private ByteBuffer header() {
+        BoardGeometry geometry = index.getGeometry();
+        ByteBuffer    header   = ByteBuffer.allocate( EndgameIndex.HEADER_BYTES ).order( ByteOrder.LITTLE_ENDIAN );
+
+        header.putInt( EndgameIndex.MAGIC )
+              .putInt( EndgameIndex.VERSION )
+              .putInt( index.getMaxPegs() )
+              .putInt( geometry.getHoles() )
+              .putLong( geometry.getValid() )
+              .putLong( geometry.getCenter() );
+
+        return header.flip();
+    }
+
+    /**
+     * Solve every position with pegs pegs.
+     * @param int pegs
+     * @param long[] winnable bits of the positions with pegs - 1 pegs (null for 1 peg)
+     * @param long[] ideal bits of the positions with pegs - 1 pegs (null for 1 peg)
+     * @return long[][] the WINNABLE and IDEAL bits of the layer
+     */
+    private long[][] solve( int pegs, long[] belowWinnable, long[] belowIdeal ) {
+        long     positions = index.positions( pegs );
+        int      words     = (int) ((positions + Long.SIZE - 1) / Long.SIZE);
+        long[]   winnable  = new long[words];
+        long[]   ideal     = new long[words];
+        int      chunks    = (int) ((positions + CHUNK - 1) / CHUNK);
+
+        IntStream.range( 0, chunks ).parallel().forEach( chunk -> {
+            long first = (long) chunk * CHUNK;
+            long last  = Math.min( first + CHUNK, positions );
+            long board = index.unrank( first, pegs );
+
+            for( long rank = first; rank < last; rank++ ) {
+                int outcome = (pegs == 1) ? this.single( board )
+                                          : this.best( board, belowWinnable, belowIdeal );
+                if ( outcome != EndgameDatabase.LOST ) {
+                    winnable[(int) (rank >>> 6)] |= 1L << rank;
+                    if ( outcome == EndgameDatabase.WINNABLE_IDEAL )
+                        ideal[(int) (rank >>> 6)] |= 1L << rank;
+                }
+                if ( rank + 1 < last )
+                    board = this.next( board );
+            }
+        } );
+
+        return new long[][] { winnable, ideal };
+    }
+
+    /**
+     * Answer the best outcome of the jumps from board.
+     * @param long board
+     * @param long[] winnable bits of the layer below
+     * @param long[] ideal bits of the layer below
+     * @return int WINNABLE_IDEAL, WINNABLE or LOST
+     */
+    private int best( long board, long[] winnable, long[] ideal ) {
+        BoardGeometry geometry = index.getGeometry();
+        int           outcome  = EndgameDatabase.LOST;
+
+        for( int direction = 0; direction < geometry.getDirections(); direction++ ) {
+            long from = geometry.jumpers( board, direction );
+            while( from != 0L ) {
+                long rank = index.rank( geometry.apply(board, geometry.moveCode(Long.numberOfTrailingZeros(from), direction)) );
+                from &= from - 1;
+                if ( (ideal[(int) (rank >>> 6)] & (1L << rank)) != 0L )
+                    return EndgameDatabase.WINNABLE_IDEAL;
+                if ( (winnable[(int) (rank >>> 6)] & (1L << rank)) != 0L )
+                    outcome = EndgameDatabase.WINNABLE;
+            }
+        }
+
+        return outcome;
+    }
+
+    /**
+     * Answer the outcome of a single peg: ideal on the center.
+     * @param long board
+     * @return int WINNABLE_IDEAL or WINNABLE
+     */
+    private int single( long board ) {
+        return ((board & index.getGeometry().getCenter()) != 0L) ? EndgameDatabase.WINNABLE_IDEAL
+                                                                : EndgameDatabase.WINNABLE;
+    }
+
+    /**
+     * Answer the position following board in rank order (same number of pegs).
+     * Ranks follow the holes in colexicographic order, so this is the next
+     * larger set of as many holes (Gosper's hack) on the dense hole numbers.
+     * @param long board
+     * @return long the next board
+     */
+    private long next( long board ) {
+        BoardGeometry geometry = index.getGeometry();
+        long          holes    = 0L;
+        long          smallest;
+        long          ripple;
+        long          next     = 0L;
+
+        for( long b = board; b != 0L; b &= b - 1 )
+            holes |= 1L << geometry.holeOf( Long.numberOfTrailingZeros(b) );
+
+        smallest = holes & -holes;
+        ripple   = holes + smallest;
+        holes    = ripple | (((ripple ^ holes) >>> 2) / smallest);
+
+        for( ; holes != 0L; holes &= holes - 1 )
+            next |= 1L << geometry.bitOf( Long.numberOfTrailingZeros(holes) );
+
+        return next;
+    }
+
+    /**
+     * Write a table of bits at offset, bit r in bit (r % 8) of byte r / 8.
+     * @param FileChannel the file
+     * @param long offset
+     * @param long[] the bits
+     * @throws IOException if the file cannot be written
+     */
+    private void write( FileChannel channel, long offset, long[] bits ) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect( CHUNK ).order( ByteOrder.LITTLE_ENDIAN );
+        int        i      = 0;
+
+        while( i < bits.length ) {
+            buffer.clear();
+            while( (i < bits.length) && buffer.hasRemaining() )
+                buffer.putLong( bits[i++] );
+            buffer.flip();
+            while( buffer.hasRemaining() )
+                offset += channel.write( buffer, offset );
+        }
+    }
+}
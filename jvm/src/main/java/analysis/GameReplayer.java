@@ -0,0 +1,356 @@
+package analysis;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.BoardGeometry;
+import model.GameRecordReader;
+import model.SolitaireCheckersTemplate;
+
+/**
+ * Replays recorded games from one start, checking every move against the
+ * rules, and reports how each ends (see ReplayResult).
+ *
+ * Games are replayed on raw bitboards: no model, no status strings and no
+ * observers. A game is encoded in one of two ways:
+ * <ul>
+ * <li>MOVES: one move code per byte, as SolitaireCheckersModel.getMoves().
+ * A move that is not legal on the board it is played on makes the game
+ * ILLEGAL at that move.</li>
+ * <li>TAPS: one tapped cell per byte, its bit on the board (row * 8 + grid
+ * column, see BoardGeometry), as MainActivity.handlePeg sees them. Taps
+ * follow the app's rules: tapping a peg with one jump plays it, tapping a
+ * peg with several selects it, and tapping a hole plays the jump of the
+ * last tapped peg into it, if there is one; any other tap does nothing.
+ * A tap off the board makes the game ILLEGAL at that tap.</li>
+ * </ul>
+ *
+ * Games are spread over the worker threads in batches of BATCH, so
+ * millions of games replay in seconds. A stream of games is a sequence of
+ * frames, each an unsigned 16 bit big-endian length followed by that many
+ * bytes; it is read while earlier batches replay, with a bounded number of
+ * batches in flight. Games from a game record file (see GameRecordReader)
+ * are move codes, each replayed from the start its record names.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class GameReplayer {
+
+    /**
+     * How the bytes of a game are read.
+     */
+    public enum Encoding { MOVES, TAPS }
+
+    private static final int BATCH     = 4096;
+    private static final int IN_FLIGHT = 4;   // batches per thread
+
+    private final BoardGeometry   geometry;
+    private final long            start;
+    private final ExecutorService executor;
+    private final int             threads;
+
+
+    /**
+     * Creates a replayer using every available core.
+     * @param SolitaireCheckersTemplate the start of every game
+     */
+    public GameReplayer( SolitaireCheckersTemplate start ) {
+        this( start, Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Creates a replayer.
+     * @param SolitaireCheckersTemplate the start of every game
+     * @param int number of worker threads
+     */
+    public GameReplayer( SolitaireCheckersTemplate start, int threads ) {
+        this.geometry = start.getGeometry();
+        this.start    = start.getBoard();
+        this.threads  = threads;
+        this.executor = Executors.newFixedThreadPool( threads );
+    }
+
+    /**
+     * Replay games held in memory.
+     * @param byte[][] the games
+     * @param Encoding how the games are encoded
+     * @return ReplayResult the final state of every game
+     */
+    public ReplayResult replay( byte[][] games, Encoding encoding ) {
+        int[]           outcomes = new int[games.length];
+        List<Future<?>> parts    = new ArrayList<Future<?>>();
+        long            begin    = System.nanoTime();
+
+        for( int first = 0; first < games.length; first += BATCH ) {
+            int from = first;
+            int to   = Math.min( first + BATCH, games.length );
+            parts.add( executor.submit(() -> this.replay(games, from, to, encoding, outcomes, from)) );
+        }
+        for( Future<?> part : parts )
+            this.await( part );
+
+        return new ReplayResult( outcomes, System.nanoTime() - begin );
+    }
+
+    /**
+     * Replay a stream of framed games to its end.
+     * @param InputStream the games, not closed
+     * @param Encoding how the games are encoded
+     * @return ReplayResult the final state of every game
+     * @throws IOException if the stream cannot be read or ends inside a frame
+     */
+    public ReplayResult replay( InputStream in, Encoding encoding ) throws IOException {
+        DataInputStream           data     = new DataInputStream( in );
+        ArrayDeque<Future<int[]>> inFlight = new ArrayDeque<Future<int[]>>();
+        int[]                     outcomes = new int[BATCH];
+        int                       games    = 0;
+        long                      begin    = System.nanoTime();
+        byte[][]                  batch;
+
+        while( (batch = this.read(data)) != null ) {
+            inFlight.add( this.submit(batch, encoding) );
+            if ( inFlight.size() >= threads * IN_FLIGHT ) {
+                int[] part = this.await( inFlight.poll() );
+                outcomes = this.append( outcomes, games, part );
+                games += part.length;
+            }
+        }
+        while( !inFlight.isEmpty() ) {
+            int[] part = this.await( inFlight.poll() );
+            outcomes = this.append( outcomes, games, part );
+            games += part.length;
+        }
+
+        return new ReplayResult( Arrays.copyOf(outcomes, games), System.nanoTime() - begin );
+    }
+
+    /**
+     * Replay the games of a game record file from the reader's position to
+     * the end, each from the start its record names.
+     * @param GameRecordReader the games
+     * @return ReplayResult the final state of every game read
+     * @throws IllegalArgumentException if the games are on another board
+     */
+    public ReplayResult replay( GameRecordReader records ) {
+        ArrayDeque<Future<int[]>> inFlight = new ArrayDeque<Future<int[]>>();
+        int[]                     outcomes = new int[BATCH];
+        int                       games    = 0;
+        long                      begin    = System.nanoTime();
+        byte[]                    moves    = new byte[256];
+
+        if ( records.getGeometry() != geometry )
+            throw new IllegalArgumentException( "the games are not on the " + geometry + " board" );
+
+        while( records.next() ) {
+            byte[][] batch  = new byte[BATCH][];
+            long[]   starts = new long[BATCH];
+            int      count  = 0;
+
+            do {
+                batch[count]    = Arrays.copyOf( moves, records.getMoves(moves) );
+                starts[count++] = records.getStart().getBoard();
+            } while( (count < BATCH) && records.next() );
+
+            int size = count;
+            inFlight.add( executor.submit(() -> {
+                int[] part = new int[size];
+                for( int i = 0; i < size; i++ )
+                    part[i] = this.replayMoves( starts[i], batch[i] );
+                return part;
+            }) );
+            if ( inFlight.size() >= threads * IN_FLIGHT ) {
+                int[] part = this.await( inFlight.poll() );
+                outcomes = this.append( outcomes, games, part );
+                games += part.length;
+            }
+        }
+        while( !inFlight.isEmpty() ) {
+            int[] part = this.await( inFlight.poll() );
+            outcomes = this.append( outcomes, games, part );
+            games += part.length;
+        }
+
+        return new ReplayResult( Arrays.copyOf(outcomes, games), System.nanoTime() - begin );
+    }
+
+    /**
+     * Replay one game.
+     * @param byte[] the game
+     * @param Encoding how the game is encoded
+     * @return int the packed final state (see ReplayResult)
+     */
+    public int replay( byte[] game, Encoding encoding ) {
+        return (encoding == Encoding.MOVES) ? this.replayMoves( start, game ) : this.replayTaps( game );
+    }
+
+    /**
+     * Release the worker threads.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Replay a batch on a worker thread.
+     * @param byte[][] the games
+     * @param Encoding how the games are encoded
+     * @return Future<int[]> the packed final state of every game
+     */
+    private Future<int[]> submit( byte[][] games, Encoding encoding ) {
+        return executor.submit( () -> {
+            int[] outcomes = new int[games.length];
+            this.replay( games, 0, games.length, encoding, outcomes, 0 );
+            return outcomes;
+        } );
+    }
+
+    /**
+     * Replay games first to last - 1 into outcomes from at.
+     */
+    private void replay( byte[][] games, int first, int last, Encoding encoding, int[] outcomes, int at ) {
+        for( int game = first; game < last; game++ )
+            outcomes[at++] = this.replay( games[game], encoding );
+    }
+
+    /**
+     * Replay a game of move codes.
+     * @param long the start
+     * @param byte[] the game
+     * @return int the packed final state
+     */
+    private int replayMoves( long board, byte[] game ) {
+
+        for( int i = 0; i < game.length; i++ ) {
+            int move = game[i] & 0xFF;
+            if ( (move >= geometry.getMoves()) || !geometry.isLegal(board, move) )
+                return ReplayResult.pack( ReplayResult.ILLEGAL, Long.bitCount(board), i );
+            board = geometry.apply( board, move );
+        }
+
+        return this.end( board );
+    }
+
+    /**
+     * Replay a game of taps, as MainActivity.handlePeg would.
+     * @param byte[] the game
+     * @return int the packed final state
+     */
+    private int replayTaps( byte[] game ) {
+        long board = start;
+        int  last  = BoardGeometry.NO_HOLE;
+
+        for( int i = 0; i < game.length; i++ ) {
+            int  tap   = game[i] & 0xFF;
+            long cell  = 1L << tap;
+            int  move  = -1;
+            int  jumps = 0;
+
+            if ( (tap >= Long.SIZE) || ((geometry.getValid() & cell) == 0L) )
+                return ReplayResult.pack( ReplayResult.ILLEGAL, Long.bitCount(board), i );
+
+            if ( (board & cell) != 0L ) {
+                /* jumpPegAt: play the only jump, or wait for a hole if several */
+                last = tap;
+                for( int direction = 0; direction < geometry.getDirections(); direction++ ) {
+                    if ( (geometry.jumpers(board, direction) & cell) != 0L ) {
+                        move = geometry.moveCode( tap, direction );
+                        jumps++;
+                    }
+                }
+                if ( jumps > 1 )
+                    move = -1;
+            } else if ( last != BoardGeometry.NO_HOLE ) {
+                /* moveLastPegTo: the last tapped peg jumps here, if it can */
+                int direction = geometry.directionOf( last, tap );
+                if ( direction != BoardGeometry.NO_DIRECTION )
+                    move = geometry.moveCode( last, direction );
+            }
+
+            if ( (move >= 0) && geometry.isLegal(board, move) )
+                board = geometry.apply( board, move );
+        }
+
+        return this.end( board );
+    }
+
+    /**
+     * Answer the final state of board.
+     * @param long board
+     * @return int the packed state
+     */
+    private int end( long board ) {
+        int pegs = Long.bitCount( board );
+
+        if ( pegs == 1 )
+            return ReplayResult.pack( ((board & geometry.getCenter()) != 0L) ? ReplayResult.WON_IDEAL
+                                                                           : ReplayResult.WON, 1, 0 );
+
+        for( int direction = 0; direction < geometry.getDirections(); direction++ ) {
+            if ( geometry.jumpers(board, direction) != 0L )
+                return ReplayResult.pack( ReplayResult.UNFINISHED, pegs, 0 );
+        }
+
+        return ReplayResult.pack( ReplayResult.LOST, pegs, 0 );
+    }
+
+    /**
+     * Read the next batch of frames.
+     * @param DataInputStream the stream
+     * @return byte[][] up to BATCH games, or null at the end of the stream
+     * @throws IOException if the stream ends inside a frame
+     */
+    private byte[][] read( DataInputStream data ) throws IOException {
+        byte[][] batch = new byte[BATCH][];
+        int      count = 0;
+
+        while( count < BATCH ) {
+            int high = data.read();
+            if ( high < 0 )
+                break;
+            int length = (high << 8) | this.readByte( data );
+            batch[count] = new byte[length];
+            data.readFully( batch[count++] );
+        }
+
+        return (count == 0) ? null : Arrays.copyOf( batch, count );
+    }
+
+    private int readByte( DataInputStream data ) throws IOException {
+        int b = data.read();
+
+        if ( b < 0 )
+            throw new EOFException( "stream ends inside a frame length" );
+
+        return b;
+    }
+
+    private int[] append( int[] outcomes, int games, int[] part ) {
+        if ( games + part.length > outcomes.length )
+            outcomes = Arrays.copyOf( outcomes, Math.max(outcomes.length * 2, games + part.length) );
+        System.arraycopy( part, 0, outcomes, games, part.length );
+
+        return outcomes;
+    }
+
+    private <T> T await( Future<T> future ) {
+        try {
+            return future.get();
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "replay interrupted", e );
+        } catch( ExecutionException e ) {
+            throw new IllegalStateException( "replay failed", e.getCause() );
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * A sequence of longs written once and then read front to back, held in
+ * a heap array or, when a spill directory is given, in a temporary file.
+ * Used by StateSpaceEnumerator for sorted levels and sorted runs.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+final class LongSequence {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private long[] values;
+    private File   file;
+    private long   size;
+
+
+    private LongSequence( long[] values, File file, long size ) {
+        this.values = values;
+        this.file   = file;
+        this.size   = size;
+    }
+
+    /**
+     * Wrap the first size values of an array.
+     * @param long[] the values, not copied
+     * @param int number of values
+     * @return LongSequence the sequence
+     */
+    static LongSequence of( long[] values, int size ) {
+        return new LongSequence( values, null, size );
+    }
+
+    /**
+     * Answer the number of values.
+     * @return long the size
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Open a cursor at the first value.
+     * @return Cursor the cursor
+     */
+    Cursor cursor() {
+        return (file == null) ? new Cursor( values, size ) : new Cursor( file, size );
+    }
+
+    /**
+     * Release the values (and delete the file).
+     */
+    void delete() {
+        values = null;
+        if ( file != null )
+            file.delete();
+        file = null;
+    }
+
+    /**
+     * Reads a sequence front to back.
+     */
+    static final class Cursor implements AutoCloseable {
+
+        private final long[]      values;
+        private final FileChannel channel;
+        private final ByteBuffer  buffer;
+        private final long        size;
+        private long              read;
+
+        private Cursor( long[] values, long size ) {
+            this.values  = values;
+            this.channel = null;
+            this.buffer  = null;
+            this.size    = size;
+        }
+
+        private Cursor( File file, long size ) {
+            try {
+                this.values  = null;
+                this.channel = new RandomAccessFile( file, "r" ).getChannel();
+                this.buffer  = ByteBuffer.allocateDirect( BUFFER_BYTES ).order( ByteOrder.LITTLE_ENDIAN );
+                this.size    = size;
+                buffer.flip();
+            } catch( IOException e ) {
+                throw new UncheckedIOException( e );
+            }
+        }
+
+        /**
+         * Answer whether or not there is a next value.
+         * @return boolean true if next() can be called; otherwise, false
+         */
+        boolean hasNext() {
+            return read < size;
+        }
+
+        /**
+         * Read the next value.
+         * @return long the value
+         */
+        long next() {
+            if ( channel == null )
+                return values[(int) read++];
+
+            try {
+                if ( !buffer.hasRemaining() ) {
+                    buffer.clear();
+                    while( buffer.position() < Math.min(buffer.capacity(), (size - read) * Long.BYTES) ) {
+                        if ( channel.read(buffer) < 0 )
+                            throw new IOException( "sequence file ends early" );
+                    }
+                    buffer.flip();
+                }
+            } catch( IOException e ) {
+                throw new UncheckedIOException( e );
+            }
+            read++;
+
+            return buffer.getLong();
+        }
+
+        @Override
+        public void close() {
+            try {
+                if ( channel != null )
+                    channel.close();
+            } catch( IOException e ) {
+                throw new UncheckedIOException( e );
+            }
+        }
+    }
+
+    /**
+     * Writes a sequence: to the heap, or to a temporary file in a spill directory.
+     */
+    static final class Writer {
+
+        private final File        file;
+        private final FileChannel channel;
+        private final ByteBuffer  buffer;
+        private long[]            values;
+        private long              size;
+
+        /**
+         * Creates a writer.
+         * @param File spill directory, or null to keep the values in the heap
+         */
+        Writer( File directory ) {
+            try {
+                if ( directory == null ) {
+                    this.file    = null;
+                    this.channel = null;
+                    this.buffer  = null;
+                    this.values  = new long[1024];
+                } else {
+                    this.file    = File.createTempFile( "level", ".longs", directory );
+                    this.channel = new RandomAccessFile( file, "rw" ).getChannel();
+                    this.buffer  = ByteBuffer.allocateDirect( BUFFER_BYTES ).order( ByteOrder.LITTLE_ENDIAN );
+                    this.file.deleteOnExit();
+                }
+            } catch( IOException e ) {
+                throw new UncheckedIOException( e );
+            }
+        }
+
+        /**
+         * Append a value.
+         * @param long the value
+         */
+        void add( long value ) {
+            if ( channel == null ) {
+                if ( size == values.length )
+                    values = java.util.Arrays.copyOf( values, Math.min(values.length * 2, Integer.MAX_VALUE - 8) );
+                values[(int) size++] = value;
+                return;
+            }
+
+            if ( !buffer.hasRemaining() )
+                this.flush();
+            buffer.putLong( value );
+            size++;
+        }
+
+        /**
+         * Finish writing.
+         * @return LongSequence the values written
+         */
+        LongSequence finish() {
+            if ( channel == null )
+                return new LongSequence( java.util.Arrays.copyOf(values, (int) size), null, size );
+
+            this.flush();
+            try {
+                channel.close();
+            } catch( IOException e ) {
+                throw new UncheckedIOException( e );
+            }
+
+            return new LongSequence( null, file, size );
+        }
+
+        private void flush() {
+            try {
+                buffer.flip();
+                while( buffer.hasRemaining() )
+                    channel.write( buffer );
+                buffer.clear();
+            } catch( IOException e ) {
+                throw new UncheckedIOException( e );
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.BoardGeometry;
+import model.SolitaireCheckersConfigurations;
+import model.SolitaireCheckersTemplate;
+
+/**
+ * Plays many games from one start and counts how they end, to rate the
+ * difficulty of a configuration, on any board (see BoardGeometry).
+ *
+ * Playouts run on raw bitboards (see BoardGeometry): no model, no observers
+ * and no allocation per move. The games are split evenly over the worker
+ * threads, each with its own random number generator and counters, which
+ * are only merged once the batch ends.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class MonteCarloSimulator {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Chooses the next move of a playout.
+     */
+    public interface Policy {
+
+        /**
+         * Choose one of the legal moves.
+         * @param long the board
+         * @param int[] the legal move codes
+         * @param int the number of legal moves (at least 1)
+         * @param long a fresh 64 bit random number
+         * @return int index of the chosen move, 0 to count - 1
+         */
+        int choose( long board, int[] moves, int count, long random );
+    }
+
+    /** Every legal move is equally likely. */
+    public static final Policy RANDOM = (board, moves, count, random) -> (int) (((random >>> 32) * count) >>> 32);
+
+    private final BoardGeometry   geometry;
+    private final ExecutorService executor;
+    private final int             threads;
+
+    /* counts[n] for n <= holes is the number of games ending with n pegs */
+    private final int             wins;
+    private final int             idealWins;
+    private final int             counters;
+
+
+    /**
+     * Creates a simulator for the English board using every available core.
+     */
+    public MonteCarloSimulator() {
+        this( BoardGeometry.ENGLISH, Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Creates a simulator.
+     * @param BoardGeometry the board
+     * @param int number of worker threads
+     */
+    public MonteCarloSimulator( BoardGeometry geometry, int threads ) {
+        this.geometry  = geometry;
+        this.threads   = threads;
+        this.executor  = Executors.newFixedThreadPool( threads );
+        this.wins      = geometry.getHoles() + 1;
+        this.idealWins = geometry.getHoles() + 2;
+        this.counters  = geometry.getHoles() + 3;
+    }
+
+    /**
+     * Play random games from the start of a configuration.
+     * @param SolitaireCheckersConfigurations the configuration
+     * @param long number of games
+     * @param long seed of the random number generators
+     * @return SimulationResult the counts
+     * @throws IllegalArgumentException if this simulator is not for the English board
+     */
+    public SimulationResult simulate( SolitaireCheckersConfigurations configuration, long games, long seed ) {
+        if ( geometry != BoardGeometry.ENGLISH )
+            throw new IllegalArgumentException( "configurations are for the English board" );
+
+        return this.simulate( SolitaireCheckersTemplate.of(configuration).getBoard(), games, seed, RANDOM );
+    }
+
+    /**
+     * Play games from a board.
+     * @param long the board
+     * @param long number of games
+     * @param long seed of the random number generators
+     * @param Policy chooses every move
+     * @return SimulationResult the counts
+     */
+    public SimulationResult simulate( long board, long games, long seed, Policy policy ) {
+        List<Future<long[]>> parts  = new ArrayList<Future<long[]>>();
+        long[]               counts = new long[counters];
+        long                 start  = System.nanoTime();
+
+        for( int i = 0; i < threads; i++ ) {
+            final long share  = (games / threads) + (i < (games % threads) ? 1 : 0);
+            final long random = splitMix( seed + (i * GOLDEN_GAMMA) );
+            parts.add( executor.submit(() -> play(board, share, random, policy)) );
+        }
+
+        try {
+            for( Future<long[]> part : parts ) {
+                long[] c = part.get();
+                for( int i = 0; i < counters; i++ )
+                    counts[i] += c[i];
+            }
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "simulation interrupted", e );
+        } catch( ExecutionException e ) {
+            throw new IllegalStateException( "simulation failed", e.getCause() );
+        }
+
+        return new SimulationResult( counts[wins], counts[idealWins],
+                                     Arrays.copyOf(counts, geometry.getHoles() + 1),
+                                     System.nanoTime() - start );
+    }
+
+    /**
+     * Release the worker threads.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Play games on one thread.
+     * @param long the start board
+     * @param long number of games
+     * @param long the thread's xorshift state
+     * @param Policy chooses every move
+     * @return long[] the thread's counters
+     */
+    private long[] play( long board, long games, long random, Policy policy ) {
+        long[] counts = new long[counters];
+        int[]  moves  = new int[geometry.getMoves()];
+
+        for( long game = 0; game < games; game++ ) {
+            long position = board;
+            int  count;
+
+            while( (count = geometry.generateMoves(position, moves)) > 0 ) {
+                random ^= random << 13;
+                random ^= random >>> 7;
+                random ^= random << 17;
+                position = geometry.apply( position, moves[policy.choose(position, moves, count, random)] );
+            }
+
+            int pegs = Long.bitCount( position );
+            counts[pegs]++;
+            if ( pegs == 1 )
+                counts[(position & geometry.getCenter()) != 0L ? idealWins : wins]++;
+        }
+
+        return counts;
+    }
+
+    /**
+     * Scramble a seed into a well mixed, non zero xorshift state.
+     * @param long the seed
+     * @return long the state
+     */
+    private static long splitMix( long z ) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+
+        return (z == 0L) ? GOLDEN_GAMMA : z;
+    }
+}
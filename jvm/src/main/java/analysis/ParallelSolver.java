@@ -0,0 +1,464 @@
+package analysis;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import model.BoardGeometry;
+import model.SolitaireCheckersConfigurations;
+import model.SolitaireCheckersSolution;
+import model.SolitaireCheckersTemplate;
+
+/**
+ * Parallel version of SolitaireCheckersSolver for the hard starts
+ * (Solitaire, Pyramid, DoubleArrow), on any board (see BoardGeometry).
+ *
+ * The top plies of the game tree are forked as tasks on a work-stealing
+ * ForkJoinPool; below that each task searches depth-first. A task forks
+ * only while it is at most splitDepth plies deep and the pool is short of
+ * queued work, so a pool with idle workers splits the tree and a busy one
+ * stops splitting early. Children already proven dead, and children that
+ * are images of an earlier sibling, are not forked at all.
+ *
+ * All workers share one lock-free table of dead (canonical) positions,
+ * and the first worker to find a winning line cancels the others. As in
+ * SolitaireCheckersSolver, a position is canonical under the symmetries
+ * that keep the finishing holes in place. Each worker counts its own
+ * nodes, lookups and hits; the counts are summed once the search is over.
+ *
+ * Scaling has only been measured on a single core so far (JDK 17,
+ * ParallelSolverScaling 4 9). There the workers can only time-slice:
+ * Solitaire takes 77, 131 and 213 ms on 1, 2 and 4 workers against 54 ms
+ * for the sequential solver, and the other starts run at 0.5 to 0.85 of
+ * its speed, except where more workers happen to reach a winning line
+ * sooner (Diamond on 4 workers, 1.24). No multi-core speedup has been
+ * measured yet.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class ParallelSolver {
+
+    private static final int DEFAULT_SPLIT_DEPTH = 4;
+    private static final int DEFAULT_CAPACITY    = 1 << 23;
+
+    /* A task forks while fewer than this many of the pool's tasks wait unclaimed. */
+    private static final int MAX_SURPLUS         = 2;
+
+    /* Dead positions of the ideal search are tagged, so both searches share the table. */
+    private static final long IDEAL_TAG          = 1L << 62;
+
+    private final BoardGeometry     geometry;
+    private final ForkJoinPool      pool;
+    private final int               splitDepth;
+    private final ConcurrentLongSet dead;
+    private final ThreadLocal<Worker> local;
+    private final Queue<Worker>       workers;
+    private final AtomicInteger       ids;
+
+    private final AtomicBoolean          found;
+    private final AtomicReference<int[]> winningLine;
+    private final int[]                  symmetries;
+    private int                          numberOfSymmetries;
+    private long                         target;
+    private long                         tag;
+    private Statistics                   statistics;
+
+
+    /**
+     * Creates a solver for the English board using every available core.
+     */
+    public ParallelSolver() {
+        this( BoardGeometry.ENGLISH, Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Creates a solver with the default split depth and table capacity.
+     * @param BoardGeometry the board
+     * @param int number of worker threads
+     */
+    public ParallelSolver( BoardGeometry geometry, int parallelism ) {
+        this( geometry, parallelism, DEFAULT_SPLIT_DEPTH, DEFAULT_CAPACITY );
+    }
+
+    /**
+     * Creates a solver.
+     * @param BoardGeometry the board
+     * @param int number of worker threads
+     * @param int number of plies that may be forked as separate tasks
+     * @param int capacity of the shared dead-position table
+     */
+    public ParallelSolver( BoardGeometry geometry, int parallelism, int splitDepth, int capacity ) {
+        this.geometry    = geometry;
+        this.pool        = new ForkJoinPool( parallelism );
+        this.splitDepth  = splitDepth;
+        this.dead        = new ConcurrentLongSet( capacity );
+        this.workers     = new ConcurrentLinkedQueue<Worker>();
+        this.ids         = new AtomicInteger();
+        this.local       = ThreadLocal.withInitial( () -> {
+            Worker worker = new Worker( ids.getAndIncrement(), geometry );
+            workers.add( worker );
+            return worker;
+        } );
+        this.found       = new AtomicBoolean();
+        this.winningLine = new AtomicReference<int[]>();
+        this.symmetries  = new int[geometry.getSymmetries()];
+    }
+
+    /**
+     * Solve the starting position of a configuration.
+     * @param SolitaireCheckersConfigurations the configuration
+     * @return SolitaireCheckersSolution the solution
+     * @throws IllegalArgumentException if this solver is not for the English board
+     */
+    public SolitaireCheckersSolution solve( SolitaireCheckersConfigurations configuration ) {
+        if ( geometry != BoardGeometry.ENGLISH )
+            throw new IllegalArgumentException( "configurations are for the English board" );
+
+        return this.solve( SolitaireCheckersTemplate.of(configuration).getBoard() );
+    }
+
+    /**
+     * Solve a board, ideal finish first, as SolitaireCheckersSolver does.
+     * @param long the board
+     * @return SolitaireCheckersSolution the solution
+     */
+    public SolitaireCheckersSolution solve( long board ) {
+        long    start = System.nanoTime();
+        boolean winnable;
+        boolean winnableIdeal;
+        int[]   line;
+        long    positions;
+        long    nodes   = 0L;
+        long    lookups = 0L;
+        long    hits    = 0L;
+        long[]  steals  = new long[ids.get()];
+
+        for( Worker worker : workers )
+            worker.reset();
+        if ( dead.size() > 0L )
+            dead.clear();
+
+        winnableIdeal = this.search( board, geometry.getCenter(), IDEAL_TAG );
+        winnable      = winnableIdeal || this.search( board, geometry.getValid(), 0L );
+        positions     = dead.size();
+
+        line = winnable ? winningLine.get() : new int[0];
+
+        /* the pool has joined every task, so the workers' counts are all visible here */
+        steals = Arrays.copyOf( steals, ids.get() );
+        for( Worker worker : workers ) {
+            nodes   += worker.nodes;
+            lookups += worker.lookups;
+            hits    += worker.hits;
+            steals[worker.id] = worker.steals;
+        }
+        statistics = new Statistics( nodes, lookups, hits, System.nanoTime() - start, steals );
+
+        return new SolitaireCheckersSolution( board, winnable, winnableIdeal,
+                                              line, nodes, (int) positions );
+    }
+
+    /**
+     * Get the statistics of the last search.
+     * @return Statistics the statistics, or null before the first search
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Release the worker threads.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private boolean search( long board, long finish, long finishTag ) {
+        found.set( false );
+        winningLine.set( null );
+        target = finish;
+        tag    = finishTag;
+
+        numberOfSymmetries = 0;
+        for( int symmetry = 0; symmetry < geometry.getSymmetries(); symmetry++ ) {
+            if ( geometry.transform(finish, symmetry) == finish )
+                symmetries[numberOfSymmetries++] = symmetry;
+        }
+
+        if ( Long.bitCount(board) == 0 )
+            return false;
+
+        return pool.invoke( new SearchTask(null, board, this.canonical(board) | finishTag, -1, 0, -1) );
+    }
+
+    /**
+     * Answer the smallest image of board under the symmetries that keep the
+     * finishing holes in place.
+     * @param long board
+     * @return long the canonical board
+     */
+    private long canonical( long board ) {
+        long best = board;
+
+        if ( numberOfSymmetries == geometry.getSymmetries() )
+            return geometry.canonical( board );
+
+        for( int i = 1; i < numberOfSymmetries; i++ )
+            best = Math.min( best, geometry.transform(board, symmetries[i]) );
+
+        return best;
+    }
+
+    /**
+     * What one worker thread owns: its move buffers and its counts. Only
+     * that thread writes them while a search runs.
+     */
+    private static final class Worker {
+
+        private final int     id;
+        private final int[][] moves;
+        private final int[]   line;
+        private long          nodes;
+        private long          lookups;
+        private long          hits;
+        private long          steals;
+
+        Worker( int id, BoardGeometry geometry ) {
+            this.id    = id;
+            this.moves = new int[geometry.getHoles()][geometry.getMoves()];
+            this.line  = new int[geometry.getHoles()];
+        }
+
+        void reset() {
+            nodes   = 0L;
+            lookups = 0L;
+            hits    = 0L;
+            steals  = 0L;
+        }
+    }
+
+    /**
+     * Search the subtree below one position. The moves leading to it are
+     * found by walking up the parent tasks, so forking copies nothing.
+     */
+    private final class SearchTask extends RecursiveTask<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final SearchTask parent;
+        private final long       board;
+        private final long       key;
+        private final int        move;
+        private final int        depth;
+        private final int        owner;
+
+        /**
+         * Creates a task.
+         * @param SearchTask the task of the previous position, or null at the root
+         * @param long the board
+         * @param long its tagged canonical board, already looked up by the parent
+         * @param int the move from the parent's board, or -1 at the root
+         * @param int the number of moves from the root
+         * @param int the id of the worker that forked this task, or -1
+         */
+        SearchTask( SearchTask parent, long board, long key, int move, int depth, int owner ) {
+            this.parent = parent;
+            this.board  = board;
+            this.key    = key;
+            this.move   = move;
+            this.depth  = depth;
+            this.owner  = owner;
+        }
+
+        @Override
+        protected Boolean compute() {
+            Worker worker = local.get();
+            int    pegs   = Long.bitCount( board );
+
+            if ( (owner >= 0) && (owner != worker.id) )
+                worker.steals++;
+            if ( found.get() )
+                return Boolean.FALSE;
+
+            if ( (depth >= splitDepth) || (pegs <= 2) || (getSurplusQueuedTaskCount() >= MAX_SURPLUS) ) {
+                if ( this.searchDepthFirst(worker, board, key, pegs, 0) ) {
+                    this.publish( worker.line, pegs - 1 );
+                    return Boolean.TRUE;
+                }
+                return Boolean.FALSE;
+            }
+
+            return this.fork( worker, pegs );
+        }
+
+        private Boolean fork( Worker worker, int pegs ) {
+            int[]        moves    = new int[geometry.getMoves()];
+            int          count    = geometry.generateMoves( board, moves );
+            SearchTask[] children = new SearchTask[count];
+            int          forked   = 0;
+
+            worker.nodes++;
+            for( int i = 0; i < count; i++ ) {
+                long after    = geometry.apply( board, moves[i] );
+                long childKey = canonical( after ) | tag;
+                boolean image = false;
+
+                /* one child image of another is the same search */
+                for( int j = 0; (j < forked) && !image; j++ )
+                    image = (children[j].key == childKey);
+                if ( image )
+                    continue;
+                worker.lookups++;
+                if ( dead.contains(childKey) ) {
+                    worker.hits++;
+                    continue;
+                }
+                children[forked++] = new SearchTask( this, after, childKey, moves[i], depth + 1, worker.id );
+            }
+            invokeAll( Arrays.asList(children).subList(0, forked) );
+
+            for( int i = 0; i < forked; i++ ) {
+                if ( children[i].join() )
+                    return Boolean.TRUE;
+            }
+
+            /* a cancelled search proves nothing */
+            if ( found.get() == false )
+                dead.add( key );
+            return Boolean.FALSE;
+        }
+
+        /**
+         * Search below a position whose key has been looked up already.
+         * @return boolean true if a winning line was found (left in worker.line)
+         */
+        private boolean searchDepthFirst( Worker worker, long position, long positionKey, int pegs, int ply ) {
+            int[] buffer;
+            int   count;
+
+            worker.nodes++;
+            if ( pegs == 1 )
+                return (position & target) != 0L;
+            if ( found.get() )
+                return false;
+
+            buffer = worker.moves[ply];
+            count  = geometry.generateMoves( position, buffer );
+            for( int i = 0; i < count; i++ ) {
+                int  move  = buffer[i];
+                long after = geometry.apply( position, move );
+                long next  = 0L;
+
+                if ( pegs > 2 ) {
+                    next = canonical( after ) | tag;
+                    worker.lookups++;
+                    if ( dead.contains(next) ) {
+                        worker.hits++;
+                        continue;
+                    }
+                }
+                if ( this.searchDepthFirst(worker, after, next, pegs - 1, ply + 1) ) {
+                    worker.line[ply] = move;
+                    return true;
+                }
+            }
+
+            if ( found.get() == false )
+                dead.add( positionKey );
+            return false;
+        }
+
+        /**
+         * Publish the winning line through this task, if it is the first.
+         * @param int[] the moves from this task's board
+         * @param int the number of those moves
+         */
+        private void publish( int[] line, int length ) {
+            int[] full = new int[depth + length];
+
+            System.arraycopy( line, 0, full, depth, length );
+            for( SearchTask task = this; task.parent != null; task = task.parent )
+                full[task.depth - 1] = task.move;
+            if ( found.compareAndSet(false, true) )
+                winningLine.set( full );
+        }
+    }
+
+    /**
+     * Counters reported at the end of a search.
+     */
+    public static final class Statistics {
+
+        private final long   nodes;
+        private final long   lookups;
+        private final long   hits;
+        private final long   elapsedNanos;
+        private final long[] steals;
+
+        Statistics( long nodes, long lookups, long hits, long elapsedNanos, long[] steals ) {
+            this.nodes        = nodes;
+            this.lookups      = lookups;
+            this.hits         = hits;
+            this.elapsedNanos = elapsedNanos;
+            this.steals       = steals;
+        }
+
+        /**
+         * Get the number of positions searched.
+         * @return long the number of nodes
+         */
+        public long getNodes() {
+            return nodes;
+        }
+
+        /**
+         * Get the search rate.
+         * @return double nodes per second
+         */
+        public double getNodesPerSecond() {
+            return nodes * 1e9 / Math.max( elapsedNanos, 1L );
+        }
+
+        /**
+         * Get the fraction of table lookups that found a dead position.
+         * @return double the hit rate, 0 to 1
+         */
+        public double getHitRate() {
+            return lookups == 0L ? 0.0 : (double) hits / lookups;
+        }
+
+        /**
+         * Get the wall clock time of the search.
+         * @return long the elapsed time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Get the number of tasks each worker stole from another worker.
+         * @return long[] steal counts indexed by worker
+         */
+        public long[] getSteals() {
+            return steals.clone();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder s = new StringBuilder();
+
+            s.append( String.format("%d nodes in %.3f s (%.0f nodes/s), table hit rate %.1f%%, steals",
+                                    nodes, elapsedNanos / 1e9, this.getNodesPerSecond(), this.getHitRate() * 100.0) );
+            for( int i = 0; i < steals.length; i++ )
+                s.append( (i == 0 ? " " : ", ") ).append( "w" ).append( i ).append( '=' ).append( steals[i] );
+
+            return s.toString();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package analysis;
+
+/**
+ * Final state of every game of a batch replay (see GameReplayer).
+ *
+ * The state of each game is packed in one int, in input order: its
+ * status in the low 4 bits, the number of pegs left in the next 8 and,
+ * for an ILLEGAL game, the index of the offending move or tap above them.
+ * Use statusOf, pegsOf and illegalAtOf to unpack them.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public final class ReplayResult {
+
+    public static final int WON         = 0;
+    public static final int WON_IDEAL   = 1;
+    public static final int LOST        = 2;
+    public static final int UNFINISHED  = 3;
+    public static final int ILLEGAL     = 4;
+
+    static final int STATUSES           = 5;
+
+    private static final String[] NAMES = { "won", "ideal", "lost", "unfinished", "illegal" };
+
+    private final int[]  outcomes;
+    private final long[] counts;
+    private final long   elapsedNanos;
+
+
+    /**
+     * Creates a result.
+     * @param int[] the packed state of every game, in input order
+     * @param long wall clock time of the replay
+     */
+    ReplayResult( int[] outcomes, long elapsedNanos ) {
+        this.outcomes     = outcomes;
+        this.counts       = new long[STATUSES];
+        this.elapsedNanos = elapsedNanos;
+        for( int outcome : outcomes )
+            counts[statusOf( outcome )]++;
+    }
+
+    /**
+     * Pack the state of a game.
+     * @param int status
+     * @param int pegs left
+     * @param int index of the illegal move or tap, 0 unless ILLEGAL
+     * @return int the packed state
+     */
+    static int pack( int status, int pegs, int illegalAt ) {
+        return (illegalAt << 12) | (pegs << 4) | status;
+    }
+
+    /**
+     * Answer the status of a packed state.
+     * @param int the packed state
+     * @return int WON, WON_IDEAL, LOST, UNFINISHED or ILLEGAL
+     */
+    public static int statusOf( int outcome ) {
+        return outcome & 0xF;
+    }
+
+    /**
+     * Answer the pegs left in a packed state (before the illegal move, if any).
+     * @param int the packed state
+     * @return int the number of pegs
+     */
+    public static int pegsOf( int outcome ) {
+        return (outcome >>> 4) & 0xFF;
+    }
+
+    /**
+     * Answer where a game turned illegal.
+     * @param int the packed state
+     * @return int index of the illegal move or tap, from 0; -1 unless ILLEGAL
+     */
+    public static int illegalAtOf( int outcome ) {
+        return (statusOf( outcome ) == ILLEGAL) ? (outcome >>> 12) : -1;
+    }
+
+    /**
+     * Get the number of games replayed.
+     * @return int the number of games
+     */
+    public int getGames() {
+        return outcomes.length;
+    }
+
+    /**
+     * Get the number of games ending with a status.
+     * @param int WON, WON_IDEAL, LOST, UNFINISHED or ILLEGAL
+     * @return long the number of games
+     */
+    public long getCount( int status ) {
+        return counts[status];
+    }
+
+    /**
+     * Get the packed state of a game.
+     * @param int index of the game, in input order
+     * @return int the packed state
+     */
+    public int getOutcome( int game ) {
+        return outcomes[game];
+    }
+
+    /**
+     * Get the replay rate.
+     * @return double games per second
+     */
+    public double getGamesPerSecond() {
+        return outcomes.length * 1e9 / Math.max( elapsedNanos, 1L );
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+
+        s.append( String.format("%d games (%.0f games/s):", outcomes.length, this.getGamesPerSecond()) );
+        for( int status = 0; status < STATUSES; status++ )
+            s.append( ' ' ).append( NAMES[status] ).append( ' ' ).append( counts[status] );
+
+        return s.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package analysis;
+
+/**
+ * Outcome counts of a batch of playouts (see MonteCarloSimulator).
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public final class SimulationResult {
+
+    private final long   games;
+    private final long   wins;
+    private final long   idealWins;
+    private final long[] remainingPegs;
+    private final long   elapsedNanos;
+
+
+    /**
+     * Creates a result.
+     * @param long number of wins with the last peg off center
+     * @param long number of wins with the last peg in the center
+     * @param long[] number of games ending with n pegs, indexed by n
+     * @param long wall clock time of the batch
+     */
+    SimulationResult( long wins, long idealWins, long[] remainingPegs, long elapsedNanos ) {
+        long total = 0L;
+
+        for( int i = 0; i < remainingPegs.length; i++ )
+            total += remainingPegs[i];
+
+        this.games         = total;
+        this.wins          = wins;
+        this.idealWins     = idealWins;
+        this.remainingPegs = remainingPegs.clone();
+        this.elapsedNanos  = elapsedNanos;
+    }
+
+    /**
+     * Get the number of games played.
+     * @return long the number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Get the number of games won with the last peg off center (as in isWon).
+     * @return long the number of wins
+     */
+    public long getWins() {
+        return wins;
+    }
+
+    /**
+     * Get the number of games won with the last peg in the center (as in isWonIdeal).
+     * @return long the number of ideal wins
+     */
+    public long getIdealWins() {
+        return idealWins;
+    }
+
+    /**
+     * Get the number of games lost.
+     * @return long the number of losses
+     */
+    public long getLosses() {
+        return games - wins - idealWins;
+    }
+
+    /**
+     * Get the distribution of pegs left at the end of the games.
+     * @return long[] number of games ending with n pegs, indexed by n
+     */
+    public long[] getRemainingPegs() {
+        return remainingPegs.clone();
+    }
+
+    /**
+     * Get the playout rate.
+     * @return double games per second
+     */
+    public double getGamesPerSecond() {
+        return games * 1e9 / Math.max( elapsedNanos, 1L );
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        double        n = Math.max( games, 1L );
+
+        s.append( String.format("%d games (%.0f games/s): won %.4f%%, ideal %.4f%%, lost %.4f%%; pegs left",
+                                games, this.getGamesPerSecond(), 100.0 * wins / n,
+                                100.0 * idealWins / n, 100.0 * this.getLosses() / n) );
+        for( int pegs = 1; pegs < remainingPegs.length; pegs++ ) {
+            if ( remainingPegs[pegs] != 0L )
+                s.append( ' ' ).append( pegs ).append( ':' ).append( remainingPegs[pegs] );
+        }
+
+        return s.toString();
+    }
+}
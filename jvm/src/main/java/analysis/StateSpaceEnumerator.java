@@ -0,0 +1,435 @@
+package analysis;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.BoardGeometry;
+import model.SolitaireCheckersConfigurations;
+import model.SolitaireCheckersTemplate;
+
+/**
+ * Enumerates every position reachable from a start, one peg count at a
+ * time, and counts the dead ends and the positions that can still be won
+ * (see StateSpaceStatistics).
+ *
+ * Each level is a sorted sequence of distinct bitboards. The next level is
+ * built breadth-first: blocks of the level are expanded in parallel into
+ * sorted runs of successors, which are then merged without duplicates.
+ * Once every level is known, the winnable positions are found from one
+ * peg up: those of a level are the predecessors of the winnable positions
+ * one level down, intersected with the level; sorted sequences make both
+ * steps linear merges, with no hashing and no object per position.
+ *
+ * Levels and runs are held in heap arrays or, given a spill directory, in
+ * temporary files there, so the heap only holds the blocks being expanded.
+ * Folding symmetries counts each position once per class of images under
+ * the symmetries that keep the center in place (the 8 of the English board).
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class StateSpaceEnumerator {
+
+    /* Positions per parallel block. */
+    private static final int BLOCK     = 1 << 16;
+    private static final int IN_FLIGHT = 2;   // blocks per thread
+
+    private final BoardGeometry   geometry;
+    private final boolean         foldSymmetries;
+    private final File            spillDirectory;
+    private final ExecutorService executor;
+    private final int             threads;
+    private final int[]           symmetries;
+    private final int             numberOfSymmetries;
+    private final long[]          masks;
+    private final int[][]         movesInto;
+
+
+    /**
+     * Creates an enumerator of every position, in the heap, on every core.
+     * @param BoardGeometry the board
+     */
+    public StateSpaceEnumerator( BoardGeometry geometry ) {
+        this( geometry, false, null, Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Creates an enumerator.
+     * @param BoardGeometry the board
+     * @param boolean whether or not to count images of a position once
+     * @param File directory of the temporary files, or null to stay in the heap
+     * @param int number of worker threads
+     */
+    public StateSpaceEnumerator( BoardGeometry geometry, boolean foldSymmetries, File spillDirectory, int threads ) {
+        int[] count = new int[Long.SIZE];
+        int   found = 0;
+
+        this.geometry       = geometry;
+        this.foldSymmetries = foldSymmetries;
+        this.spillDirectory = spillDirectory;
+        this.threads        = threads;
+        this.executor       = Executors.newFixedThreadPool( threads );
+
+        this.symmetries = new int[geometry.getSymmetries()];
+        for( int symmetry = 0; symmetry < geometry.getSymmetries(); symmetry++ ) {
+            if ( geometry.transform(geometry.getCenter(), symmetry) == geometry.getCenter() )
+                symmetries[found++] = symmetry;
+        }
+        this.numberOfSymmetries = found;
+
+        this.masks     = new long[geometry.getMoves()];
+        this.movesInto = new int[Long.SIZE][];
+        for( int move = 0; move < masks.length; move++ ) {
+            masks[move] = geometry.moveMask( move );
+            if ( masks[move] != 0L )
+                count[geometry.moveTo( move )]++;
+        }
+        for( int bit = 0; bit < Long.SIZE; bit++ ) {
+            movesInto[bit] = new int[count[bit]];
+            count[bit]     = 0;
+        }
+        for( int move = 0; move < masks.length; move++ ) {
+            if ( masks[move] != 0L ) {
+                int to = geometry.moveTo( move );
+                movesInto[to][count[to]++] = move;
+            }
+        }
+    }
+
+    /**
+     * Enumerate the positions reachable from the start of a configuration.
+     * @param SolitaireCheckersConfigurations the configuration
+     * @return StateSpaceStatistics the counts
+     * @throws IllegalArgumentException if this enumerator is not for the English board
+     */
+    public StateSpaceStatistics enumerate( SolitaireCheckersConfigurations configuration ) {
+        if ( geometry != BoardGeometry.ENGLISH )
+            throw new IllegalArgumentException( "configurations are for the English board" );
+
+        return this.enumerate( SolitaireCheckersTemplate.of(configuration).getBoard(), configuration.toString() );
+    }
+
+    /**
+     * Enumerate the positions reachable from a board.
+     * @param long the start, with at least one peg
+     * @param String what is enumerated, for the statistics
+     * @return StateSpaceStatistics the counts
+     */
+    public StateSpaceStatistics enumerate( long start, String description ) {
+        int            pegs      = Long.bitCount( start );
+        LongSequence[] levels    = new LongSequence[pegs + 1];
+        long[]         positions = new long[pegs + 1];
+        long[]         deadEnds  = new long[pegs + 1];
+        long[]         winnable  = new long[pegs + 1];
+        long[]         ideal     = new long[pegs + 1];
+        long           begin     = System.nanoTime();
+        LongSequence   won;
+        LongSequence   wonIdeal;
+
+        levels[pegs] = LongSequence.of( new long[] { this.canonical(start) }, 1 );
+        for( int p = pegs; p > 1; p-- ) {
+            LongAdder dead = new LongAdder();
+            levels[p - 1] = this.expand( levels[p], false, dead );
+            positions[p]  = levels[p].size();
+            deadEnds[p]   = dead.sum();
+        }
+        positions[1] = levels[1].size();
+
+        /* Every single peg is a win; an ideal one if in the center. */
+        won      = levels[1];
+        wonIdeal = this.filter( levels[1], geometry.getCenter() );
+        for( int p = 1; p <= pegs; p++ ) {
+            if ( p > 1 ) {
+                LongSequence below      = won;
+                LongSequence belowIdeal = wonIdeal;
+                won      = this.intersect( levels[p], this.expand(below, true, null) );
+                wonIdeal = this.intersect( levels[p], this.expand(belowIdeal, true, null) );
+                below.delete();
+                belowIdeal.delete();
+                levels[p].delete();
+            }
+            winnable[p] = won.size();
+            ideal[p]    = wonIdeal.size();
+        }
+        won.delete();
+        wonIdeal.delete();
+
+        return new StateSpaceStatistics( description, positions, deadEnds, winnable, ideal,
+                                         System.nanoTime() - begin );
+    }
+
+    /**
+     * Release the worker threads.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Answer the representative of board's class: board itself, or its
+     * smallest image when folding symmetries.
+     * @param long board
+     * @return long the representative
+     */
+    private long canonical( long board ) {
+        long best = board;
+
+        if ( !foldSymmetries )
+            return board;
+        if ( numberOfSymmetries == geometry.getSymmetries() )
+            return geometry.canonical( board );
+
+        for( int i = 1; i < numberOfSymmetries; i++ )
+            best = Math.min( best, geometry.transform(board, symmetries[i]) );
+
+        return best;
+    }
+
+    /**
+     * Answer the sorted, distinct successors (or predecessors) of every
+     * position of a sequence. The source is read once.
+     * @param LongSequence the positions
+     * @param boolean true for predecessors, false for successors
+     * @param LongAdder counts the positions of more than one peg with no jump, or null
+     * @return LongSequence the sorted positions
+     */
+    private LongSequence expand( LongSequence source, boolean backward, LongAdder deadEnds ) {
+        List<LongSequence>               runs     = new ArrayList<LongSequence>();
+        ArrayDeque<Future<LongSequence>> inFlight = new ArrayDeque<Future<LongSequence>>();
+
+        try ( LongSequence.Cursor cursor = source.cursor() ) {
+            while( cursor.hasNext() ) {
+                long[] block = new long[(int) Math.min( BLOCK, source.size() )];
+                int    n     = 0;
+                while( (n < block.length) && cursor.hasNext() )
+                    block[n++] = cursor.next();
+                int count = n;
+                inFlight.add( executor.submit(() -> this.run(block, count, backward, deadEnds)) );
+                if ( inFlight.size() >= threads * IN_FLIGHT )
+                    runs.add( this.await(inFlight.poll()) );
+            }
+        }
+        while( !inFlight.isEmpty() )
+            runs.add( this.await(inFlight.poll()) );
+
+        return this.merge( runs );
+    }
+
+    /**
+     * Expand a block into a sorted run without duplicates.
+     * @param long[] the positions
+     * @param int number of positions
+     * @param boolean true for predecessors, false for successors
+     * @param LongAdder counts the dead ends, or null
+     * @return LongSequence the run
+     */
+    private LongSequence run( long[] block, int count, boolean backward, LongAdder deadEnds ) {
+        long[] next  = new long[count * 4];
+        int    n     = 0;
+        long   dead  = 0L;
+        int    distinct;
+
+        for( int i = 0; i < count; i++ ) {
+            long board = block[i];
+            int  start = n;
+
+            if ( next.length - n < masks.length )
+                next = Arrays.copyOf( next, Math.max(next.length * 2, n + masks.length) );
+
+            if ( backward ) {
+                for( long pegs = board; pegs != 0L; pegs &= pegs - 1 ) {
+                    int to = Long.numberOfTrailingZeros( pegs );
+                    for( int move : movesInto[to] ) {
+                        if ( (board & masks[move]) == (1L << to) )
+                            next[n++] = this.canonical( board ^ masks[move] );
+                    }
+                }
+            } else {
+                for( int direction = 0; direction < geometry.getDirections(); direction++ ) {
+                    for( long from = geometry.jumpers(board, direction); from != 0L; from &= from - 1 )
+                        next[n++] = this.canonical( geometry.apply(board, geometry.moveCode(Long.numberOfTrailingZeros(from), direction)) );
+                }
+                if ( (n == start) && (Long.bitCount(board) > 1) )
+                    dead++;
+            }
+        }
+        if ( deadEnds != null )
+            deadEnds.add( dead );
+
+        Arrays.sort( next, 0, n );
+        distinct = 0;
+        for( int i = 0; i < n; i++ ) {
+            if ( (distinct == 0) || (next[i] != next[distinct - 1]) )
+                next[distinct++] = next[i];
+        }
+
+        if ( spillDirectory == null )
+            return LongSequence.of( Arrays.copyOf(next, distinct), distinct );
+
+        LongSequence.Writer writer = new LongSequence.Writer( spillDirectory );
+        for( int i = 0; i < distinct; i++ )
+            writer.add( next[i] );
+
+        return writer.finish();
+    }
+
+    /**
+     * Merge sorted runs without duplicates, deleting them.
+     * @param List<LongSequence> the runs
+     * @return LongSequence the merged sequence
+     */
+    private LongSequence merge( List<LongSequence> runs ) {
+        LongSequence.Writer   writer  = new LongSequence.Writer( spillDirectory );
+        LongSequence.Cursor[] cursors = new LongSequence.Cursor[runs.size()];
+        long[]                heads   = new long[runs.size()];
+        int[]                 heap    = new int[runs.size()];
+        int                   size    = 0;
+        boolean               first   = true;
+        long                  last    = 0L;
+
+        if ( runs.size() == 1 )
+            return runs.get( 0 );
+
+        /* A binary min-heap of run numbers, ordered by their head value. */
+        for( int r = 0; r < cursors.length; r++ ) {
+            cursors[r] = runs.get( r ).cursor();
+            if ( cursors[r].hasNext() ) {
+                heads[r]     = cursors[r].next();
+                heap[size++] = r;
+                this.siftUp( heap, heads, size - 1 );
+            }
+        }
+
+        while( size > 0 ) {
+            int r = heap[0];
+            if ( first || (heads[r] != last) ) {
+                writer.add( heads[r] );
+                last  = heads[r];
+                first = false;
+            }
+            if ( cursors[r].hasNext() ) {
+                heads[r] = cursors[r].next();
+            } else {
+                heap[0] = heap[--size];
+            }
+            this.siftDown( heap, heads, size );
+        }
+
+        for( int r = 0; r < cursors.length; r++ ) {
+            cursors[r].close();
+            runs.get( r ).delete();
+        }
+
+        return writer.finish();
+    }
+
+    private void siftUp( int[] heap, long[] heads, int i ) {
+        while( i > 0 ) {
+            int parent = (i - 1) >>> 1;
+            if ( heads[heap[parent]] <= heads[heap[i]] )
+                return;
+            this.swap( heap, parent, i );
+            i = parent;
+        }
+    }
+
+    private void siftDown( int[] heap, long[] heads, int size ) {
+        int i = 0;
+
+        while( true ) {
+            int smallest = i;
+            int left     = (2 * i) + 1;
+            if ( (left < size) && (heads[heap[left]] < heads[heap[smallest]]) )
+                smallest = left;
+            if ( (left + 1 < size) && (heads[heap[left + 1]] < heads[heap[smallest]]) )
+                smallest = left + 1;
+            if ( smallest == i )
+                return;
+            this.swap( heap, smallest, i );
+            i = smallest;
+        }
+    }
+
+    private void swap( int[] heap, int i, int j ) {
+        int t = heap[i];
+
+        heap[i] = heap[j];
+        heap[j] = t;
+    }
+
+    /**
+     * Answer the values in both sorted sequences, deleting the second.
+     * @param LongSequence a
+     * @param LongSequence b, deleted
+     * @return LongSequence the common values
+     */
+    private LongSequence intersect( LongSequence a, LongSequence b ) {
+        LongSequence.Writer writer = new LongSequence.Writer( spillDirectory );
+
+        try ( LongSequence.Cursor x = a.cursor(); LongSequence.Cursor y = b.cursor() ) {
+            if ( x.hasNext() && y.hasNext() ) {
+                long u = x.next();
+                long v = y.next();
+                while( true ) {
+                    if ( u == v ) {
+                        writer.add( u );
+                        if ( !x.hasNext() || !y.hasNext() )
+                            break;
+                        u = x.next();
+                        v = y.next();
+                    } else if ( u < v ) {
+                        if ( !x.hasNext() )
+                            break;
+                        u = x.next();
+                    } else {
+                        if ( !y.hasNext() )
+                            break;
+                        v = y.next();
+                    }
+                }
+            }
+        }
+        b.delete();
+
+        return writer.finish();
+    }
+
+    /**
+     * Answer the values of a sequence with a peg in mask.
+     * @param LongSequence the sequence
+     * @param long mask
+     * @return LongSequence the matching values, in order
+     */
+    private LongSequence filter( LongSequence source, long mask ) {
+        LongSequence.Writer writer = new LongSequence.Writer( spillDirectory );
+
+        try ( LongSequence.Cursor cursor = source.cursor() ) {
+            while( cursor.hasNext() ) {
+                long board = cursor.next();
+                if ( (board & mask) != 0L )
+                    writer.add( board );
+            }
+        }
+
+        return writer.finish();
+    }
+
+    private <T> T await( Future<T> future ) {
+        try {
+            return future.get();
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "enumeration interrupted", e );
+        } catch( ExecutionException e ) {
+            throw new IllegalStateException( "enumeration failed", e.getCause() );
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package analysis;
+
+/**
+ * Level by level counts of the positions reachable from a start (see
+ * StateSpaceEnumerator), indexed by number of pegs.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public final class StateSpaceStatistics {
+
+    private final String description;
+    private final long[] positions;
+    private final long[] deadEnds;
+    private final long[] winnable;
+    private final long[] winnableIdeal;
+    private final long   elapsedNanos;
+
+
+    /**
+     * Creates the statistics.
+     * @param String what was enumerated
+     * @param long[] positions with n pegs, indexed by n
+     * @param long[] positions with n pegs, more than one, and no jump
+     * @param long[] positions with n pegs that can still be won
+     * @param long[] positions with n pegs that can still be won ideally
+     * @param long wall clock time of the enumeration
+     */
+    StateSpaceStatistics( String description, long[] positions, long[] deadEnds, long[] winnable,
+                          long[] winnableIdeal, long elapsedNanos ) {
+        this.description   = description;
+        this.positions     = positions.clone();
+        this.deadEnds      = deadEnds.clone();
+        this.winnable      = winnable.clone();
+        this.winnableIdeal = winnableIdeal.clone();
+        this.elapsedNanos  = elapsedNanos;
+    }
+
+    /**
+     * Get the number of dead ends with pegs pegs: no jump, and more than one peg.
+     * @param int pegs
+     * @return long the number of positions
+     */
+    public long getDeadEnds( int pegs ) {
+        return deadEnds[pegs];
+    }
+
+    /**
+     * Get the largest number of pegs (the start's).
+     * @return int the number of pegs
+     */
+    public int getMaxPegs() {
+        return positions.length - 1;
+    }
+
+    /**
+     * Get the number of reachable positions with pegs pegs.
+     * @param int pegs
+     * @return long the number of positions
+     */
+    public long getPositions( int pegs ) {
+        return positions[pegs];
+    }
+
+    /**
+     * Get the number of reachable positions.
+     * @return long the number of positions
+     */
+    public long getTotalPositions() {
+        long total = 0L;
+
+        for( long n : positions )
+            total += n;
+
+        return total;
+    }
+
+    /**
+     * Get the number of positions with pegs pegs that can still be won.
+     * @param int pegs
+     * @return long the number of positions
+     */
+    public long getWinnable( int pegs ) {
+        return winnable[pegs];
+    }
+
+    /**
+     * Get the number of positions with pegs pegs that can still be won
+     * with the last peg in the center.
+     * @param int pegs
+     * @return long the number of positions
+     */
+    public long getWinnableIdeal( int pegs ) {
+        return winnableIdeal[pegs];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+
+        s.append( String.format("%s: %d positions in %.1f s%n", description, this.getTotalPositions(),
+                                elapsedNanos / 1e9) );
+        s.append( String.format("%5s %14s %14s %14s %14s%n", "pegs", "positions", "dead ends", "winnable", "ideal") );
+        for( int pegs = positions.length - 1; pegs >= 1; pegs-- ) {
+            if ( positions[pegs] != 0L )
+                s.append( String.format("%5d %14d %14d %14d %14d%n", pegs, positions[pegs], deadEnds[pegs],
+                                        winnable[pegs], winnableIdeal[pegs]) );
+        }
+
+        return s.toString();
+    }
+}
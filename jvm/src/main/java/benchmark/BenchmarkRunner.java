@@ -0,0 +1,25 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar: runs the JMH suite (accepting the usual
+ * JMH command line) with the gc profiler always attached, so allocation
+ * rates are reported next to the timings.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+
+    public static void main( String[] args ) throws Exception {
+        CommandLineOptions options = new CommandLineOptions( args );
+
+        new Runner( new OptionsBuilder().parent(options)
+                                        .addProfiler(GCProfiler.class)
+                                        .build() ).run();
+    }
+}
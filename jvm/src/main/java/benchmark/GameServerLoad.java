@@ -0,0 +1,163 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.BoardGeometry;
+import server.GameServer;
+
+/**
+ * Load client of a GameServer: plays random games on many connections at
+ * once and reports the latency of a move, from its first request to its
+ * last answer (a jump to a peg with several jumps takes two requests).
+ *
+ * <pre>
+ * java -cp target/classes benchmark.GameServerLoad PORT [CONNECTIONS] [MOVES] [IDLE]
+ * </pre>
+ *
+ * CONNECTIONS players (default 64) each play MOVES moves (default 10000)
+ * on the English board, starting a new game whenever one ends; IDLE more
+ * connections (default 0) are opened first and left idle for the run.
+ * The server must be on this host (see SolitaireCheckersCli serve).
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class GameServerLoad {
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.ENGLISH;
+
+    public static void main( String[] args ) throws Exception {
+        int                  port      = Integer.parseInt( args[0] );
+        int                  players   = (args.length > 1) ? Integer.parseInt( args[1] ) : 64;
+        int                  moves     = (args.length > 2) ? Integer.parseInt( args[2] ) : 10000;
+        int                  idle      = (args.length > 3) ? Integer.parseInt( args[3] ) : 0;
+        ExecutorService      threads   = GameServer.virtualThreadPerTaskExecutor();
+        List<Socket>         idlers    = new ArrayList<Socket>();
+        List<Future<long[]>> parts     = new ArrayList<Future<long[]>>();
+        long[]               latencies = new long[0];
+        long                 begin;
+        long                 elapsed;
+
+        if ( threads == null )
+            threads = Executors.newCachedThreadPool();
+
+        for( int i = 0; i < idle; i++ )
+            idlers.add( new Socket(InetAddress.getLoopbackAddress(), port) );
+
+        begin = System.nanoTime();
+        for( int i = 0; i < players; i++ ) {
+            long seed = 0x9E3779B97F4A7C15L * (i + 1);
+            parts.add( threads.submit(() -> play(port, moves, seed)) );
+        }
+        try {
+            for( Future<long[]> part : parts ) {
+                long[] played = part.get();
+                int    from   = latencies.length;
+                latencies = Arrays.copyOf( latencies, from + played.length );
+                System.arraycopy( played, 0, latencies, from, played.length );
+            }
+        } catch( ExecutionException e ) {
+            throw new IllegalStateException( "a player failed", e.getCause() );
+        }
+        elapsed = System.nanoTime() - begin;
+        threads.shutdown();
+        for( Socket idler : idlers )
+            idler.close();
+
+        Arrays.sort( latencies );
+        System.out.printf( "%d players (%d idle connections), %d moves in %.2f s: %.0f moves/s%n",
+                           players, idle, latencies.length, elapsed / 1e9, latencies.length * 1e9 / elapsed );
+        System.out.printf( "move latency: p50 %.1f us, p99 %.1f us, max %.1f us%n",
+                           percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3,
+                           latencies[latencies.length - 1] / 1e3 );
+    }
+
+    /**
+     * Play random moves on one connection.
+     * @param int the server's port
+     * @param int number of moves
+     * @param long seed of the moves
+     * @return long[] the latency of every move, in nanoseconds
+     */
+    private static long[] play( int port, int count, long seed ) {
+        SplittableRandom random    = new SplittableRandom( seed );
+        long[]           latencies = new long[count];
+        int[]            moves     = new int[BoardGeometry.MAX_MOVES];
+
+        try ( Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+              BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                                                                           StandardCharsets.US_ASCII));
+              Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII) ) {
+            String[] answer;
+
+            socket.setTcpNoDelay( true );
+            answer = request( in, out, "reset" );
+            for( int played = 0; played < count; ) {
+                long board = Long.parseUnsignedLong( answer[1], 16 );
+                int  n     = GEOMETRY.generateMoves( board, moves );
+                int  move;
+                long start;
+
+                if ( n == 0 ) {
+                    answer = request( in, out, "reset" );
+                    continue;
+                }
+                move   = moves[random.nextInt(n)];
+                start  = System.nanoTime();
+                answer = request( in, out, "jump " + cellOf(GEOMETRY.moveFrom(move)) );
+                if ( answer[0].equals("SELECTED") )
+                    answer = request( in, out, "move " + cellOf(GEOMETRY.moveTo(move)) );
+                latencies[played++] = System.nanoTime() - start;
+                if ( !answer[0].equals("PLAYED") )
+                    throw new IllegalStateException( "the server did not play " + move + ": " + String.join(" ", answer) );
+            }
+            request( in, out, "board" );
+        } catch( IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+
+        return latencies;
+    }
+
+    /**
+     * Send a request and read its answer.
+     * @return String[] the words of the answer
+     * @throws IOException if the connection fails or the server answers ERROR
+     */
+    private static String[] request( BufferedReader in, Writer out, String request ) throws IOException {
+        String answer;
+
+        out.write( request );
+        out.write( '\n' );
+        out.flush();
+        answer = in.readLine();
+        if ( (answer == null) || answer.startsWith("ERROR") )
+            throw new IOException( "the server answered " + request + " with " + answer );
+
+        return answer.split( " " );
+    }
+
+    private static String cellOf( int bit ) {
+        return (GEOMETRY.rowOf( bit ) + 1) + " " + (GEOMETRY.columnOf( bit ) + 1);
+    }
+
+    private static double percentile( long[] sorted, double fraction ) {
+        return sorted[(int) Math.min( sorted.length - 1, (long) Math.ceil(fraction * sorted.length) - 1 )];
+    }
+}
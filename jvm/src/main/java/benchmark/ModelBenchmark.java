@@ -0,0 +1,182 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.BoardGeometry;
+import model.SolitaireCheckersConfigurations;
+import model.SolitaireCheckersModel;
+
+/**
+ * Hot paths of SolitaireCheckersModel, for every configuration.
+ *
+ * Every configuration is first played (seeded, at random) to a position
+ * where one peg has a single jump and another has a choice of jumps.
+ * Mutating benchmarks then return to that position: jumpPegAt and
+ * moveLastPegTo are measured together with undo, and setConfiguration
+ * and reset together with playMoves of the opening.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    private static final long SEED = 0x5DEECE66DL;
+
+    /* No values: JMH runs every constant, so a new configuration is benchmarked too. */
+    @Param
+    private SolitaireCheckersConfigurations configuration;
+
+    private SolitaireCheckersModel model;
+    private byte[]                 opening;
+    private int                    pegs;
+    private int                    singleRow;
+    private int                    singleColumn;
+    private int                    multipleRow;
+    private int                    multipleColumn;
+    private int                    targetRow;
+    private int                    targetColumn;
+
+    /**
+     * Find, by seeded random play, a position where one peg has a single
+     * jump and another peg has multiple jumps.
+     * @throws IllegalStateException if no such position is found in 1000 games
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        long  random = SEED;
+        int[] moves  = new int[SolitaireCheckersModel.MAX_MOVES];
+        int   count;
+
+        model = new SolitaireCheckersModel( configuration );
+        for( int attempt = 0; (attempt < 1000) && (this.findPegs() == false); attempt++ ) {
+            model.reset();
+            while( (this.findPegs() == false) && ((count = model.generateMoves(moves)) > 0) ) {
+                random = next( random );
+                model.playMoves( new byte[] { (byte) moves[(int) ((random >>> 1) % count)] } );
+            }
+        }
+        if ( this.findPegs() == false )
+            throw new IllegalStateException( configuration + ": no position with a single and a multiple jump in 1000 games" );
+
+        opening = model.getMoves();
+        pegs    = model.getNumberOfPegs();
+    }
+
+    @Setup(Level.Iteration)
+    public void restore() {
+        model.reset();
+        model.playMoves( opening );
+    }
+
+    @Benchmark
+    public int jumpPegAt() {
+        model.jumpPegAt( singleRow, singleColumn );
+        this.takeBack();
+        return model.getNumberOfPegs();
+    }
+
+    @Benchmark
+    public int moveLastPegTo() {
+        model.jumpPegAt( multipleRow, multipleColumn );
+        model.moveLastPegTo( targetRow, targetColumn );
+        this.takeBack();
+        return model.getNumberOfPegs();
+    }
+
+    @Benchmark
+    public boolean isLost() {
+        return model.isLost();
+    }
+
+    @Benchmark
+    public int getNumberOfPegs() {
+        return model.getNumberOfPegs();
+    }
+
+    @Benchmark
+    public int setConfiguration() {
+        model.setConfiguration( configuration );
+        model.playMoves( opening );
+        return model.getNumberOfPegs();
+    }
+
+    @Benchmark
+    public int reset() {
+        model.reset();
+        model.playMoves( opening );
+        return model.getNumberOfPegs();
+    }
+
+    /**
+     * Undo the benchmarked move, if one was played.
+     */
+    private void takeBack() {
+        if ( model.getNumberOfPegs() < pegs )
+            model.undo();
+    }
+
+    /**
+     * Remember a peg with exactly one jump and a peg with several.
+     * @return boolean true if both exist on the current board
+     */
+    private boolean findPegs() {
+        boolean       single   = false;
+        boolean       multiple = false;
+        BoardGeometry geometry = model.getGeometry();
+
+        singleRow   = -1;
+        multipleRow = -1;
+
+        for( int row = 0; row < model.rows(); row++ ) {
+            for( int column = 0; column < model.columnsAt(row); column++ ) {
+                int bit = geometry.bit( row, column );
+                int directions = 0;
+                for( int direction = 0; direction < geometry.getDirections(); direction++ ) {
+                    if ( (model.getJumpers(direction) & (1L << bit)) != 0L )
+                        directions |= 1 << direction;
+                }
+                if ( Integer.bitCount(directions) == 1 ) {
+                    single       = true;
+                    singleRow    = row;
+                    singleColumn = column;
+                } else if ( Integer.bitCount(directions) > 1 ) {
+                    int to = geometry.moveTo( geometry.moveCode(bit, Integer.numberOfTrailingZeros(directions)) );
+                    multiple       = true;
+                    multipleRow    = row;
+                    multipleColumn = column;
+                    targetRow      = geometry.rowOf( to );
+                    targetColumn   = geometry.columnOf( to );
+                }
+            }
+        }
+
+        return single && multiple;
+    }
+
+    /* xorshift64 */
+    static long next( long x ) {
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        return x;
+    }
+}
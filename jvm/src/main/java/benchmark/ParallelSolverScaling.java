@@ -0,0 +1,87 @@
+package benchmark;
+
+import java.util.Arrays;
+
+import analysis.ParallelSolver;
+import model.BoardGeometry;
+import model.SolitaireCheckersConfigurations;
+import model.SolitaireCheckersSolution;
+import model.SolitaireCheckersSolver;
+
+/**
+ * Scaling of ParallelSolver: solves the harder English starts with the
+ * sequential SolitaireCheckersSolver, then with ParallelSolver on 1, 2,
+ * 4, ... worker threads, and reports the median time of each and its
+ * speedup over the sequential solver.
+ *
+ * <pre>
+ * java -cp target/classes benchmark.ParallelSolverScaling [THREADS] [ROUNDS]
+ * </pre>
+ *
+ * THREADS is the most workers tried (default: the number of cores) and
+ * ROUNDS the number of timed solves of each (default 9, after as many
+ * warm-up solves). Nodes are reported as well, so work duplicated by the
+ * workers shows apart from the speedup: the solvers stop at the first
+ * winning line, and more workers may find one sooner or later.
+ *
+ * So far it has only been run on a single core, where ParallelSolver
+ * is slower than the sequential solver at every worker count (see
+ * ParallelSolver for the figures).
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class ParallelSolverScaling {
+
+    private static final SolitaireCheckersConfigurations[] STARTS = {
+        SolitaireCheckersConfigurations.Solitaire, SolitaireCheckersConfigurations.Diamond,
+        SolitaireCheckersConfigurations.DoubleArrow, SolitaireCheckersConfigurations.Pyramid };
+
+    public static void main( String[] args ) {
+        int threads = (args.length > 0) ? Integer.parseInt( args[0] ) : Runtime.getRuntime().availableProcessors();
+        int rounds  = (args.length > 1) ? Integer.parseInt( args[1] ) : 9;
+
+        System.out.printf( "%d cores, up to %d workers, median of %d solves%n",
+                           Runtime.getRuntime().availableProcessors(), threads, rounds );
+        for( SolitaireCheckersConfigurations start : STARTS ) {
+            SolitaireCheckersSolver sequential = new SolitaireCheckersSolver();
+            long[]                  nodes      = new long[1];
+            double                  base       = median( rounds, () -> nodes[0] = sequential.solve(start).getNodes() );
+
+            System.out.printf( "%-12s sequential  %8.2f ms %10d nodes%n", start, base / 1e6, nodes[0] );
+            for( int workers = 1; workers <= threads; workers *= 2 ) {
+                ParallelSolver parallel = new ParallelSolver( BoardGeometry.ENGLISH, workers );
+                double         time     = median( rounds, () -> {
+                    SolitaireCheckersSolution solution = parallel.solve( start );
+                    if ( !solution.isWinnable() )
+                        throw new IllegalStateException( start + " was not solved" );
+                    nodes[0] = solution.getNodes();
+                } );
+                parallel.shutdown();
+                System.out.printf( "%-12s %2d workers  %8.2f ms %10d nodes  speedup %.2f%n",
+                                   start, workers, time / 1e6, nodes[0], base / time );
+            }
+        }
+    }
+
+    /**
+     * Time a solve.
+     * @param int number of timed runs, after as many warm-up runs
+     * @param Runnable the solve
+     * @return double the median time, in nanoseconds
+     */
+    private static double median( int rounds, Runnable solve ) {
+        long[] times = new long[rounds];
+
+        for( int i = 0; i < rounds; i++ )
+            solve.run();
+        for( int i = 0; i < rounds; i++ ) {
+            long start = System.nanoTime();
+            solve.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort( times );
+
+        return times[rounds / 2];
+    }
+}
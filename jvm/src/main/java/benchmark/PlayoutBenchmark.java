@@ -0,0 +1,90 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.BoardGeometry;
+import model.SolitaireCheckersConfigurations;
+import model.SolitaireCheckersModel;
+
+/**
+ * Throughput of complete random games, from reset to the last jump.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayoutBenchmark {
+
+    @Param({ "Solitaire", "Arrow", "Cross", "Diamond", "DoubleArrow", "Fireplace", "Plus", "Pyramid" })
+    private SolitaireCheckersConfigurations configuration;
+
+    private SolitaireCheckersModel model;
+    private int[]                  moves;
+    private long                   random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model  = new SolitaireCheckersModel( configuration );
+        moves  = new int[SolitaireCheckersModel.MAX_MOVES];
+        random = 0x2545F4914F6CDD1DL;
+    }
+
+    /**
+     * Play a random game through the move generation API.
+     * @return int the number of pegs left
+     */
+    @Benchmark
+    public int randomPlayout() {
+        int count;
+
+        model.reset();
+        while( (count = model.generateMoves(moves)) > 0 ) {
+            random = ModelBenchmark.next( random );
+            model.applyMove( moves[(int) ((random >>> 1) % count)] );
+        }
+
+        return model.getNumberOfPegs();
+    }
+
+    /**
+     * Play a random game as the user interface does: one jumpPegAt per
+     * move, and moveLastPegTo when the peg has a choice of jumps.
+     * @return int the number of pegs left
+     */
+    @Benchmark
+    public int randomPlayoutByTaps() {
+        BoardGeometry geometry = model.getGeometry();
+        int           count;
+
+        model.reset();
+        while( (count = model.generateMoves(moves)) > 0 ) {
+            random = ModelBenchmark.next( random );
+            int move = moves[(int) ((random >>> 1) % count)];
+            int from = geometry.moveFrom( move );
+            int to   = geometry.moveTo( move );
+            model.jumpPegAt( geometry.rowOf(from), geometry.columnOf(from) );
+            if ( model.hasMultipleJumps() )
+                model.moveLastPegTo( geometry.rowOf(to), geometry.columnOf(to) );
+        }
+
+        return model.getNumberOfPegs();
+    }
+}
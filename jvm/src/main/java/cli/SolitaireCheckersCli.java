@@ -0,0 +1,564 @@
+package cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import analysis.EndgameDatabaseBuilder;
+import analysis.GameReplayer;
+import analysis.MonteCarloSimulator;
+import analysis.StateSpaceEnumerator;
+import model.BoardGeometry;
+import model.EndgameDatabase;
+import model.GameRecordReader;
+import model.ModelMetrics;
+import model.SolitaireCheckersConfigurations;
+import model.SolitaireCheckersModel;
+import model.SolitaireCheckersSolution;
+import model.SolitaireCheckersSolver;
+import model.SolitaireCheckersTemplate;
+import server.GameServer;
+import server.SessionManager;
+
+/**
+ * Headless command line runner of the model: play, solve, simulate,
+ * replay and enumerate games without the Android app.
+ *
+ * <pre>
+ * java -cp target/classes cli.SolitaireCheckersCli COMMAND [ARGUMENTS] [OPTIONS]
+ * </pre>
+ *
+ * Commands are dispatched by name and every class is linked statically (no
+ * reflection, no service lookup), so a run loads only the classes of its
+ * command and suits a class-data-sharing archive. Dump one once per build,
+ * then start from it:
+ *
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=cli.jsa -cp target/classes cli.SolitaireCheckersCli solve all
+ * java -XX:SharedArchiveFile=cli.jsa -cp target/classes cli.SolitaireCheckersCli solve Diamond
+ * </pre>
+ *
+ * Exits with 0 on success, 1 when the command fails and 2 on a usage error.
+ * Run with -Dsolitairecheckers.metrics=true, a command ends by printing the
+ * model's metrics (see ModelMetrics) to standard error.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public final class SolitaireCheckersCli {
+
+    public static final int OK      = 0;
+    public static final int FAILURE = 1;
+    public static final int USAGE   = 2;
+
+    private static final String HELP =
+        "usage: SolitaireCheckersCli COMMAND [ARGUMENTS] [OPTIONS]\n"
+      + "  play     [--configuration C] [--endgames FILE]   play on stdin: ROW COLUMN taps a hole,\n"
+      + "                                                  or undo, redo, hint, reset, quit\n"
+      + "  solve    [C... | all] [--limit NODES]             solve starting positions, giving up\n"
+      + "                                                  after NODES (default 10000000)\n"
+      + "  simulate [C] [GAMES] [--seed N] [--threads N]     play random games\n"
+      + "  replay   FILE|- [--configuration C] [--taps] [--threads N]\n"
+      + "                                                  replay framed games (see GameReplayer)\n"
+      + "  replay   --records FILE [--threads N]             replay a game record file\n"
+      + "  endgames FILE MAX_PEGS                            build an endgame database\n"
+      + "  enumerate [C] [--fold] [--spill DIR] [--threads N]\n"
+      + "                                                  count the reachable positions\n"
+      + "  serve    [--port N] [--capacity N] [--idle SECONDS]\n"
+      + "                                                  serve games on localhost (see GameServer)\n"
+      + "rows and columns are numbered from 1, as in the game's status;\n"
+      + "every command takes --board English|European|Triangular (default English);\n"
+      + "configurations (C) are for the English board: ";
+
+    /* Options that take no value. */
+    private static final String[] FLAGS = { "--fold", "--records", "--taps" };
+
+    /* Positions solve searches before answering unknown: the dead table stays well under 1 GB. */
+    private static final long DEFAULT_NODE_LIMIT = 10000000L;
+
+    private static final BoardGeometry[] GEOMETRIES = {
+        BoardGeometry.ENGLISH, BoardGeometry.EUROPEAN, BoardGeometry.TRIANGULAR_15
+    };
+
+    private final List<String>        arguments;
+    private final Map<String, String> options;
+    private final InputStream         in;
+    private final PrintStream         out;
+
+
+    /**
+     * Creates a runner of one command line.
+     * @param String[] the arguments following the command
+     * @param InputStream standard input
+     * @param PrintStream standard output
+     * @throws IllegalArgumentException if an option is missing its value
+     */
+    private SolitaireCheckersCli( String[] args, InputStream in, PrintStream out ) {
+        this.arguments = new ArrayList<String>();
+        this.options   = new HashMap<String, String>();
+        this.in        = in;
+        this.out       = out;
+
+        for( int i = 1; i < args.length; i++ ) {
+            if ( !args[i].startsWith("--") )
+                arguments.add( args[i] );
+            else if ( isFlag(args[i]) )
+                options.put( args[i], "" );
+            else if ( i + 1 < args.length )
+                options.put( args[i], args[++i] );
+            else
+                throw new IllegalArgumentException( args[i] + " needs a value" );
+        }
+    }
+
+    public static void main( String[] args ) {
+        int status = run( args, System.in, System.out, System.err );
+
+        if ( status != OK )
+            System.exit( status );
+    }
+
+    /**
+     * Run one command line.
+     * @param String[] the command and its arguments
+     * @param InputStream standard input
+     * @param PrintStream standard output
+     * @param PrintStream standard error
+     * @return int the exit status: OK, FAILURE or USAGE
+     */
+    public static int run( String[] args, InputStream in, PrintStream out, PrintStream err ) {
+        if ( args.length == 0 || args[0].equals("help") || args[0].equals("--help") ) {
+            err.println( usage() );
+            return (args.length == 0) ? USAGE : OK;
+        }
+
+        try {
+            SolitaireCheckersCli cli = new SolitaireCheckersCli( args, in, out );
+            int                  status;
+
+            switch( args[0] ) {
+                case "play":      status = cli.play();      break;
+                case "solve":     status = cli.solve();     break;
+                case "simulate":  status = cli.simulate();  break;
+                case "replay":    status = cli.replay();    break;
+                case "endgames":  status = cli.endgames();  break;
+                case "enumerate": status = cli.enumerate(); break;
+                case "serve":     status = cli.serve();     break;
+                default:
+                    throw new IllegalArgumentException( "unknown command " + args[0] );
+            }
+            if ( ModelMetrics.ENABLED )
+                err.print( ModelMetrics.export() );
+
+            return status;
+        } catch( IllegalArgumentException e ) {
+            err.println( e.getMessage() );
+            err.println( usage() );
+            return USAGE;
+        } catch( IOException | UncheckedIOException | IllegalStateException e ) {
+            err.println( args[0] + " failed: " + e.getMessage() );
+            return FAILURE;
+        }
+    }
+
+    /**
+     * Play a game read from standard input, printing the board after every command.
+     * @return int the exit status
+     * @throws IOException if the input or the endgame database cannot be read
+     */
+    private int play() throws IOException {
+        SolitaireCheckersModel model  = new SolitaireCheckersModel( this.start(false) );
+        BufferedReader         reader = new BufferedReader( new InputStreamReader(in) );
+        String                 line;
+
+        if ( options.containsKey("--endgames") )
+            model.setEndgameDatabase( EndgameDatabase.open(new File(options.get("--endgames")), model.getGeometry()) );
+
+        this.print( model );
+        out.print( "> " );
+        out.flush();
+        while( (line = reader.readLine()) != null ) {
+            String[] words = line.trim().split( "\\s+" );
+
+            switch( words[0] ) {
+                case "":
+                    break;
+                case "quit":
+                case "exit":
+                    return OK;
+                case "undo":
+                    model.undo();
+                    break;
+                case "redo":
+                    model.redo();
+                    break;
+                case "reset":
+                    model.reset();
+                    break;
+                case "hint":
+                    out.println( model.getHint() );
+                    break;
+                default:
+                    this.tap( model, words );
+            }
+            if ( !words[0].equals("hint") && !words[0].isEmpty() )
+                this.print( model );
+            out.print( "> " );
+            out.flush();
+        }
+
+        return OK;
+    }
+
+    /**
+     * Tap a cell as MainActivity does: a peg jumps, a hole takes the last peg tapped.
+     * @param SolitaireCheckersModel the game
+     * @param String[] the row and column
+     */
+    private void tap( SolitaireCheckersModel model, String[] words ) {
+        int row;
+        int column;
+
+        try {
+            row    = Integer.parseInt( words[0] ) - 1;
+            column = (words.length == 2) ? Integer.parseInt( words[1] ) - 1 : -1;
+        } catch( NumberFormatException e ) {
+            row    = -1;
+            column = -1;
+        }
+        if ( (row < 0) || (row >= model.rows()) || (column < 0) || (column >= model.columnsAt(row)) ) {
+            out.println( "enter ROW COLUMN (from 1), undo, redo, hint, reset or quit" );
+            return;
+        }
+
+        if ( model.isPegAt(row, column) )
+            model.jumpPegAt( row, column );
+        else
+            model.moveLastPegTo( row, column );
+    }
+
+    /**
+     * Print a game's board, one 'o' per peg and one '.' per hole, and its status.
+     * @param SolitaireCheckersModel the game
+     */
+    private void print( SolitaireCheckersModel model ) {
+        BoardGeometry geometry = model.getGeometry();
+        long          board    = model.getBitboard();
+        StringBuilder s        = new StringBuilder();
+
+        for( int row = 0; row < geometry.getRows(); row++ ) {
+            for( int column = 0; column < BoardGeometry.MAX_COLUMNS; column++ ) {
+                long cell = 1L << (row * BoardGeometry.STRIDE + column);
+                if ( (geometry.getValid() & cell) == 0L )
+                    s.append( "  " );
+                else
+                    s.append( ((board & cell) != 0L) ? " o" : " ." );
+            }
+            s.append( '\n' );
+        }
+        s.append( model.getStatus() );
+        if ( model.isWonIdeal() )
+            s.append( " - won ideally!" );
+        else if ( model.isWon() )
+            s.append( " - won!" );
+        else if ( model.isLost() )
+            s.append( " - lost" );
+        out.println( s );
+    }
+
+    /**
+     * Solve the starting positions named, every configuration for "all",
+     * or the board's standard start.
+     * @return int the exit status
+     */
+    private int solve() {
+        BoardGeometry                   geometry = this.geometry();
+        SolitaireCheckersSolver         solver   = new SolitaireCheckersSolver( geometry );
+        List<SolitaireCheckersTemplate> starts   = new ArrayList<SolitaireCheckersTemplate>();
+
+        solver.setNodeLimit( this.number("--limit", DEFAULT_NODE_LIMIT) );
+
+        if ( arguments.isEmpty() )
+            starts.add( this.start(false) );
+        else if ( arguments.size() == 1 && arguments.get(0).equals("all") ) {
+            this.requireEnglish( geometry );
+            for( SolitaireCheckersConfigurations configuration : SolitaireCheckersConfigurations.values() )
+                starts.add( SolitaireCheckersTemplate.of(configuration) );
+        } else {
+            this.requireEnglish( geometry );
+            for( String name : arguments )
+                starts.add( SolitaireCheckersTemplate.of(configuration(name)) );
+        }
+
+        for( SolitaireCheckersTemplate start : starts ) {
+            long                      begin    = System.nanoTime();
+            SolitaireCheckersSolution solution = solver.solve( start.getBoard() );
+            StringBuilder             line     = new StringBuilder();
+
+            for( int move : solution.getMoves() ) {
+                int from = geometry.moveFrom( move );
+                int to   = geometry.moveTo( move );
+                line.append( String.format(" %d,%d-%d,%d", geometry.rowOf(from) + 1, geometry.columnOf(from) + 1,
+                                           geometry.rowOf(to) + 1, geometry.columnOf(to) + 1) );
+            }
+            out.printf( "%s: %s (%d ms)%n", start.getDescription(), solution,
+                        (System.nanoTime() - begin) / 1000000L );
+            if ( line.length() > 0 )
+                out.println( "  " + line.toString().trim() );
+        }
+
+        return OK;
+    }
+
+    /**
+     * Play random games from a configuration, or the board's standard
+     * start when the first argument is the number of games.
+     * @return int the exit status
+     */
+    private int simulate() {
+        boolean                   named = !arguments.isEmpty() && !arguments.get( 0 ).matches( "[0-9_]+" );
+        SolitaireCheckersTemplate start = this.start( named );
+        int                       at    = named ? 1 : 0;
+        long                      games = (arguments.size() > at) ? this.number( arguments.get(at), "GAMES" ) : 1000000L;
+        MonteCarloSimulator       simulator;
+
+        simulator = new MonteCarloSimulator( start.getGeometry(), this.threads() );
+        try {
+            out.println( simulator.simulate(start.getBoard(), games, this.number("--seed", System.nanoTime()),
+                                            MonteCarloSimulator.RANDOM) );
+        } finally {
+            simulator.shutdown();
+        }
+
+        return OK;
+    }
+
+    /**
+     * Replay a file of framed games, standard input for "-", or a game record file.
+     * @return int the exit status
+     * @throws IOException if the games cannot be read
+     */
+    private int replay() throws IOException {
+        GameReplayer replayer;
+        File         file;
+
+        if ( arguments.size() != 1 )
+            throw new IllegalArgumentException( "replay needs one file" );
+        file     = new File( arguments.get(0) );
+        replayer = new GameReplayer( this.start(false), this.threads() );
+
+        try {
+            if ( options.containsKey("--records") ) {
+                try ( GameRecordReader records = GameRecordReader.open(file, this.geometry()) ) {
+                    out.println( replayer.replay(records) );
+                }
+            } else {
+                GameReplayer.Encoding encoding = options.containsKey( "--taps" ) ? GameReplayer.Encoding.TAPS
+                                                                                 : GameReplayer.Encoding.MOVES;
+                InputStream games = arguments.get( 0 ).equals( "-" ) ? in : new FileInputStream( file );
+                try {
+                    out.println( replayer.replay(new BufferedInputStream(games, 1 << 16), encoding) );
+                } finally {
+                    if ( games != in )
+                        games.close();
+                }
+            }
+        } finally {
+            replayer.shutdown();
+        }
+
+        return OK;
+    }
+
+    /**
+     * Build an endgame database.
+     * @return int the exit status
+     * @throws IOException if the database cannot be written
+     */
+    private int endgames() throws IOException {
+        long            begin = System.nanoTime();
+        EndgameDatabase database;
+
+        if ( arguments.size() != 2 )
+            throw new IllegalArgumentException( "endgames needs a file and a number of pegs" );
+
+        database = new EndgameDatabaseBuilder( this.geometry(), (int) this.number(arguments.get(1), "MAX_PEGS") )
+                       .build( new File(arguments.get(0)) );
+        out.printf( "%s: positions of up to %d pegs on the %s board (%d ms)%n", arguments.get(0),
+                    database.getMaxPegs(), this.geometry(), (System.nanoTime() - begin) / 1000000L );
+
+        return OK;
+    }
+
+    /**
+     * Count the positions reachable from a starting position.
+     * @return int the exit status
+     */
+    private int enumerate() {
+        SolitaireCheckersTemplate start      = this.start( true );
+        StateSpaceEnumerator      enumerator;
+
+        enumerator = new StateSpaceEnumerator( start.getGeometry(), options.containsKey("--fold"),
+                                               options.containsKey( "--spill" ) ? new File( options.get("--spill") ) : null,
+                                               this.threads() );
+        try {
+            out.print( enumerator.enumerate(start.getBoard(), start.getDescription()) );
+        } finally {
+            enumerator.shutdown();
+        }
+
+        return OK;
+    }
+
+    /**
+     * Serve games on a loopback port until the process is stopped.
+     * @return int the exit status
+     * @throws IOException if the port cannot be bound
+     */
+    private int serve() throws IOException {
+        SessionManager sessions = new SessionManager( this.geometry(), (int) this.number("--capacity", 100000L),
+                                                      (int) this.number("--idle", 300L) );
+        GameServer     server   = new GameServer( sessions, (int) this.number("--port", 7070L) );
+
+        server.start();
+        out.printf( "serving the %s board on port %d, %s threads%n", sessions.getGeometry(), server.getPort(),
+                    server.isVirtual() ? "virtual" : "platform" );
+
+        return OK;
+    }
+
+    /**
+     * Get the board of the --board option.
+     * @return BoardGeometry the board, English by default
+     * @throws IllegalArgumentException if there is no such board
+     */
+    private BoardGeometry geometry() {
+        String name = options.get( "--board" );
+
+        if ( name == null )
+            return BoardGeometry.ENGLISH;
+        for( BoardGeometry geometry : GEOMETRIES ) {
+            if ( geometry.getName().equalsIgnoreCase(name) )
+                return geometry;
+        }
+
+        throw new IllegalArgumentException( "unknown board " + name );
+    }
+
+    /**
+     * Get the start of the command: the configuration named by the
+     * --configuration option or, if named is true, by the first argument;
+     * otherwise, the board's standard start.
+     * @param boolean true if the first argument, if any, names the configuration
+     * @return SolitaireCheckersTemplate the start
+     * @throws IllegalArgumentException if there is no such configuration
+     */
+    private SolitaireCheckersTemplate start( boolean named ) {
+        BoardGeometry geometry = this.geometry();
+        String        name     = options.get( "--configuration" );
+
+        if ( (name == null) && named && !arguments.isEmpty() )
+            name = arguments.get( 0 );
+        if ( name == null )
+            return SolitaireCheckersTemplate.of( geometry );
+
+        this.requireEnglish( geometry );
+
+        return SolitaireCheckersTemplate.of( configuration(name) );
+    }
+
+    /**
+     * Reject a board other than the English board.
+     * @param BoardGeometry the board
+     * @throws IllegalArgumentException if it is not the English board
+     */
+    private void requireEnglish( BoardGeometry geometry ) {
+        if ( geometry != BoardGeometry.ENGLISH )
+            throw new IllegalArgumentException( "configurations are for the English board, not the "
+                                                + geometry + " board" );
+    }
+
+    /**
+     * Get the number of worker threads of the --threads option.
+     * @return int the number, every available core by default
+     */
+    private int threads() {
+        int threads = (int) this.number( "--threads", Runtime.getRuntime().availableProcessors() );
+
+        if ( threads < 1 )
+            throw new IllegalArgumentException( "--threads must be at least 1" );
+
+        return threads;
+    }
+
+    /**
+     * Get the value of a numeric option.
+     * @param String the option
+     * @param long its default
+     * @return long the value
+     * @throws IllegalArgumentException if the value is not a number
+     */
+    private long number( String option, long fallback ) {
+        String value = options.get( option );
+
+        return (value == null) ? fallback : this.number( value, option );
+    }
+
+    /**
+     * Parse a number.
+     * @param String the text
+     * @param String what the number is, for the error
+     * @return long the value
+     * @throws IllegalArgumentException if the text is not a number
+     */
+    private long number( String text, String what ) {
+        try {
+            return Long.parseLong( text.replace("_", "") );
+        } catch( NumberFormatException e ) {
+            throw new IllegalArgumentException( what + " is not a number: " + text );
+        }
+    }
+
+    /**
+     * Find a configuration by name, ignoring case.
+     * @param String the name
+     * @return SolitaireCheckersConfigurations the configuration
+     * @throws IllegalArgumentException if there is no such configuration
+     */
+    private static SolitaireCheckersConfigurations configuration( String name ) {
+        for( SolitaireCheckersConfigurations configuration : SolitaireCheckersConfigurations.values() ) {
+            if ( configuration.name().equalsIgnoreCase(name) )
+                return configuration;
+        }
+
+        throw new IllegalArgumentException( "unknown configuration " + name );
+    }
+
+    private static boolean isFlag( String option ) {
+        for( String flag : FLAGS ) {
+            if ( flag.equals(option) )
+                return true;
+        }
+
+        return false;
+    }
+
+    private static String usage() {
+        StringBuilder s = new StringBuilder( HELP );
+
+        for( SolitaireCheckersConfigurations configuration : SolitaireCheckersConfigurations.values() )
+            s.append( configuration.ordinal() == 0 ? "" : ", " ).append( configuration );
+
+        return s.toString();
+    }
+}
@@ -0,0 +1,327 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.BoardGeometry;
+import model.SolitaireCheckersConfigurations;
+
+/**
+ * Serves games over plain sockets on the loopback interface, one session
+ * of a SessionManager per connection.
+ *
+ * The protocol is a line per request and a line per answer:
+ * <pre>
+ * jump ROW COLUMN        as SolitaireCheckersModel.jumpPegAt
+ * move ROW COLUMN        as SolitaireCheckersModel.moveLastPegTo
+ * reset                  as SolitaireCheckersModel.reset
+ * configuration NAME     as SolitaireCheckersModel.setConfiguration
+ * board                  the board only
+ * quit                   close the connection
+ * </pre>
+ * Rows and columns are numbered from 1, as in the game's status and the
+ * command line (the model's are 0 based). Every request but quit
+ * is answered by "RESULT BOARD STATUS": what the request did (PLAYED,
+ * SELECTED, IGNORED or NONE), the bitboard in hexadecimal, and how the
+ * game stands (UNFINISHED, LOST, WON or WON_IDEAL). A request that cannot
+ * be understood is answered by "ERROR" and a reason. A connection whose
+ * session was evicted gets a new one, answered "ERROR session expired".
+ *
+ * Each connection is served by its own thread, a virtual thread where
+ * the runtime has them (Java 21 or later), so tens of thousands of idle
+ * players cost little more than their sockets. Virtual threads are found
+ * through a method handle, so the server builds on Java 17 and falls back
+ * to platform threads there. Interrupting a platform thread does not end
+ * a blocking read, so stop() closes every open connection's socket.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class GameServer {
+
+    private static final String[] RESULTS  = { "PLAYED", "SELECTED", "IGNORED" };
+    private static final String[] STATUSES = { "WON", "WON_IDEAL", "LOST", "UNFINISHED" };
+
+    private final SessionManager  sessions;
+    private final ServerSocket    socket;
+    private final ExecutorService connections;
+    private final Set<Socket>     clients;
+    private final boolean         virtual;
+    private final AtomicInteger   open;
+    private final Thread          acceptor;
+
+
+    /**
+     * Creates a server listening on a loopback port. Call start() to serve.
+     * @param SessionManager the sessions of the players
+     * @param int the port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public GameServer( SessionManager sessions, int port ) throws IOException {
+        this( sessions, port, virtualThreadPerTaskExecutor() );
+    }
+
+    /**
+     * Creates a server listening on a loopback port, serving connections
+     * with perTask, or on platform threads when perTask is null.
+     * @param SessionManager the sessions of the players
+     * @param int the port, or 0 for any free port
+     * @param ExecutorService a thread per task executor, or null
+     * @throws IOException if the port cannot be bound
+     */
+    GameServer( SessionManager sessions, int port, ExecutorService perTask ) throws IOException {
+        this.sessions    = sessions;
+        this.socket      = new ServerSocket();
+        this.virtual     = (perTask != null);
+        this.connections = virtual ? perTask : Executors.newCachedThreadPool( r -> {
+            Thread thread = new Thread( r, "game-connection" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        this.clients     = ConcurrentHashMap.newKeySet();
+        this.open        = new AtomicInteger();
+        this.acceptor    = new Thread( this::accept, "game-acceptor" );
+
+        socket.bind( new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024 );
+    }
+
+    /**
+     * Get the number of open connections.
+     * @return int the number of connections
+     */
+    public int getConnections() {
+        return open.get();
+    }
+
+    /**
+     * Get the port the server listens on.
+     * @return int the port
+     */
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Answer whether or not connections are served by virtual threads.
+     * @return boolean true on virtual threads; false on platform threads
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Start accepting connections.
+     */
+    public void start() {
+        acceptor.start();
+    }
+
+    /**
+     * Stop accepting connections and close the open ones.
+     * @throws IOException if the listening socket cannot be closed
+     */
+    public void stop() throws IOException {
+        socket.close();
+        connections.shutdownNow();
+        for( Socket client : clients )
+            closeQuietly( client );
+    }
+
+    /**
+     * Accept connections until the listening socket is closed.
+     */
+    private void accept() {
+        try {
+            while( true ) {
+                Socket connection = socket.accept();
+                connection.setTcpNoDelay( true );
+                clients.add( connection );
+                /* stop() may have closed the clients before this one was added */
+                if ( socket.isClosed() ) {
+                    closeQuietly( connection );
+                    break;
+                }
+                try {
+                    connections.execute( () -> this.serve(connection) );
+                } catch( RejectedExecutionException e ) {
+                    clients.remove( connection );
+                    closeQuietly( connection );
+                }
+            }
+        } catch( IOException e ) {
+            if ( !socket.isClosed() )
+                throw new IllegalStateException( "accepting connections failed", e );
+        }
+    }
+
+    /**
+     * Serve one connection until the player quits or disconnects.
+     * @param Socket the connection
+     */
+    private void serve( Socket connection ) {
+        long session = sessions.open();
+
+        open.incrementAndGet();
+        try ( connection;
+              BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                                                                           StandardCharsets.US_ASCII));
+              Writer out = new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.US_ASCII) ) {
+            String request;
+
+            if ( session == SessionManager.NO_SESSION ) {
+                out.write( "ERROR the server is full\n" );
+                return;
+            }
+            while( ((request = in.readLine()) != null) && !request.equals("quit") ) {
+                String answer = this.answer( session, request );
+                if ( answer == null ) {
+                    session = sessions.open();
+                    answer  = (session == SessionManager.NO_SESSION) ? "ERROR the server is full"
+                                                                     : "ERROR session expired";
+                }
+                out.write( answer );
+                out.write( '\n' );
+                out.flush();
+                if ( session == SessionManager.NO_SESSION )
+                    return;
+            }
+        } catch( IOException e ) {
+            // the player went away
+        } finally {
+            clients.remove( connection );
+            sessions.close( session );
+            open.decrementAndGet();
+        }
+    }
+
+    /**
+     * Close a socket, ignoring a failure: the player is gone either way.
+     * @param Socket the socket
+     */
+    private static void closeQuietly( Socket client ) {
+        try {
+            client.close();
+        } catch( IOException e ) {
+            // already closed, or the connection was reset
+        }
+    }
+
+    /**
+     * Answer a request.
+     * @param long the session
+     * @param String the request
+     * @return String the answer, or null if the session is no longer open
+     */
+    private String answer( long session, String request ) {
+        String[]      words    = request.trim().split( "\\s+" );
+        BoardGeometry geometry = sessions.getGeometry();
+        int           result;
+        long          board;
+
+        switch( words[0] ) {
+            case "jump":
+            case "move":
+                int cell = this.cellOf( geometry, words );
+                if ( cell == BoardGeometry.NO_HOLE )
+                    return "ERROR " + words[0] + " takes a row and a column on the board";
+                board = sessions.board( session );
+                if ( board == SessionManager.NO_BOARD )
+                    return null;
+                /* jumpPegAt ignores a hole, and moveLastPegTo a peg */
+                if ( ((board & (1L << cell)) != 0L) == words[0].equals("jump") )
+                    result = sessions.tap( session, cell );
+                else
+                    result = SessionManager.IGNORED;
+                break;
+            case "reset":
+                result = sessions.reset( session ) ? -1 : SessionManager.UNKNOWN_SESSION;
+                break;
+            case "configuration":
+                SolitaireCheckersConfigurations configuration = configurationOf( words );
+                if ( configuration == null || geometry != BoardGeometry.ENGLISH )
+                    return "ERROR configuration takes one of the English board's configurations";
+                result = sessions.setConfiguration( session, configuration ) ? -1 : SessionManager.UNKNOWN_SESSION;
+                break;
+            case "board":
+                result = -1;
+                break;
+            default:
+                return "ERROR unknown request " + words[0];
+        }
+        if ( result == SessionManager.UNKNOWN_SESSION )
+            return null;
+
+        board = sessions.board( session );
+        if ( board == SessionManager.NO_BOARD )
+            return null;
+
+        return ((result < 0) ? "NONE" : RESULTS[result]) + ' ' + Long.toHexString( board ) + ' '
+               + STATUSES[SessionManager.statusOf( geometry, board )];
+    }
+
+    /**
+     * Answer the cell named by a request's row and column, both from 1.
+     * @param BoardGeometry the board
+     * @param String[] the request
+     * @return int the cell's bit, or BoardGeometry.NO_HOLE
+     */
+    private int cellOf( BoardGeometry geometry, String[] words ) {
+        try {
+            int row    = Integer.parseInt( words[1] ) - 1;
+            int column = Integer.parseInt( words[2] ) - 1;
+            return (words.length == 3) && (row >= 0) && (row < geometry.getRows())
+                   && (column >= 0) && (column < geometry.widthOf(row)) ? geometry.bit( row, column )
+                                                                        : BoardGeometry.NO_HOLE;
+        } catch( NumberFormatException | ArrayIndexOutOfBoundsException e ) {
+            return BoardGeometry.NO_HOLE;
+        }
+    }
+
+    /**
+     * Find the configuration named by a request.
+     * @param String[] the request
+     * @return SolitaireCheckersConfigurations the configuration, or null
+     */
+    private static SolitaireCheckersConfigurations configurationOf( String[] words ) {
+        if ( words.length != 2 )
+            return null;
+        for( SolitaireCheckersConfigurations configuration : SolitaireCheckersConfigurations.values() ) {
+            if ( configuration.name().equalsIgnoreCase(words[1]) )
+                return configuration;
+        }
+
+        return null;
+    }
+
+    /**
+     * Create an executor starting a virtual thread per task, if the runtime has them.
+     * @return ExecutorService the executor, or null before Java 21
+     */
+    public static ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            MethodHandle factory = MethodHandles.publicLookup().findStatic(
+                Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class) );
+            return (ExecutorService) factory.invokeExact();
+        } catch( Throwable e ) {
+            // before Java 21, or a preview not enabled (Java 19 and 20)
+            return null;
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package server;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import analysis.ReplayResult;
+import model.BoardGeometry;
+import model.SolitaireCheckersConfigurations;
+import model.SolitaireCheckersTemplate;
+
+/**
+ * Holds the games of many players on one board, each game a session.
+ *
+ * A session is not a SolitaireCheckersModel (a model is a few kilobytes of
+ * tables, strings and observers, and is not thread-safe) but a slot in
+ * parallel arrays: its bitboard, its start, the last cell tapped, when it
+ * was last used, the slot's generation and its place in the list of free
+ * slots; BYTES_PER_SESSION bytes in all.
+ * A session id is the slot with its generation in the upper 32 bits, so
+ * the id of a closed or evicted session is never mistaken for the session
+ * that reuses its slot.
+ *
+ * Sessions are guarded by STRIPES locks, slot modulo STRIPES, rather than
+ * one lock: calls on different sessions run in parallel, and the calls on
+ * one session run one at a time, in the order they take its lock. Opening
+ * a session takes a fresh slot from an atomic counter, or a freed slot
+ * from a short critical section of its own.
+ *
+ * Sessions unused for the idle timeout are evicted by a background sweep.
+ * Moves follow the rules of GameReplayer: play() takes a move code, and
+ * tap() a tapped cell, as the app's taps.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class SessionManager {
+
+    public static final int  BYTES_PER_SESSION = 8 + 1 + 1 + 4 + 4 + 4;
+
+    public static final long NO_SESSION        = -1L;
+    public static final long NO_BOARD          = -1L;
+
+    /* What a call did. */
+    public static final int  PLAYED            = 0;
+    public static final int  SELECTED          = 1;   // a peg with several jumps was tapped
+    public static final int  IGNORED           = 2;   // nothing to play: an illegal move, or a tap that does nothing
+    public static final int  UNKNOWN_SESSION   = 3;
+
+    private static final int  STRIPES = 1024;
+    private static final byte NO_TAP  = (byte) BoardGeometry.NO_HOLE;
+
+    private final BoardGeometry            geometry;
+    private final long[]                   starts;
+    private final Object[]                 locks;
+    private final long[]                   boards;
+    private final byte[]                   configurations;
+    private final byte[]                   taps;
+    private final int[]                    lastUsed;
+    private final int[]                    generations;
+    private final int[]                    free;
+    private final AtomicInteger            fresh;
+    private final AtomicInteger            size;
+    private final int                      idleSeconds;
+    private final long                     epoch;
+    private final ScheduledExecutorService sweeper;
+    private int                            freeCount;
+
+
+    /**
+     * Creates a manager of up to capacity sessions, evicting the sessions
+     * unused for idleSeconds seconds.
+     * @param BoardGeometry the board of every game
+     * @param int largest number of open sessions
+     * @param int idle timeout in seconds, at least 1
+     */
+    public SessionManager( BoardGeometry geometry, int capacity, int idleSeconds ) {
+        long period = Math.max( idleSeconds * 1000L / 4, 250L );
+
+        if ( idleSeconds < 1 )
+            throw new IllegalArgumentException( "the idle timeout is at least 1 second: " + idleSeconds );
+
+        this.geometry       = geometry;
+        this.starts         = startsOf( geometry );
+        this.locks          = new Object[STRIPES];
+        this.boards         = new long[capacity];
+        this.configurations = new byte[capacity];
+        this.taps           = new byte[capacity];
+        this.lastUsed       = new int[capacity];
+        this.generations    = new int[capacity];
+        this.free           = new int[capacity];
+        this.fresh          = new AtomicInteger();
+        this.size           = new AtomicInteger();
+        this.idleSeconds    = idleSeconds;
+        this.epoch          = System.nanoTime();
+        for( int i = 0; i < STRIPES; i++ )
+            locks[i] = new Object();
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor( r -> {
+            Thread thread = new Thread( r, "session-sweeper" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        sweeper.scheduleWithFixedDelay( this::evictIdle, period, period, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Get the board of a session.
+     * @param long the session
+     * @return long the bitboard, or NO_BOARD if there is no such session
+     */
+    public long board( long session ) {
+        int slot = slotOf( session );
+
+        if ( slot < 0 )
+            return NO_BOARD;
+        synchronized( this.lockOf(slot) ) {
+            return this.isOpen( session, slot ) ? boards[slot] : NO_BOARD;
+        }
+    }
+
+    /**
+     * Close a session.
+     * @param long the session
+     * @return boolean true if the session was open; otherwise, false
+     */
+    public boolean close( long session ) {
+        int slot = slotOf( session );
+
+        if ( slot < 0 )
+            return false;
+        synchronized( this.lockOf(slot) ) {
+            if ( !this.isOpen(session, slot) )
+                return false;
+            this.release( slot );
+        }
+
+        return true;
+    }
+
+    /**
+     * Close every session unused for the idle timeout. Called by the
+     * background sweep; callers need not.
+     * @return int the number of sessions closed
+     */
+    public int evictIdle() {
+        int now     = this.now();
+        int limit   = Math.min( fresh.get(), boards.length );
+        int evicted = 0;
+
+        for( int slot = 0; slot < limit; slot++ ) {
+            /* A racy first look skips the busy sessions without locking them. */
+            if ( (boards[slot] == 0L) || (now - lastUsed[slot] < idleSeconds) )
+                continue;
+            synchronized( this.lockOf(slot) ) {
+                if ( (boards[slot] != 0L) && (now - lastUsed[slot] >= idleSeconds) ) {
+                    this.release( slot );
+                    evicted++;
+                }
+            }
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Get the board of the games.
+     * @return BoardGeometry the geometry
+     */
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Open a session at the board's standard start.
+     * @return long the session, or NO_SESSION when every slot is taken
+     */
+    public long open() {
+        return this.open( 0 );
+    }
+
+    /**
+     * Open a session at the start of a configuration.
+     * @param SolitaireCheckersConfigurations the configuration
+     * @return long the session, or NO_SESSION when every slot is taken
+     * @throws IllegalArgumentException if the board is not the English board
+     */
+    public long open( SolitaireCheckersConfigurations configuration ) {
+        if ( geometry != BoardGeometry.ENGLISH )
+            throw new IllegalArgumentException( "configurations are for the English board, not the " + geometry + " board" );
+
+        return this.open( configuration.ordinal() );
+    }
+
+    /**
+     * Play a move.
+     * @param long the session
+     * @param int the move code (see BoardGeometry)
+     * @return int PLAYED, IGNORED if the move is not legal, or UNKNOWN_SESSION
+     */
+    public int play( long session, int move ) {
+        int slot = slotOf( session );
+
+        if ( slot < 0 )
+            return UNKNOWN_SESSION;
+        synchronized( this.lockOf(slot) ) {
+            if ( !this.isOpen(session, slot) )
+                return UNKNOWN_SESSION;
+            lastUsed[slot] = this.now();
+            if ( (move < 0) || (move >= geometry.getMoves()) || !geometry.isLegal(boards[slot], move) )
+                return IGNORED;
+            boards[slot] = geometry.apply( boards[slot], move );
+        }
+
+        return PLAYED;
+    }
+
+    /**
+     * Start a session's game again.
+     * @param long the session
+     * @return boolean true if the session is open; otherwise, false
+     */
+    public boolean reset( long session ) {
+        int slot = slotOf( session );
+
+        if ( slot < 0 )
+            return false;
+        synchronized( this.lockOf(slot) ) {
+            if ( !this.isOpen(session, slot) )
+                return false;
+            lastUsed[slot] = this.now();
+            boards[slot]   = starts[configurations[slot]];
+            taps[slot]     = NO_TAP;
+        }
+
+        return true;
+    }
+
+    /**
+     * Start a session's game again, at the start of a configuration.
+     * @param long the session
+     * @param SolitaireCheckersConfigurations the configuration
+     * @return boolean true if the session is open; otherwise, false
+     * @throws IllegalArgumentException if the board is not the English board
+     */
+    public boolean setConfiguration( long session, SolitaireCheckersConfigurations configuration ) {
+        int slot = slotOf( session );
+
+        if ( geometry != BoardGeometry.ENGLISH )
+            throw new IllegalArgumentException( "configurations are for the English board, not the " + geometry + " board" );
+        if ( slot < 0 )
+            return false;
+        synchronized( this.lockOf(slot) ) {
+            if ( !this.isOpen(session, slot) )
+                return false;
+            lastUsed[slot]       = this.now();
+            configurations[slot] = (byte) configuration.ordinal();
+            boards[slot]         = starts[configurations[slot]];
+            taps[slot]           = NO_TAP;
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the number of open sessions.
+     * @return int the number of sessions
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Stop the background sweep. Sessions stay usable.
+     */
+    public void shutdown() {
+        sweeper.shutdown();
+    }
+
+    /**
+     * Get how a session's game stands.
+     * @param long the session
+     * @return int ReplayResult.WON, WON_IDEAL, LOST or UNFINISHED, or -1 if
+     * there is no such session
+     */
+    public int status( long session ) {
+        long board = this.board( session );
+
+        return (board == NO_BOARD) ? -1 : statusOf( geometry, board );
+    }
+
+    /**
+     * Answer how a game stands.
+     * @param BoardGeometry the board
+     * @param long the bitboard
+     * @return int ReplayResult.WON, WON_IDEAL, LOST or UNFINISHED
+     */
+    static int statusOf( BoardGeometry geometry, long board ) {
+        if ( Long.bitCount(board) == 1 )
+            return ((board & geometry.getCenter()) != 0L) ? ReplayResult.WON_IDEAL : ReplayResult.WON;
+        for( int direction = 0; direction < geometry.getDirections(); direction++ ) {
+            if ( geometry.jumpers(board, direction) != 0L )
+                return ReplayResult.UNFINISHED;
+        }
+
+        return ReplayResult.LOST;
+    }
+
+    /**
+     * Tap a cell, as the app does: a peg with one jump plays it, a peg
+     * with several is selected, and a hole takes the jump of the last
+     * peg tapped into it, if there is one.
+     * @param long the session
+     * @param int the cell's bit (row * 8 + grid column, see BoardGeometry)
+     * @return int PLAYED, SELECTED, IGNORED or UNKNOWN_SESSION
+     */
+    public int tap( long session, int cell ) {
+        int slot = slotOf( session );
+
+        if ( slot < 0 )
+            return UNKNOWN_SESSION;
+        synchronized( this.lockOf(slot) ) {
+            long board = boards[slot];
+            int  move  = -1;
+
+            if ( !this.isOpen(session, slot) )
+                return UNKNOWN_SESSION;
+            lastUsed[slot] = this.now();
+            if ( (cell < 0) || (cell >= Long.SIZE) || ((geometry.getValid() & (1L << cell)) == 0L) )
+                return IGNORED;
+
+            if ( (board & (1L << cell)) != 0L ) {
+                int jumps = 0;
+                taps[slot] = (byte) cell;
+                for( int direction = 0; direction < geometry.getDirections(); direction++ ) {
+                    if ( (geometry.jumpers(board, direction) & (1L << cell)) != 0L ) {
+                        move = geometry.moveCode( cell, direction );
+                        jumps++;
+                    }
+                }
+                if ( jumps > 1 )
+                    return SELECTED;
+            } else if ( taps[slot] != NO_TAP ) {
+                int direction = geometry.directionOf( taps[slot], cell );
+                if ( direction != BoardGeometry.NO_DIRECTION )
+                    move = geometry.moveCode( taps[slot], direction );
+            }
+
+            if ( (move < 0) || !geometry.isLegal(board, move) )
+                return IGNORED;
+            boards[slot] = geometry.apply( board, move );
+        }
+
+        return PLAYED;
+    }
+
+    /**
+     * Answer whether or not a session is open in its slot. The slot's lock is held.
+     * @param long the session
+     * @param int its slot
+     * @return boolean true if the session is open; otherwise, false
+     */
+    private boolean isOpen( long session, int slot ) {
+        return (boards[slot] != 0L) && (generations[slot] == (int) (session >>> 32));
+    }
+
+    private Object lockOf( int slot ) {
+        return locks[slot & (STRIPES - 1)];
+    }
+
+    /**
+     * Answer the time, in seconds since the manager was created.
+     * @return int the time
+     */
+    private int now() {
+        return (int) ((System.nanoTime() - epoch) / 1000000000L);
+    }
+
+    /**
+     * Open a session on a start.
+     * @param int index of the start in starts
+     * @return long the session, or NO_SESSION
+     */
+    private long open( int start ) {
+        int slot = fresh.getAndIncrement();
+
+        if ( slot >= boards.length ) {
+            fresh.set( boards.length );   // keep the counter from wrapping
+            synchronized( free ) {
+                if ( freeCount == 0 )
+                    return NO_SESSION;
+                slot = free[--freeCount];
+            }
+        }
+
+        synchronized( this.lockOf(slot) ) {
+            boards[slot]         = starts[start];
+            configurations[slot] = (byte) start;
+            taps[slot]           = NO_TAP;
+            lastUsed[slot]       = this.now();
+            size.incrementAndGet();
+
+            return ((long) generations[slot] << 32) | slot;
+        }
+    }
+
+    /**
+     * Free a slot. Its lock is held.
+     * @param int the slot
+     */
+    private void release( int slot ) {
+        boards[slot] = 0L;
+        generations[slot]++;
+        size.decrementAndGet();
+        synchronized( free ) {
+            free[freeCount++] = slot;
+        }
+    }
+
+    /**
+     * Answer the slot of a session id.
+     * @param long the session
+     * @return int the slot, or -1 if the id cannot be a session's
+     */
+    private int slotOf( long session ) {
+        int slot = (int) session;
+
+        return ((slot < 0) || (slot >= boards.length)) ? -1 : slot;
+    }
+
+    /**
+     * Answer the starting boards of a geometry: every configuration's on the
+     * English board, by ordinal; the standard start on any other.
+     * @param BoardGeometry the board
+     * @return long[] the boards
+     */
+    private static long[] startsOf( BoardGeometry geometry ) {
+        SolitaireCheckersConfigurations[] configurations = SolitaireCheckersConfigurations.values();
+        long[]                            starts;
+
+        if ( geometry != BoardGeometry.ENGLISH )
+            return new long[] { SolitaireCheckersTemplate.of(geometry).getBoard() };
+
+        starts = new long[configurations.length];
+        for( int i = 0; i < starts.length; i++ )
+            starts[i] = SolitaireCheckersTemplate.of( configurations[i] ).getBoard();
+
+        return starts;
+    }
+}
@@ -0,0 +1,134 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import model.BoardGeometry;
+import model.EndgameDatabase;
+import model.EndgameIndex;
+import model.SolitaireCheckersSolution;
+import model.SolitaireCheckersSolver;
+
+/**
+ * Tests of EndgameDatabaseBuilder: the verdict of every position it
+ * stores must be the solver's, and its best moves must keep them.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class EndgameDatabaseBuilderTest {
+
+    @TempDir
+    File directory;
+
+    /**
+     * Every position of the triangular board with up to 7 pegs.
+     */
+    @Test
+    public void everyTriangularPositionMatchesTheSolver() throws IOException {
+        BoardGeometry           geometry = BoardGeometry.TRIANGULAR_15;
+        EndgameDatabase         endgames = new EndgameDatabaseBuilder( geometry, 7 ).build( new File(directory, "triangular.db") );
+        EndgameIndex            index    = endgames.getIndex();
+        SolitaireCheckersSolver solver   = new SolitaireCheckersSolver( geometry );
+        long                    winnable = 0L;
+
+        for( int pegs = 1; pegs <= index.getMaxPegs(); pegs++ ) {
+            for( long rank = 0L; rank < index.positions(pegs); rank++ ) {
+                long board = index.unrank( rank, pegs );
+
+                assertEquals( pegs, Long.bitCount(board) );
+                assertEquals( 0L, board & ~geometry.getValid() );
+                assertEquals( rank, index.rank(board) );
+                if ( assertSolved(endgames, solver, board) != EndgameDatabase.LOST )
+                    winnable++;
+            }
+        }
+        assertTrue( winnable > 100L, "too few winnable positions to tell: " + winnable );
+    }
+
+    /**
+     * Random English positions with up to 5 pegs, and best moves from 6.
+     */
+    @Test
+    public void randomEnglishPositionsMatchTheSolver() throws IOException {
+        BoardGeometry           geometry = BoardGeometry.ENGLISH;
+        File                    file     = new File( directory, "english.db" );
+        EndgameDatabase         endgames = new EndgameDatabaseBuilder( geometry, 5 ).build( file );
+        SolitaireCheckersSolver solver   = new SolitaireCheckersSolver( geometry );
+        SplittableRandom        random   = new SplittableRandom( 14L );
+        int                     best     = 0;
+
+        for( int i = 0; i < 20000; i++ ) {
+            long board = randomBoard( geometry, random, 1 + random.nextInt(6) );
+
+            if ( Long.bitCount(board) <= endgames.getMaxPegs() ) {
+                assertSolved( endgames, solver, board );
+                continue;
+            }
+            assertEquals( EndgameDatabase.UNKNOWN, endgames.lookup(board) );
+            SolitaireCheckersSolution solution = solver.solve( board );
+            int                       move     = endgames.bestMove( board );
+
+            if ( !solution.isWinnable() ) {
+                assertEquals( EndgameDatabase.NO_MOVE, move );
+                continue;
+            }
+            assertTrue( geometry.isLegal(board, move) );
+            assertEquals( solution.isWinnableIdeal() ? EndgameDatabase.WINNABLE_IDEAL : EndgameDatabase.WINNABLE,
+                          endgames.lookup(geometry.apply(board, move)) );
+            best++;
+        }
+        assertTrue( best > 100, "too few best moves to tell: " + best );
+
+        /* the file reopens to the same tables */
+        assertEquals( endgames.lookup(geometry.getCenter()), EndgameDatabase.open(file, geometry).lookup(geometry.getCenter()) );
+        assertThrows( IOException.class, () -> EndgameDatabase.open(file, BoardGeometry.EUROPEAN) );
+    }
+
+    /**
+     * Look board up, and compare with the solver.
+     * @return int the database's verdict
+     */
+    private static int assertSolved( EndgameDatabase endgames, SolitaireCheckersSolver solver, long board ) {
+        SolitaireCheckersSolution solution = solver.solve( board );
+        int                       verdict  = endgames.lookup( board );
+        int                       expected = solution.isWinnableIdeal() ? EndgameDatabase.WINNABLE_IDEAL
+                                           : solution.isWinnable()      ? EndgameDatabase.WINNABLE
+                                           : EndgameDatabase.LOST;
+
+        assertEquals( expected, verdict, Long.toHexString(board) );
+
+        return verdict;
+    }
+
+    /**
+     * A board of pegs on random holes within two rows and columns of one another.
+     */
+    private static long randomBoard( BoardGeometry geometry, SplittableRandom random, int pegs ) {
+        long valid = geometry.getValid();
+        long board = 0L;
+        int  hole;
+
+        do {
+            hole = random.nextInt( Long.SIZE );
+        } while( (valid & (1L << hole)) == 0L );
+
+        while( Long.bitCount(board) < pegs ) {
+            int bit = random.nextInt( Long.SIZE );
+            if ( ((valid & (1L << bit)) != 0L)
+                    && (Math.abs(geometry.rowOf(bit) - geometry.rowOf(hole)) <= 2)
+                    && (Math.abs(geometry.columnOf(bit) - geometry.columnOf(hole)) <= 2) )
+                board |= 1L << bit;
+        }
+
+        return board;
+    }
+}
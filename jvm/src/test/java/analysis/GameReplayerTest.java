@@ -0,0 +1,235 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import model.BoardGeometry;
+import model.SolitaireCheckersConfigurations;
+import model.SolitaireCheckersModel;
+import model.SolitaireCheckersTemplate;
+
+/**
+ * Tests of GameReplayer: games replayed in parallel batches must end as
+ * they do played one at a time on a SolitaireCheckersModel, move by move
+ * or tap by tap as the app plays them.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class GameReplayerTest {
+
+    private static final SolitaireCheckersTemplate[] STARTS = {
+        SolitaireCheckersTemplate.of( SolitaireCheckersConfigurations.Solitaire ),
+        SolitaireCheckersTemplate.of( SolitaireCheckersConfigurations.Diamond ),
+        SolitaireCheckersTemplate.of( BoardGeometry.EUROPEAN ),
+        SolitaireCheckersTemplate.of( BoardGeometry.TRIANGULAR_15 )
+    };
+
+    private GameReplayer replayer;
+
+    @AfterEach
+    public void shutdown() {
+        if ( replayer != null )
+            replayer.shutdown();
+    }
+
+    @Test
+    public void movesReplayAsTheModelPlaysThem() throws Exception {
+        SplittableRandom random = new SplittableRandom( 17L );
+
+        for( SolitaireCheckersTemplate start : STARTS ) {
+            byte[][] games    = new byte[10000][];
+            int[]    expected = new int[games.length];
+
+            for( int game = 0; game < games.length; game++ ) {
+                games[game]    = randomMoves( start, random );
+                expected[game] = playMoves( start, games[game] );
+            }
+            this.assertReplayed( start, games, GameReplayer.Encoding.MOVES, expected );
+        }
+    }
+
+    @Test
+    public void tapsReplayAsTheAppPlaysThem() throws Exception {
+        SplittableRandom random = new SplittableRandom( 71L );
+
+        for( SolitaireCheckersTemplate start : STARTS ) {
+            byte[][] games    = new byte[10000][];
+            int[]    expected = new int[games.length];
+
+            for( int game = 0; game < games.length; game++ ) {
+                games[game]    = randomTaps( start, random );
+                expected[game] = playTaps( start, games[game] );
+            }
+            this.assertReplayed( start, games, GameReplayer.Encoding.TAPS, expected );
+        }
+    }
+
+    @Test
+    public void streamEndingInsideAFrameIsRefused() {
+        replayer = new GameReplayer( STARTS[0], 1 );
+
+        assertThrows( EOFException.class,
+                      () -> replayer.replay(new ByteArrayInputStream(new byte[] { 0, 3, 1 }), GameReplayer.Encoding.MOVES) );
+        assertThrows( EOFException.class,
+                      () -> replayer.replay(new ByteArrayInputStream(new byte[] { 0 }), GameReplayer.Encoding.MOVES) );
+    }
+
+    /**
+     * Replay games in memory, framed in a stream, and one at a time: all
+     * three must give the expected outcomes, in order.
+     */
+    private void assertReplayed( SolitaireCheckersTemplate start, byte[][] games,
+                                 GameReplayer.Encoding encoding, int[] expected ) throws Exception {
+        ByteArrayOutputStream framed = new ByteArrayOutputStream();
+        ReplayResult          result;
+        long[]                counts = new long[ReplayResult.STATUSES];
+
+        if ( replayer != null )
+            replayer.shutdown();
+        replayer = new GameReplayer( start, 3 );
+
+        result = replayer.replay( games, encoding );
+        assertEquals( games.length, result.getGames() );
+        for( int game = 0; game < games.length; game++ ) {
+            assertEquals( expected[game], result.getOutcome(game), "game " + game + ": " + Arrays.toString(games[game]) );
+            assertEquals( expected[game], replayer.replay(games[game], encoding) );
+            counts[ReplayResult.statusOf( expected[game] )]++;
+        }
+        for( int status = 0; status < ReplayResult.STATUSES; status++ )
+            assertEquals( counts[status], result.getCount(status) );
+        assertTrue( (counts[ReplayResult.LOST] > 0L) && (counts[ReplayResult.UNFINISHED] > 0L)
+                    && (counts[ReplayResult.ILLEGAL] > 0L), "too few outcomes to tell: " + result );
+
+        for( byte[] game : games ) {
+            framed.write( game.length >>> 8 );
+            framed.write( game.length );
+            framed.write( game );
+        }
+        result = replayer.replay( new ByteArrayInputStream(framed.toByteArray()), encoding );
+        assertEquals( games.length, result.getGames() );
+        for( int game = 0; game < games.length; game++ )
+            assertEquals( expected[game], result.getOutcome(game) );
+    }
+
+    /**
+     * A random game of move codes: some played to the end, some stopped
+     * early, and some with a random move that may be illegal.
+     */
+    private static byte[] randomMoves( SolitaireCheckersTemplate start, SplittableRandom random ) {
+        BoardGeometry geometry = start.getGeometry();
+        int[]         moves    = new int[BoardGeometry.MAX_MOVES];
+        byte[]        game     = new byte[geometry.getHoles()];
+        long          board    = start.getBoard();
+        int           length   = 0;
+        int           stop     = random.nextBoolean() ? random.nextInt( geometry.getHoles() ) : geometry.getHoles();
+        int           n;
+
+        while( (length < stop) && (n = geometry.generateMoves(board, moves)) > 0 ) {
+            int move = moves[random.nextInt( n )];
+            game[length++] = (byte) move;
+            board = geometry.apply( board, move );
+        }
+        if ( random.nextInt(8) == 0 ) {
+            game[Math.min( length, game.length - 1 )] = (byte) random.nextInt( 256 );
+            length = Math.min( length + 1, game.length );
+        }
+
+        return Arrays.copyOf( game, length );
+    }
+
+    /**
+     * A random game of taps, mostly on pegs and on the holes they can jump
+     * into, now and then on any cell or off the board.
+     */
+    private static byte[] randomTaps( SolitaireCheckersTemplate start, SplittableRandom random ) {
+        BoardGeometry geometry = start.getGeometry();
+        int[]         moves    = new int[BoardGeometry.MAX_MOVES];
+        byte[]        game     = new byte[4 * geometry.getHoles()];
+        long          board    = start.getBoard();
+        int           length   = 0;
+        int           n;
+
+        while( length < game.length ) {
+            int tap;
+
+            n = geometry.generateMoves( board, moves );
+            if ( (n == 0) || (random.nextInt(8) == 0) ) {
+                tap = random.nextInt( (random.nextInt(200) == 0) ? 256 : Long.SIZE );
+                if ( (tap < Long.SIZE) && ((geometry.getValid() & (1L << tap)) == 0L) )
+                    continue;   // off the board only now and then
+            } else {
+                int move = moves[random.nextInt( n )];
+                tap = random.nextBoolean() ? geometry.moveFrom( move ) : geometry.moveTo( move );
+                if ( random.nextBoolean() )
+                    board = geometry.apply( board, move );   // a guess at how the taps play out
+            }
+            game[length++] = (byte) tap;
+        }
+
+        return game;
+    }
+
+    /**
+     * Play move codes on a model, one at a time.
+     * @return int the packed final state
+     */
+    private static int playMoves( SolitaireCheckersTemplate start, byte[] game ) {
+        SolitaireCheckersModel model = new SolitaireCheckersModel( start );
+
+        for( int i = 0; i < game.length; i++ ) {
+            int move = game[i] & 0xFF;
+            if ( (move >= start.getGeometry().getMoves()) || !model.isLegalMove(move) )
+                return ReplayResult.pack( ReplayResult.ILLEGAL, model.getNumberOfPegs(), i );
+            model.applyMove( move );
+        }
+
+        return end( model );
+    }
+
+    /**
+     * Tap cells of a model as MainActivity.handlePeg does: a peg is
+     * jumped, a hole is where the last tapped peg moves to.
+     * @return int the packed final state
+     */
+    private static int playTaps( SolitaireCheckersTemplate start, byte[] game ) {
+        SolitaireCheckersModel model    = new SolitaireCheckersModel( start );
+        BoardGeometry          geometry = start.getGeometry();
+
+        for( int i = 0; i < game.length; i++ ) {
+            int tap = game[i] & 0xFF;
+            int row;
+            int column;
+
+            if ( (tap >= Long.SIZE) || ((geometry.getValid() & (1L << tap)) == 0L) )
+                return ReplayResult.pack( ReplayResult.ILLEGAL, model.getNumberOfPegs(), i );
+            row    = geometry.rowOf( tap );
+            column = geometry.columnOf( tap );
+            if ( model.isPegAt(row, column) )
+                model.jumpPegAt( row, column );
+            else
+                model.moveLastPegTo( row, column );
+        }
+
+        return end( model );
+    }
+
+    private static int end( SolitaireCheckersModel model ) {
+        int status = model.isWonIdeal() ? ReplayResult.WON_IDEAL
+                   : model.isWon()      ? ReplayResult.WON
+                   : model.isLost()     ? ReplayResult.LOST
+                   : ReplayResult.UNFINISHED;
+
+        return ReplayResult.pack( status, model.getNumberOfPegs(), 0 );
+    }
+}
@@ -0,0 +1,174 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import model.BoardGeometry;
+import model.SolitaireCheckersConfigurations;
+import model.SolitaireCheckersTemplate;
+
+/**
+ * Tests of StateSpaceEnumerator against a brute-force breadth-first search
+ * over hash sets, level by level, with and without folding symmetries, in
+ * the heap and spilled to files.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class StateSpaceEnumeratorTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    public void triangularLevelsMatchBruteForce() {
+        BoardGeometry geometry = BoardGeometry.TRIANGULAR_15;
+        long          start    = SolitaireCheckersTemplate.of( geometry ).getBoard();
+
+        for( boolean fold : new boolean[] { false, true } ) {
+            long[][] expected = bruteForce( geometry, start, fold );
+
+            for( File spill : new File[] { null, directory } ) {
+                for( int threads : new int[] { 1, 3 } ) {
+                    StateSpaceEnumerator enumerator = new StateSpaceEnumerator( geometry, fold, spill, threads );
+                    try {
+                        assertLevels( expected, enumerator.enumerate(start, "Triangular") );
+                    } finally {
+                        enumerator.shutdown();
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void configurationLevelsMatchBruteForce() {
+        SolitaireCheckersConfigurations[] configurations = {
+            SolitaireCheckersConfigurations.Cross, SolitaireCheckersConfigurations.Plus,
+            SolitaireCheckersConfigurations.Fireplace, SolitaireCheckersConfigurations.Pyramid
+        };
+        StateSpaceEnumerator              folded         = new StateSpaceEnumerator( BoardGeometry.ENGLISH, true, null, 2 );
+        StateSpaceEnumerator              unfolded       = new StateSpaceEnumerator( BoardGeometry.ENGLISH );
+
+        try {
+            for( SolitaireCheckersConfigurations configuration : configurations ) {
+                long start = SolitaireCheckersTemplate.of( configuration ).getBoard();
+
+                assertLevels( bruteForce(BoardGeometry.ENGLISH, start, true), folded.enumerate(configuration) );
+                assertLevels( bruteForce(BoardGeometry.ENGLISH, start, false), unfolded.enumerate(configuration) );
+            }
+        } finally {
+            folded.shutdown();
+            unfolded.shutdown();
+        }
+        assertThrows( IllegalArgumentException.class, () -> {
+            StateSpaceEnumerator european = new StateSpaceEnumerator( BoardGeometry.EUROPEAN );
+            try {
+                european.enumerate( SolitaireCheckersConfigurations.Cross );
+            } finally {
+                european.shutdown();
+            }
+        } );
+    }
+
+    private static void assertLevels( long[][] expected, StateSpaceStatistics statistics ) {
+        long total = 0L;
+
+        assertEquals( expected[0].length - 1, statistics.getMaxPegs() );
+        for( int pegs = 1; pegs < expected[0].length; pegs++ ) {
+            assertEquals( expected[0][pegs], statistics.getPositions(pegs), "positions with " + pegs + " pegs" );
+            assertEquals( expected[1][pegs], statistics.getDeadEnds(pegs), "dead ends with " + pegs + " pegs" );
+            assertEquals( expected[2][pegs], statistics.getWinnable(pegs), "winnable with " + pegs + " pegs" );
+            assertEquals( expected[3][pegs], statistics.getWinnableIdeal(pegs), "ideal with " + pegs + " pegs" );
+            total += expected[0][pegs];
+        }
+        assertEquals( total, statistics.getTotalPositions() );
+        assertTrue( total > 1L );
+    }
+
+    /**
+     * Count the positions reachable from start, level by level, with a hash
+     * set per level; the winnable ones are found by a memoized search.
+     * @return long[][] positions, dead ends, winnable and ideally winnable
+     * positions, each indexed by number of pegs
+     */
+    private static long[][] bruteForce( BoardGeometry geometry, long start, boolean fold ) {
+        int                pegs   = Long.bitCount( start );
+        long[][]           counts = new long[4][pegs + 1];
+        Map<Long, Integer> ends   = new HashMap<Long, Integer>();
+        int[]              moves  = new int[BoardGeometry.MAX_MOVES];
+        Set<Long>          level  = new HashSet<Long>();
+
+        level.add( canonical(geometry, start, fold) );
+        for( int p = pegs; p >= 1; p-- ) {
+            Set<Long> next = new HashSet<Long>();
+
+            for( long board : level ) {
+                int n      = geometry.generateMoves( board, moves );
+                int finish = end( geometry, board, ends );
+
+                if ( (n == 0) && (p > 1) )
+                    counts[1][p]++;
+                if ( finish > 0 )
+                    counts[2][p]++;
+                if ( finish > 1 )
+                    counts[3][p]++;
+                for( int i = 0; i < n; i++ )
+                    next.add( canonical(geometry, geometry.apply(board, moves[i]), fold) );
+            }
+            counts[0][p] = level.size();
+            level = next;
+        }
+
+        return counts;
+    }
+
+    /**
+     * How board can end.
+     * @return int 0 lost, 1 won off center, 2 won in the center
+     */
+    private static int end( BoardGeometry geometry, long board, Map<Long, Integer> ends ) {
+        Integer known = ends.get( board );
+        int[]   moves = new int[BoardGeometry.MAX_MOVES];
+        int     best  = 0;
+        int     n;
+
+        if ( known != null )
+            return known;
+        if ( Long.bitCount(board) == 1 )
+            return ((board & geometry.getCenter()) != 0L) ? 2 : 1;
+
+        n = geometry.generateMoves( board, moves );
+        for( int i = 0; (i < n) && (best < 2); i++ )
+            best = Math.max( best, end(geometry, geometry.apply(board, moves[i]), ends) );
+        ends.put( board, best );
+
+        return best;
+    }
+
+    /**
+     * The smallest image of board under the symmetries keeping the center, if folding.
+     */
+    private static long canonical( BoardGeometry geometry, long board, boolean fold ) {
+        long best = board;
+
+        if ( fold ) {
+            for( int s = 0; s < geometry.getSymmetries(); s++ ) {
+                if ( geometry.transform(geometry.getCenter(), s) == geometry.getCenter() )
+                    best = Math.min( best, geometry.transform(board, s) );
+            }
+        }
+
+        return best;
+    }
+}
@@ -0,0 +1,125 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of AnalysisCache against a LinkedHashMap in access order, and of
+ * the hint cache of SolitaireCheckersAdvisor.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class AnalysisCacheTest {
+
+    @Test
+    public void cacheMatchesAnAccessOrderedMap() {
+        SplittableRandom random = new SplittableRandom( 15L );
+
+        for( int capacity : new int[] { 1, 2, 7, 64, 1000 } ) {
+            AnalysisCache      cache     = new AnalysisCache( capacity );
+            Map<Long, Integer> reference = new LinkedHashMap<Long, Integer>( 16, 0.75f, true );
+            long               hits      = 0L;
+            long               misses    = 0L;
+            long               evictions = 0L;
+
+            for( int i = 0; i < 200000; i++ ) {
+                /* few keys, so they are found, and some share a bucket */
+                long key = random.nextInt( 3 * capacity ) * 0x100000000L;
+
+                if ( random.nextBoolean() ) {
+                    Integer expected = reference.get( key );
+                    if ( expected == null )
+                        misses++;
+                    else
+                        hits++;
+                    assertEquals( (expected == null) ? AnalysisCache.MISSING : expected.intValue(), cache.get(key) );
+                } else {
+                    int value = random.nextInt();
+                    if ( !reference.containsKey(key) && (reference.size() == capacity) ) {
+                        reference.remove( reference.keySet().iterator().next() );
+                        evictions++;
+                    }
+                    reference.put( key, value );
+                    cache.put( key, value );
+                }
+                assertEquals( reference.size(), cache.size() );
+                assertTrue( cache.size() <= capacity );
+            }
+            assertEquals( hits, cache.getHits() );
+            assertEquals( misses, cache.getMisses() );
+            assertEquals( evictions, cache.getEvictions() );
+            assertEquals( capacity, cache.getCapacity() );
+
+            cache.clear();
+            assertEquals( 0, cache.size() );
+            assertEquals( hits, cache.getHits(), "clear keeps the counters" );
+            for( Long key : reference.keySet() )
+                assertEquals( AnalysisCache.MISSING, cache.get(key) );
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        AnalysisCache cache = new AnalysisCache( 2 );
+
+        cache.put( 1L, 10 );
+        cache.put( 2L, 20 );
+        assertEquals( 10, cache.get(1L) );   // 2 is now the least recently used
+        cache.put( 3L, 30 );
+        assertEquals( AnalysisCache.MISSING, cache.get(2L) );
+        assertEquals( 10, cache.get(1L) );
+        assertEquals( 30, cache.get(3L) );
+        assertEquals( 1L, cache.getEvictions() );
+        assertThrows( IllegalArgumentException.class, () -> new AnalysisCache(0) );
+    }
+
+    /**
+     * Solving a position remembers its winning line, so following the
+     * hints to the end misses the cache once.
+     */
+    @Test
+    public void followingTheHintsHitsTheCache() {
+        SolitaireCheckersAdvisor advisor  = new SolitaireCheckersAdvisor( BoardGeometry.ENGLISH );
+        BoardGeometry            geometry = advisor.getGeometry();
+        long                     board    = SolitaireCheckersTemplate.of( SolitaireCheckersConfigurations.Solitaire ).getBoard();
+        int                      moves    = 0;
+        SolitaireCheckersHint    hint;
+
+        while( (hint = advisor.getHint(board)).hasMove() ) {
+            assertTrue( hint.isWinnableIdeal() );
+            assertTrue( geometry.isLegal(board, hint.getMove()) );
+            board = geometry.apply( board, hint.getMove() );
+            moves++;
+        }
+        assertEquals( geometry.getCenter(), board );
+        assertEquals( 31, moves );
+        assertArrayEquals( new long[] { 30L, 1L, 0L }, advisor.getCacheStatistics() );
+    }
+
+    /**
+     * An advisor remembering one position keeps only the last solved.
+     */
+    @Test
+    public void advisorCacheIsBounded() {
+        SolitaireCheckersAdvisor advisor = new SolitaireCheckersAdvisor( BoardGeometry.ENGLISH, 1 );
+        long                     first   = SolitaireCheckersTemplate.of( SolitaireCheckersConfigurations.Cross ).getBoard();
+        long                     second  = SolitaireCheckersTemplate.of( SolitaireCheckersConfigurations.Plus ).getBoard();
+        int                      move    = advisor.getBestMove( first );
+
+        advisor.getBestMove( second );
+        assertEquals( move, advisor.getBestMove(first) );
+        assertEquals( 0L, advisor.getCacheStatistics()[0] );
+        assertEquals( 3L, advisor.getCacheStatistics()[1] );
+        assertTrue( advisor.getCacheStatistics()[2] > 0L );
+        assertThrows( IllegalArgumentException.class, () -> new SolitaireCheckersAdvisor(BoardGeometry.ENGLISH, 0) );
+    }
+}
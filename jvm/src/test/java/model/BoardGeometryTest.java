@@ -0,0 +1,109 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the symmetries and hashes of BoardGeometry: every image of a
+ * board shares its canonical hash and canonical board, and the hashes a
+ * model keeps move by move equal a recompute.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class BoardGeometryTest {
+
+    private static final BoardGeometry[] GEOMETRIES = {
+        BoardGeometry.ENGLISH, BoardGeometry.EUROPEAN, BoardGeometry.TRIANGULAR_15
+    };
+
+    @Test
+    public void canonicalHashIsInvariantUnderEverySymmetry() {
+        SplittableRandom random = new SplittableRandom( 13L );
+
+        assertEquals( 8, BoardGeometry.ENGLISH.getSymmetries() );
+        for( BoardGeometry geometry : GEOMETRIES ) {
+            for( int i = 0; i < 20000; i++ ) {
+                long board     = geometry.getValid() & random.nextLong();
+                long canonical = geometry.canonical( board );
+                long hash      = geometry.canonicalHash( board );
+
+                for( int s = 0; s < geometry.getSymmetries(); s++ ) {
+                    long image = geometry.transform( board, s );
+
+                    assertEquals( image, transformBitByBit(geometry, board, s) );
+                    assertEquals( Long.bitCount(board), Long.bitCount(image) );
+                    assertEquals( 0L, image & ~geometry.getValid(), "images stay on the board" );
+                    assertEquals( geometry.hash(image), geometry.hash(board, s) );
+                    assertEquals( hash, geometry.canonicalHash(image) );
+                    assertEquals( canonical, geometry.canonical(image) );
+                    assertTrue( canonical <= image );
+                }
+            }
+        }
+    }
+
+    /**
+     * Every symmetry of a cross-shaped board keeps the center, so an ideal
+     * finish has the same canonical hash as its images.
+     */
+    @Test
+    public void crossSymmetriesKeepTheCenter() {
+        for( BoardGeometry geometry : new BoardGeometry[] { BoardGeometry.ENGLISH, BoardGeometry.EUROPEAN } ) {
+            for( int s = 0; s < geometry.getSymmetries(); s++ )
+                assertEquals( geometry.getCenter(), geometry.transform(geometry.getCenter(), s) );
+        }
+    }
+
+    @Test
+    public void modelHashesMatchARecompute() {
+        SplittableRandom random = new SplittableRandom( 31L );
+        int[]            moves  = new int[SolitaireCheckersModel.MAX_MOVES];
+
+        for( BoardGeometry geometry : GEOMETRIES ) {
+            for( int game = 0; game < 500; game++ ) {
+                SolitaireCheckersModel model = new SolitaireCheckersModel( geometry );
+                int                    n;
+
+                assertHashes( model );
+                while( (n = model.generateMoves(moves)) > 0 ) {
+                    int move = moves[random.nextInt( n )];
+
+                    model.applyMove( move );
+                    assertHashes( model );
+                    if ( random.nextInt(4) == 0 ) {
+                        model.undoMove( move );
+                        assertHashes( model );
+                        model.applyMove( move );
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertHashes( SolitaireCheckersModel model ) {
+        BoardGeometry geometry = model.getGeometry();
+        long          board    = model.getBitboard();
+
+        assertEquals( geometry.hash(board), model.getHash() );
+        assertEquals( geometry.canonicalHash(board), model.getCanonicalHash() );
+    }
+
+    /**
+     * The image of board under symmetry, one peg at a time.
+     */
+    private static long transformBitByBit( BoardGeometry geometry, long board, int symmetry ) {
+        long image = 0L;
+
+        for( int bit = 0; bit < Long.SIZE; bit++ ) {
+            if ( (board & (1L << bit)) != 0L )
+                image |= 1L << geometry.symmetry[symmetry][bit];
+        }
+
+        return image;
+    }
+}
@@ -0,0 +1,179 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of GameRecordWriter and GameRecordReader: games written to a
+ * record file read back unchanged, in order or from any game.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class GameRecordTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    public void englishGamesReadBackUnchanged() throws IOException {
+        SplittableRandom                  random         = new SplittableRandom( 18L );
+        File                              file           = new File( directory, "english.rec" );
+        GameRecordWriter                  writer         = new GameRecordWriter( file, BoardGeometry.ENGLISH );
+        SolitaireCheckersConfigurations[] configurations = SolitaireCheckersConfigurations.values();
+        byte[][]                          games          = new byte[5000][];
+        int[]                             starts         = new int[games.length];
+
+        for( int game = 0; game < games.length; game++ ) {
+            SolitaireCheckersConfigurations configuration = configurations[random.nextInt( configurations.length )];
+            SolitaireCheckersModel          model         = new SolitaireCheckersModel( configuration );
+
+            model.playMoves( randomGame(BoardGeometry.ENGLISH, model.getBitboard(), random) );
+            games[game]  = model.getMoves();
+            starts[game] = configuration.ordinal();
+            if ( random.nextBoolean() ) {
+                writer.write( model );
+            } else {
+                /* from the middle of a larger array */
+                byte[] padded = new byte[games[game].length + 2];
+                System.arraycopy( games[game], 0, padded, 1, games[game].length );
+                writer.write( configuration, padded, 1, games[game].length );
+            }
+        }
+        assertEquals( games.length, writer.getGames() );
+        writer.close();
+
+        try ( GameRecordReader reader = GameRecordReader.open(file, BoardGeometry.ENGLISH) ) {
+            assertEquals( games.length, reader.getGames() );
+            assertReadsFrom( reader, 0, games, starts );
+            for( int i = 0; i < 200; i++ ) {
+                int game = random.nextInt( games.length + 1 );
+                reader.seek( game );
+                assertReadsFrom( reader, game, games, starts );
+            }
+            for( int game = 0; game <= games.length; game += GameRecordFormat.INDEX_INTERVAL ) {
+                reader.seek( game );
+                assertReadsFrom( reader, game, games, starts );
+            }
+            assertThrows( IndexOutOfBoundsException.class, () -> reader.seek(games.length + 1) );
+            assertThrows( IndexOutOfBoundsException.class, () -> reader.seek(-1) );
+        }
+        assertThrows( IOException.class, () -> GameRecordReader.open(file, BoardGeometry.EUROPEAN) );
+    }
+
+    @Test
+    public void standardStartsOfOtherBoardsReadBack() throws IOException {
+        SplittableRandom random = new SplittableRandom( 81L );
+
+        for( BoardGeometry geometry : new BoardGeometry[] { BoardGeometry.EUROPEAN, BoardGeometry.TRIANGULAR_15 } ) {
+            File             file   = new File( directory, geometry.getName() + ".rec" );
+            GameRecordWriter writer = new GameRecordWriter( file, geometry );
+            long             start  = SolitaireCheckersTemplate.of( geometry ).getBoard();
+            byte[][]         games  = new byte[300][];
+            int[]            starts = new int[games.length];
+
+            for( int game = 0; game < games.length; game++ ) {
+                games[game]  = randomGame( geometry, start, random );
+                starts[game] = GameRecordFormat.NO_CONFIGURATION;
+                writer.write( null, games[game], 0, games[game].length );
+            }
+            writer.close();
+
+            try ( GameRecordReader reader = GameRecordReader.open(file, geometry) ) {
+                assertReadsFrom( reader, 0, games, starts );
+                reader.seek( 0 );
+                assertTrue( reader.next() );
+                assertEquals( start, reader.getStart().getBoard() );
+            }
+        }
+    }
+
+    @Test
+    public void emptyRecordReadsBack() throws IOException {
+        File file = new File( directory, "empty.rec" );
+
+        new GameRecordWriter( file, BoardGeometry.ENGLISH ).close();
+        try ( GameRecordReader reader = GameRecordReader.open(file, BoardGeometry.ENGLISH) ) {
+            assertEquals( 0L, reader.getGames() );
+            assertFalse( reader.next() );
+            reader.seek( 0 );
+            assertFalse( reader.next() );
+        }
+    }
+
+    @Test
+    public void badGamesAndClosedFilesAreRefused() throws IOException {
+        File             file    = new File( directory, "refused.rec" );
+        GameRecordWriter writer  = new GameRecordWriter( file, BoardGeometry.EUROPEAN );
+        GameRecordReader reader;
+        byte[]           illegal = { (byte) BoardGeometry.EUROPEAN.getMoves() };
+
+        assertThrows( IllegalArgumentException.class,
+                      () -> writer.write(SolitaireCheckersConfigurations.Cross, new byte[0], 0, 0) );
+        assertThrows( IllegalArgumentException.class, () -> writer.write(null, illegal, 0, 1) );
+        assertThrows( IllegalArgumentException.class,
+                      () -> writer.write(new SolitaireCheckersModel(SolitaireCheckersConfigurations.Cross)) );
+        assertEquals( 0L, writer.getGames() );
+        writer.write( null, new byte[0], 0, 0 );
+        writer.close();
+        assertThrows( IllegalStateException.class, () -> writer.write(null, new byte[0], 0, 0) );
+
+        reader = GameRecordReader.open( file, BoardGeometry.EUROPEAN );
+        assertEquals( 1L, reader.getGames() );
+        reader.close();
+        assertThrows( IllegalStateException.class, () -> reader.next() );
+        assertThrows( IllegalStateException.class, () -> reader.seek(0) );
+    }
+
+    /**
+     * Read from game to the end, comparing each game with the one written.
+     */
+    private static void assertReadsFrom( GameRecordReader reader, int game, byte[][] games, int[] starts ) {
+        byte[] moves = new byte[GameRecordFormat.MAX_MOVES];
+
+        for( int expected = game; expected < games.length; expected++ ) {
+            assertTrue( reader.next() );
+            assertEquals( expected, reader.getGame() );
+            assertEquals( starts[expected], reader.getConfigurationByte() );
+            assertEquals( games[expected].length, reader.getMoveCount() );
+            assertArrayEquals( games[expected], Arrays.copyOf(moves, reader.getMoves(moves)) );
+            for( int i = 0; i < reader.getMoveCount(); i++ )
+                assertEquals( games[expected][i] & 0xFF, reader.getMove(i) );
+            /* the moves replay from the start the record names */
+            assertEquals( games[expected].length,
+                          new SolitaireCheckersModel( reader.getStart() ).playMoves( games[expected] ) );
+        }
+        assertFalse( reader.next() );
+    }
+
+    /**
+     * A random game, stopped at a random move.
+     * @return byte[] its move codes
+     */
+    private static byte[] randomGame( BoardGeometry geometry, long board, SplittableRandom random ) {
+        int[]  moves  = new int[BoardGeometry.MAX_MOVES];
+        byte[] game   = new byte[geometry.getHoles()];
+        int    length = 0;
+        int    stop   = random.nextInt( geometry.getHoles() );
+        int    n;
+
+        while( (length < stop) && ((n = geometry.generateMoves(board, moves)) > 0) ) {
+            int move = moves[random.nextInt( n )];
+            game[length++] = (byte) move;
+            board = geometry.apply( board, move );
+        }
+
+        return Arrays.copyOf( game, length );
+    }
+}
@@ -0,0 +1,163 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of JumpChains against a brute-force search of every order of
+ * every jump, on random boards of every geometry.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class JumpChainsTest {
+
+    private static final BoardGeometry[] GEOMETRIES = {
+        BoardGeometry.ENGLISH, BoardGeometry.EUROPEAN, BoardGeometry.TRIANGULAR_15
+    };
+
+    @Test
+    public void chainsMatchBruteForceOnRandomBoards() {
+        SplittableRandom random = new SplittableRandom( 24L );
+        long             chains = 0L;
+
+        for( BoardGeometry geometry : GEOMETRIES ) {
+            for( int i = 0; i < 3000; i++ ) {
+                long board = randomBoard( geometry, random );
+                for( int bit = 0; bit < Long.SIZE; bit++ ) {
+                    if ( (board & (1L << bit)) != 0L )
+                        chains += check( geometry, board, bit );
+                }
+            }
+        }
+        assertTrue( chains > 10000L, "too few chains to tell: " + chains );
+    }
+
+    @Test
+    public void chainsMatchBruteForceInPlayedGames() {
+        SplittableRandom random = new SplittableRandom( 7L );
+        int[]            moves  = new int[BoardGeometry.MAX_MOVES];
+
+        for( BoardGeometry geometry : GEOMETRIES ) {
+            for( int game = 0; game < 300; game++ ) {
+                long board = geometry.getStart();
+                int  n;
+                while( (n = geometry.generateMoves(board, moves)) > 0 ) {
+                    for( int bit = 0; bit < Long.SIZE; bit++ ) {
+                        if ( (board & (1L << bit)) != 0L )
+                            check( geometry, board, bit );
+                    }
+                    board = geometry.apply( board, moves[random.nextInt(n)] );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void holeHasNoChains() {
+        BoardGeometry geometry = BoardGeometry.ENGLISH;
+        long          board    = geometry.getStart();
+        int           center   = geometry.bit( 3, 3 );
+
+        assertEquals( 0, JumpChains.search(geometry, board, center).getCount() );
+        assertEquals( -1, JumpChains.search(geometry, board, center).getLongest() );
+        assertEquals( 0, JumpChains.search(geometry, board, -1).getCount() );
+        assertEquals( 0, JumpChains.search(geometry, board, Long.SIZE).getCount() );
+    }
+
+    @Test
+    public void modelPlaysAChain() {
+        SolitaireCheckersModel model  = new SolitaireCheckersModel( SolitaireCheckersConfigurations.Solitaire );
+        JumpChains             stale  = model.getJumpChains( 3, 1 );
+        JumpChains             chains = null;
+
+        model.jumpPegAt( 3, 1 );
+        for( int row = 0; (row < model.rows()) && (chains == null); row++ ) {
+            for( int column = 0; (column < model.columnsAt(row)) && (chains == null); column++ ) {
+                if ( model.getJumpChains(row, column).getCount() > 0 )
+                    chains = model.getJumpChains( row, column );
+            }
+        }
+        assertNotNull( chains );
+        assertTrue( model.playChain(chains, chains.getLongest()) );
+        assertEquals( chains.getBoardAfter(chains.getLongest()), model.getBitboard() );
+        assertFalse( model.playChain(stale, 0), "chains of another board are refused" );
+    }
+
+    /**
+     * Compare the chains of one peg with a brute-force search.
+     * @return int the number of chains
+     */
+    private static int check( BoardGeometry geometry, long board, int bit ) {
+        JumpChains         chains   = JumpChains.search( geometry, board, bit );
+        Map<Long, Integer> expected = new HashMap<Long, Integer>();
+        Set<Long>          listed   = new HashSet<Long>();
+        int                longest  = 0;
+
+        bruteForce( geometry, board, bit, 0, expected );
+        assertEquals( expected.size(), chains.getCount(), "chains of " + bit + " on " + Long.toHexString(board) );
+        assertEquals( board, chains.getBoard() );
+        assertEquals( bit, chains.getFrom() );
+
+        for( int chain = 0; chain < chains.getCount(); chain++ ) {
+            long   after  = board;
+            int    at     = bit;
+            byte[] copied = chains.getMoves( chain );
+
+            assertEquals( chains.getLength(chain), copied.length );
+            for( int jump = 0; jump < chains.getLength(chain); jump++ ) {
+                int move = chains.getMove( chain, jump );
+                assertEquals( move, copied[jump] & 0xFF );
+                assertEquals( at, geometry.moveFrom(move), "a chain moves one peg" );
+                assertTrue( geometry.isLegal(after, move) );
+                after = geometry.apply( after, move );
+                at    = geometry.moveTo( move );
+                /* a chain comes after the chains it extends */
+                if ( jump < chains.getLength(chain) - 1 )
+                    assertTrue( listed.contains(after), "prefix listed before chain " + chain );
+            }
+            assertEquals( after, chains.getBoardAfter(chain) );
+            assertEquals( at, chains.getTo(chain) );
+            assertTrue( expected.containsKey(after) );
+            assertTrue( listed.add(after), "each board is listed once" );
+            longest = Math.max( longest, expected.get(after) );
+        }
+        if ( chains.getCount() > 0 )
+            assertEquals( longest, chains.getLength(chains.getLongest()) );
+
+        return chains.getCount();
+    }
+
+    /**
+     * Every board reachable by jumping the peg at bit one or more times,
+     * with the most jumps reaching it.
+     */
+    private static void bruteForce( BoardGeometry geometry, long board, int bit, int jumps,
+                                    Map<Long, Integer> reached ) {
+        for( int direction = 0; direction < geometry.getDirections(); direction++ ) {
+            if ( (geometry.jumpers(board, direction) & (1L << bit)) != 0L ) {
+                int  move  = geometry.moveCode( bit, direction );
+                long after = geometry.apply( board, move );
+                reached.merge( after, jumps + 1, Math::max );
+                bruteForce( geometry, after, geometry.moveTo(move), jumps + 1, reached );
+            }
+        }
+    }
+
+    /**
+     * A board with about half its holes pegged, so pegs have long chains.
+     */
+    private static long randomBoard( BoardGeometry geometry, SplittableRandom random ) {
+        return geometry.getValid() & random.nextLong();
+    }
+}
@@ -0,0 +1,215 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of SolitaireCheckersModel.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class SolitaireCheckersModelTest {
+
+    private static final BoardGeometry[] GEOMETRIES = {
+        BoardGeometry.ENGLISH, BoardGeometry.EUROPEAN, BoardGeometry.TRIANGULAR_15
+    };
+
+    /**
+     * Random games played with applyMove are taken back with undoMove to
+     * the start; on the way, generateMoves lists exactly the legal moves,
+     * and neither the status nor the listeners hear of any of it.
+     */
+    @Test
+    public void undoMoveTakesBackApplyMove() {
+        SplittableRandom random = new SplittableRandom( 4L );
+        int[]            moves  = new int[SolitaireCheckersModel.MAX_MOVES];
+        int[]            played = new int[SolitaireCheckersModel.MAX_MOVES];
+        int[]            events = new int[1];
+
+        for( BoardGeometry geometry : GEOMETRIES ) {
+            for( int game = 0; game < 500; game++ ) {
+                SolitaireCheckersModel model  = new SolitaireCheckersModel( geometry );
+                long                   start  = model.getBitboard();
+                String                 status = model.getStatus();
+                long[]                 boards = new long[geometry.getHoles()];
+                int                    length = 0;
+                int                    n;
+
+                model.addBoardChangeListener( event -> events[0]++ );
+                while( (n = model.generateMoves(moves)) > 0 ) {
+                    int[] legal = legalMoves( geometry, model.getBitboard() );
+
+                    Arrays.sort( moves, 0, n );
+                    assertArrayEquals( legal, Arrays.copyOf(moves, n) );
+                    boards[length]   = model.getBitboard();
+                    played[length++] = moves[random.nextInt( n )];
+                    assertTrue( model.isLegalMove(played[length - 1]) );
+                    model.applyMove( played[length - 1] );
+                    assertEquals( geometry.apply(boards[length - 1], played[length - 1]), model.getBitboard() );
+                }
+                while( length > 0 ) {
+                    model.undoMove( played[--length] );
+                    assertEquals( boards[length], model.getBitboard() );
+                }
+                assertEquals( start, model.getBitboard() );
+                assertEquals( status, model.getStatus() );
+                assertEquals( 0, events[0] );
+            }
+        }
+    }
+
+    /**
+     * The jumpers and peg count kept up to date move by move must equal a
+     * recount of the board after every move, undo and redo.
+     */
+    @Test
+    public void incrementalJumpersMatchARecount() {
+        SplittableRandom random = new SplittableRandom( 5L );
+        int[]            moves  = new int[SolitaireCheckersModel.MAX_MOVES];
+
+        for( BoardGeometry geometry : GEOMETRIES ) {
+            for( int game = 0; game < 500; game++ ) {
+                SolitaireCheckersModel model = new SolitaireCheckersModel( geometry );
+                int                    n;
+
+                assertRecounted( model );
+                while( (n = model.generateMoves(moves)) > 0 ) {
+                    int move = moves[random.nextInt( n )];
+
+                    switch( random.nextInt(4) ) {
+                    case 0:
+                        model.applyMove( move );
+                        assertRecounted( model );
+                        model.undoMove( move );
+                        assertRecounted( model );
+                        model.applyMove( move );
+                        break;
+                    case 1:
+                        model.playMoves( new byte[] { (byte) move } );
+                        assertRecounted( model );
+                        assertTrue( model.undo() );
+                        assertRecounted( model );
+                        assertTrue( model.redo() );
+                        break;
+                    default:
+                        model.jumpPegAt( geometry.rowOf(geometry.moveFrom(move)),
+                                         geometry.columnOf(geometry.moveFrom(move)) );
+                        if ( model.getStatus().endsWith("has multiple jumps") )
+                            model.moveLastPegTo( geometry.rowOf(geometry.moveTo(move)),
+                                                 geometry.columnOf(geometry.moveTo(move)) );
+                        break;
+                    }
+                    assertRecounted( model );
+                }
+                model.reset();
+                assertRecounted( model );
+            }
+        }
+    }
+
+    /**
+     * A peg tapped before redo() is forgotten, as it is by undo(): the
+     * next moveLastPegTo does not jump it on the redone board.
+     */
+    @Test
+    public void redoForgetsTheTappedPeg() {
+        SplittableRandom random  = new SplittableRandom( 6L );
+        int[]            moves   = new int[SolitaireCheckersModel.MAX_MOVES];
+        int              checked = 0;
+
+        for( int game = 0; game < 200; game++ ) {
+            SolitaireCheckersModel model    = new SolitaireCheckersModel( SolitaireCheckersConfigurations.Solitaire );
+            BoardGeometry          geometry = model.getGeometry();
+            int                    n;
+
+            while( (n = model.generateMoves(moves)) > 0 ) {
+                long before;
+                long after;
+                int  peg;
+
+                model.playMoves( new byte[] { (byte) moves[random.nextInt(n)] } );
+                after = model.getBitboard();
+                model.undo();
+                before = model.getBitboard();
+
+                peg = selectable( geometry, before, after );
+                if ( peg != BoardGeometry.NO_HOLE ) {
+                    int direction = selectableDirection( geometry, before, after, peg );
+                    int to        = geometry.moveTo( geometry.moveCode(peg, direction) );
+
+                    model.jumpPegAt( geometry.rowOf(peg), geometry.columnOf(peg) );
+                    assertTrue( model.redo() );
+                    model.moveLastPegTo( geometry.rowOf(to), geometry.columnOf(to) );
+                    assertEquals( after, model.getBitboard() );
+                    checked++;
+                } else {
+                    assertTrue( model.redo() );
+                }
+            }
+        }
+        assertTrue( checked > 100, "too few positions to tell: " + checked );
+    }
+
+    private static void assertRecounted( SolitaireCheckersModel model ) {
+        BoardGeometry geometry = model.getGeometry();
+        long          board    = model.getBitboard();
+
+        for( int d = 0; d < geometry.getDirections(); d++ )
+            assertEquals( geometry.jumpers(board, d), model.getJumpers(d), "direction " + d );
+        assertEquals( Long.bitCount(board), model.getNumberOfPegs() );
+    }
+
+    /**
+     * Every move code legal on board, in ascending order.
+     */
+    private static int[] legalMoves( BoardGeometry geometry, long board ) {
+        int[] legal = new int[geometry.getMoves()];
+        int   n     = 0;
+
+        for( int move = 0; move < geometry.getMoves(); move++ ) {
+            if ( geometry.isLegal(board, move) )
+                legal[n++] = move;
+        }
+
+        return Arrays.copyOf( legal, n );
+    }
+
+    /**
+     * Find a peg with several jumps on before, one of which is still legal on after.
+     * @return int the peg's bit, or BoardGeometry.NO_HOLE
+     */
+    private static int selectable( BoardGeometry geometry, long before, long after ) {
+        for( int bit = 0; bit < Long.SIZE; bit++ ) {
+            if ( selectableDirection(geometry, before, after, bit) != BoardGeometry.NO_DIRECTION )
+                return bit;
+        }
+
+        return BoardGeometry.NO_HOLE;
+    }
+
+    /**
+     * Answer a direction the peg at bit can jump on both boards, if it has several jumps on before.
+     * @return int the direction, or BoardGeometry.NO_DIRECTION
+     */
+    private static int selectableDirection( BoardGeometry geometry, long before, long after, int bit ) {
+        int jumps     = 0;
+        int direction = BoardGeometry.NO_DIRECTION;
+
+        for( int d = 0; d < geometry.getDirections(); d++ ) {
+            if ( (geometry.jumpers(before, d) & (1L << bit)) != 0L ) {
+                jumps++;
+                if ( (geometry.jumpers(after, d) & (1L << bit)) != 0L )
+                    direction = d;
+            }
+        }
+
+        return (jumps > 1) ? direction : BoardGeometry.NO_DIRECTION;
+    }
+}
@@ -0,0 +1,218 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the bitboard SolitaireCheckersModel against the rules of the
+ * original boolean[][] model, written out again here on a 7x7 grid: random
+ * taps on every configuration must leave both with the same pegs, status
+ * and outcome.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class SolitaireCheckersRulesTest {
+
+    @Test
+    public void randomTapsFollowTheBaselineRules() {
+        SplittableRandom random = new SplittableRandom( 1L );
+        long             jumps  = 0L;
+
+        for( SolitaireCheckersConfigurations configuration : SolitaireCheckersConfigurations.values() ) {
+            for( int game = 0; game < 300; game++ ) {
+                SolitaireCheckersModel model     = new SolitaireCheckersModel( configuration );
+                Reference              reference = new Reference( model );
+
+                for( int tap = 0; tap < 200; tap++ ) {
+                    int pegs = reference.pegs();
+
+                    if ( (reference.selected != null) && random.nextBoolean() ) {
+                        int[] to = reference.randomTarget( random );
+                        model.moveLastPegTo( to[0], Reference.columnOf(to[0], to[1]) );
+                        reference.moveTo( to[0], to[1] );
+                    } else {
+                        int row    = random.nextInt( Reference.SIZE );
+                        int column = random.nextInt( Reference.widthOf(row) );
+                        model.jumpPegAt( row, column );
+                        reference.tap( row, Reference.gridColumn(row, column) );
+                    }
+                    jumps += pegs - reference.pegs();
+                    reference.assertSame( model );
+                }
+            }
+        }
+        assertTrue( jumps > 20000L, "too few jumps to tell: " + jumps );
+    }
+
+    @Test
+    public void cellsOffTheBoardHaveNoPeg() {
+        SolitaireCheckersModel model = new SolitaireCheckersModel( SolitaireCheckersConfigurations.Solitaire );
+
+        assertFalse( model.isPegAt(-1, 0) );
+        assertFalse( model.isPegAt(0, -1) );
+        assertFalse( model.isPegAt(0, 3) );
+        assertFalse( model.isPegAt(Reference.SIZE, 0) );
+        assertFalse( model.isPegAt(2, Reference.SIZE) );
+
+        model.jumpPegAt( 0, 3 );   // off the board: nothing happens
+        assertEquals( 32, model.getNumberOfPegs() );
+    }
+
+    /**
+     * The original rules on a 7x7 grid of the English board, whose top and
+     * bottom two rows are 3 holes wide in columns 2 to 4. A tapped peg with
+     * several jumps is selected; a tapped peg with one jump takes it;
+     * moveLastPegTo jumps the selected peg to a target.
+     */
+    private static final class Reference {
+        static final int     SIZE   = 7;
+        static final int     CENTER = 3;
+        static final int[][] STEPS  = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };   // up, down, left, right
+
+        final boolean[][] pegs = new boolean[SIZE][SIZE];
+        int[]             selected;   // the tapped peg with several jumps, in grid columns
+        String            status;
+
+        Reference( SolitaireCheckersModel model ) {
+            for( int row = 0; row < SIZE; row++ ) {
+                for( int column = 0; column < widthOf(row); column++ )
+                    pegs[row][gridColumn(row, column)] = model.isPegAt( row, column );
+            }
+            status = model.getStatus();
+        }
+
+        static int widthOf( int row ) {
+            return ( (row < 2) || (row > 4) ) ? 3 : SIZE;
+        }
+
+        /** The grid column of a model column. */
+        static int gridColumn( int row, int column ) {
+            return column + (SIZE - widthOf(row)) / 2;
+        }
+
+        /** The model column of a grid column. */
+        static int columnOf( int row, int column ) {
+            return column - (SIZE - widthOf(row)) / 2;
+        }
+
+        static boolean isHole( int row, int column ) {
+            return (row >= 0) && (row < SIZE) && (column >= 0) && (column < SIZE)
+                && ( ((row >= 2) && (row <= 4)) || ((column >= 2) && (column <= 4)) );
+        }
+
+        boolean canJump( int row, int column, int[] step ) {
+            int overRow    = row + step[0];
+            int overColumn = column + step[1];
+            int toRow      = row + 2 * step[0];
+            int toColumn   = column + 2 * step[1];
+
+            return pegs[row][column] && isHole( toRow, toColumn )
+                && pegs[overRow][overColumn] && !pegs[toRow][toColumn];
+        }
+
+        int jumpsOf( int row, int column ) {
+            int jumps = 0;
+
+            for( int[] step : STEPS ) {
+                if ( this.canJump(row, column, step) )
+                    jumps++;
+            }
+
+            return jumps;
+        }
+
+        void jump( int row, int column, int[] step ) {
+            pegs[row][column]                                 = false;
+            pegs[row + step[0]][column + step[1]]             = false;
+            pegs[row + 2 * step[0]][column + 2 * step[1]]     = true;
+        }
+
+        void tap( int row, int column ) {
+            int jumps;
+
+            if ( !pegs[row][column] )
+                return;
+
+            jumps    = this.jumpsOf( row, column );
+            selected = null;
+            status   = "";
+            if ( jumps > 1 ) {
+                selected = new int[] { row, column };
+                status   = "peg " + (row + 1) + ", " + (columnOf(row, column) + 1) + " has multiple jumps";
+                return;
+            }
+            for( int[] step : STEPS ) {
+                if ( this.canJump(row, column, step) ) {
+                    this.jump( row, column, step );
+                    status = "peg " + (row + 1) + ", " + (columnOf(row, column) + 1) + " jumped";
+                    break;
+                }
+            }
+        }
+
+        /** A target of one of the selected peg's jumps, in grid columns. */
+        int[] randomTarget( SplittableRandom random ) {
+            int[][] targets = new int[STEPS.length][];
+            int     n       = 0;
+
+            for( int[] step : STEPS ) {
+                if ( this.canJump(selected[0], selected[1], step) )
+                    targets[n++] = new int[] { selected[0] + 2 * step[0], selected[1] + 2 * step[1] };
+            }
+
+            return targets[random.nextInt( n )];
+        }
+
+        void moveTo( int row, int column ) {
+            for( int[] step : STEPS ) {
+                if ( (selected[0] + 2 * step[0] == row) && (selected[1] + 2 * step[1] == column) )
+                    this.jump( selected[0], selected[1], step );
+            }
+            status   = "you chose " + (row + 1) + ", " + (columnOf(row, column) + 1);
+            selected = null;
+        }
+
+        int pegs() {
+            int count = 0;
+
+            for( boolean[] row : pegs ) {
+                for( boolean peg : row ) {
+                    if ( peg )
+                        count++;
+                }
+            }
+
+            return count;
+        }
+
+        boolean isLost() {
+            for( int row = 0; row < SIZE; row++ ) {
+                for( int column = 0; column < SIZE; column++ ) {
+                    if ( isHole(row, column) && (this.jumpsOf(row, column) > 0) )
+                        return false;
+                }
+            }
+
+            return this.pegs() > 1;
+        }
+
+        void assertSame( SolitaireCheckersModel model ) {
+            for( int row = 0; row < SIZE; row++ ) {
+                for( int column = 0; column < widthOf(row); column++ )
+                    assertEquals( pegs[row][gridColumn(row, column)], model.isPegAt(row, column),
+                                  "peg at " + row + ", " + column );
+            }
+            assertEquals( this.pegs(), model.getNumberOfPegs() );
+            assertEquals( status, model.getStatus() );
+            assertEquals( this.isLost(), model.isLost() );
+            assertEquals( (this.pegs() == 1) && !pegs[CENTER][CENTER], model.isWon() );
+            assertEquals( (this.pegs() == 1) && pegs[CENTER][CENTER], model.isWonIdeal() );
+        }
+    }
+}
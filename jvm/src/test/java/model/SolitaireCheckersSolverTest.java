@@ -0,0 +1,144 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of SolitaireCheckersSolver: the verdicts of the configurations,
+ * and of random small positions of every geometry against a brute-force
+ * search; every winning line must replay to the finish it claims.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class SolitaireCheckersSolverTest {
+
+    private static final BoardGeometry[] GEOMETRIES = {
+        BoardGeometry.ENGLISH, BoardGeometry.EUROPEAN, BoardGeometry.TRIANGULAR_15
+    };
+
+    @Test
+    public void everyConfigurationIsWonInTheCenter() {
+        SolitaireCheckersSolver solver = new SolitaireCheckersSolver();
+
+        for( SolitaireCheckersConfigurations configuration : SolitaireCheckersConfigurations.values() ) {
+            SolitaireCheckersSolution solution = solver.solve( configuration );
+            long                      start    = SolitaireCheckersTemplate.of( configuration ).getBoard();
+
+            assertTrue( solution.isComplete(), configuration.toString() );
+            assertTrue( solution.isWinnable(), configuration.toString() );
+            assertTrue( solution.isWinnableIdeal(), configuration.toString() );
+            assertEquals( start, solution.getBoard() );
+            assertEquals( BoardGeometry.ENGLISH.getCenter(), replay(BoardGeometry.ENGLISH, start, solution.getMoves()) );
+        }
+    }
+
+    @Test
+    public void verdictsMatchBruteForceOnSmallPositions() {
+        SplittableRandom random   = new SplittableRandom( 2L );
+        int              winnable = 0;
+        int              lost     = 0;
+
+        for( BoardGeometry geometry : GEOMETRIES ) {
+            SolitaireCheckersSolver solver = new SolitaireCheckersSolver( geometry );
+
+            for( int i = 0; i < 2000; i++ ) {
+                long                      board    = randomBoard( geometry, random, 2 + random.nextInt(6) );
+                SolitaireCheckersSolution solution = solver.solve( board );
+                boolean                   ideal    = bruteForce( geometry, board, geometry.getCenter() );
+                boolean                   any      = ideal || bruteForce( geometry, board, geometry.getValid() );
+
+                assertTrue( solution.isComplete() );
+                assertEquals( any, solution.isWinnable(), Long.toHexString(board) );
+                assertEquals( ideal, solution.isWinnableIdeal(), Long.toHexString(board) );
+                if ( any ) {
+                    long last = replay( geometry, board, solution.getMoves() );
+                    assertEquals( 1, Long.bitCount(last) );
+                    if ( ideal )
+                        assertEquals( geometry.getCenter(), last );
+                    winnable++;
+                } else {
+                    assertEquals( 0, solution.getMoves().length );
+                    lost++;
+                }
+            }
+        }
+        assertTrue( (winnable > 100) && (lost > 100), "too few of each to tell: " + winnable + " won, " + lost + " lost" );
+    }
+
+    @Test
+    public void nodeLimitLeavesTheSolutionIncomplete() {
+        SolitaireCheckersSolver solver = new SolitaireCheckersSolver();
+
+        solver.setNodeLimit( 10L );
+        assertFalse( solver.solve(SolitaireCheckersConfigurations.Solitaire).isComplete() );
+        assertFalse( solver.solve(SolitaireCheckersConfigurations.Solitaire).isWinnable() );
+        assertThrows( IllegalArgumentException.class, () -> solver.setNodeLimit(0L) );
+        assertThrows( IllegalArgumentException.class,
+                      () -> new SolitaireCheckersSolver(BoardGeometry.EUROPEAN).solve(SolitaireCheckersConfigurations.Cross) );
+    }
+
+    /**
+     * Play a line of moves, each of which must be legal.
+     * @return long the board after the line
+     */
+    private static long replay( BoardGeometry geometry, long board, int[] line ) {
+        for( int move : line ) {
+            assertTrue( geometry.isLegal(board, move), "move " + move + " on " + Long.toHexString(board) );
+            board = geometry.apply( board, move );
+        }
+
+        return board;
+    }
+
+    /**
+     * Answer whether some order of jumps leaves one peg, on one of the target holes.
+     */
+    private static boolean bruteForce( BoardGeometry geometry, long board, long targets ) {
+        int[] moves = new int[BoardGeometry.MAX_MOVES];
+        int   n     = geometry.generateMoves( board, moves );
+
+        if ( Long.bitCount(board) == 1 )
+            return (board & targets) != 0L;
+        for( int i = 0; i < n; i++ ) {
+            if ( bruteForce(geometry, geometry.apply(board, moves[i]), targets) )
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * A board of pegs within two rows and columns of a random hole, so that most of them can jump.
+     */
+    private static long randomBoard( BoardGeometry geometry, SplittableRandom random, int pegs ) {
+        long valid = geometry.getValid();
+        long near  = 0L;
+        long board = 0L;
+        int  hole;
+
+        do {
+            hole = random.nextInt( Long.SIZE );
+        } while( (valid & (1L << hole)) == 0L );
+        for( int bit = 0; bit < Long.SIZE; bit++ ) {
+            if ( ((valid & (1L << bit)) != 0L)
+                    && (Math.abs(geometry.rowOf(bit) - geometry.rowOf(hole)) <= 2)
+                    && (Math.abs(geometry.columnOf(bit) - geometry.columnOf(hole)) <= 2) )
+                near |= 1L << bit;
+        }
+
+        while( Long.bitCount(board) < Math.min(pegs, Long.bitCount(near)) ) {
+            int bit = random.nextInt( Long.SIZE );
+            if ( (near & (1L << bit)) != 0L )
+                board |= 1L << bit;
+        }
+
+        return board;
+    }
+}
@@ -0,0 +1,47 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the starting positions: every configuration starts with the
+ * pegs of its picture, and a game reports that count.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class SolitaireCheckersTemplateTest {
+
+    @Test
+    public void configurationsStartWithTheirPegs() {
+        assertPegs( SolitaireCheckersConfigurations.Solitaire, 32 );
+        assertPegs( SolitaireCheckersConfigurations.Arrow, 17 );
+        assertPegs( SolitaireCheckersConfigurations.Cross, 6 );
+        assertPegs( SolitaireCheckersConfigurations.Diamond, 24 );
+        assertPegs( SolitaireCheckersConfigurations.DoubleArrow, 21 );
+        assertPegs( SolitaireCheckersConfigurations.Fireplace, 11 );
+        assertPegs( SolitaireCheckersConfigurations.Plus, 9 );
+        assertPegs( SolitaireCheckersConfigurations.Pyramid, 16 );
+    }
+
+    @Test
+    public void standardStartsLeaveOneHole() {
+        for( BoardGeometry geometry : new BoardGeometry[] { BoardGeometry.ENGLISH, BoardGeometry.EUROPEAN,
+                                                            BoardGeometry.TRIANGULAR_15 } ) {
+            SolitaireCheckersTemplate start = SolitaireCheckersTemplate.of( geometry );
+            assertEquals( geometry.getHoles() - 1, start.getNumberOfPegs(), geometry.getName() );
+            assertEquals( Long.bitCount(start.getBoard()), start.getNumberOfPegs() );
+        }
+    }
+
+    private static void assertPegs( SolitaireCheckersConfigurations configuration, int pegs ) {
+        SolitaireCheckersTemplate start = SolitaireCheckersTemplate.of( configuration );
+        SolitaireCheckersModel    model = new SolitaireCheckersModel( configuration );
+
+        assertEquals( pegs, start.getNumberOfPegs(), configuration.name() );
+        assertEquals( pegs, Long.bitCount(start.getBoard()), configuration.name() );
+        assertEquals( pegs, model.getNumberOfStartingPegs(), configuration.name() );
+        assertEquals( pegs, model.getNumberOfPegs(), configuration.name() );
+    }
+}
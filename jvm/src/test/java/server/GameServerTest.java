@@ -0,0 +1,151 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.BoardGeometry;
+import model.SolitaireCheckersTemplate;
+
+/**
+ * Tests of GameServer over loopback sockets, on virtual threads where the
+ * runtime has them and on platform threads.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class GameServerTest {
+
+    private SessionManager sessions;
+    private GameServer     server;
+
+    @BeforeEach
+    public void start() throws IOException {
+        sessions = new SessionManager( BoardGeometry.ENGLISH, 16, 3600 );
+        server   = new GameServer( sessions, 0 );
+        server.start();
+    }
+
+    @AfterEach
+    public void stop() throws IOException {
+        server.stop();
+        sessions.shutdown();
+    }
+
+    @Test
+    public void answersRequests() throws IOException {
+        try ( Socket client = this.connect();
+              BufferedReader in = reader(client);
+              Writer out = writer(client) ) {
+            BoardGeometry geometry = BoardGeometry.ENGLISH;
+            long          board    = SolitaireCheckersTemplate.of( geometry ).getBoard();
+            String        start    = Long.toHexString( board );
+            /* row 4, column 2 counted from 1 is the model's (3,1), whose only jump is to the center */
+            long          played   = geometry.apply( board, geometry.moveCode(geometry.bit(3, 1), BoardGeometry.RIGHT) );
+
+            assertEquals( "NONE " + start + " UNFINISHED", request(in, out, "board") );
+            assertEquals( "PLAYED " + Long.toHexString(played) + " UNFINISHED", request(in, out, "jump 4 2") );
+            assertEquals( "NONE " + start + " UNFINISHED", request(in, out, "reset") );
+            assertTrue( request(in, out, "jump 0 1").startsWith("ERROR ") );
+            assertTrue( request(in, out, "jump 8 1").startsWith("ERROR ") );
+            assertTrue( request(in, out, "jump 1 4").startsWith("ERROR "), "row 1 has 3 holes" );
+            assertTrue( request(in, out, "jump 9 9").startsWith("ERROR ") );
+            assertTrue( request(in, out, "fly").startsWith("ERROR ") );
+        }
+    }
+
+    @Test
+    public void servesOnVirtualThreadsFromJava21() throws IOException {
+        assertEquals( Runtime.version().feature() >= 21, server.isVirtual() );
+        assertEquals( server.isVirtual(), GameServer.virtualThreadPerTaskExecutor() != null );
+        this.assertServes( server );
+    }
+
+    @Test
+    public void servesOnPlatformThreads() throws IOException {
+        GameServer platform = new GameServer( sessions, 0, null );
+
+        platform.start();
+        try {
+            assertFalse( platform.isVirtual() );
+            this.assertServes( platform );
+        } finally {
+            platform.stop();
+        }
+    }
+
+    /**
+     * A player blocked reading must be disconnected by stop(), whatever
+     * threads serve the connections.
+     */
+    @Test
+    public void stopClosesOpenConnections() throws Exception {
+        try ( Socket client = this.connect();
+              BufferedReader in = reader(client);
+              Writer out = writer(client) ) {
+            request( in, out, "board" );   // the connection is being served
+            assertEquals( 1, server.getConnections() );
+
+            client.setSoTimeout( 5000 );
+            server.stop();
+            try {
+                assertNull( in.readLine() );
+            } catch( SocketException e ) {
+                // reset rather than closed: disconnected all the same
+            }
+        }
+        for( int i = 0; (i < 100) && (server.getConnections() > 0); i++ )
+            Thread.sleep( 10L );
+        assertEquals( 0, server.getConnections() );
+        assertEquals( 0, sessions.size() );
+    }
+
+    /**
+     * Play a move on a connection to a server, and quit.
+     */
+    private void assertServes( GameServer served ) throws IOException {
+        try ( Socket client = new Socket(InetAddress.getLoopbackAddress(), served.getPort());
+              BufferedReader in = reader(client);
+              Writer out = writer(client) ) {
+            assertTrue( request(in, out, "jump 4 2").startsWith("PLAYED ") );
+            out.write( "quit\n" );
+            out.flush();
+            assertNull( in.readLine() );
+        }
+    }
+
+    private Socket connect() throws IOException {
+        return new Socket( InetAddress.getLoopbackAddress(), server.getPort() );
+    }
+
+    private static BufferedReader reader( Socket client ) throws IOException {
+        return new BufferedReader( new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII) );
+    }
+
+    private static Writer writer( Socket client ) throws IOException {
+        return new OutputStreamWriter( client.getOutputStream(), StandardCharsets.US_ASCII );
+    }
+
+    private static String request( BufferedReader in, Writer out, String request ) throws IOException {
+        out.write( request );
+        out.write( '\n' );
+        out.flush();
+
+        return in.readLine();
+    }
+}
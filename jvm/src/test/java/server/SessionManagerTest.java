@@ -0,0 +1,244 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import analysis.ReplayResult;
+import model.BoardGeometry;
+import model.SolitaireCheckersConfigurations;
+import model.SolitaireCheckersTemplate;
+
+/**
+ * Tests of SessionManager: sessions do not see one another's games, and
+ * the id of a closed or evicted session is refused once its slot is
+ * reused, by one thread or by several at once.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+public class SessionManagerTest {
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.ENGLISH;
+    private static final long          START    = SolitaireCheckersTemplate.of( GEOMETRY ).getBoard();
+
+    private final List<SessionManager> managers = new ArrayList<SessionManager>();
+
+    @AfterEach
+    public void shutdown() {
+        for( SessionManager manager : managers )
+            manager.shutdown();
+    }
+
+    @Test
+    public void sessionsAreIsolated() {
+        SessionManager manager = this.manager( 16, 3600 );
+        long           first   = manager.open();
+        long           second  = manager.open( SolitaireCheckersConfigurations.Diamond );
+        int            move    = firstMove( START );
+
+        assertEquals( SessionManager.PLAYED, manager.play(first, move) );
+        assertEquals( GEOMETRY.apply(START, move), manager.board(first) );
+        assertEquals( SolitaireCheckersTemplate.of(SolitaireCheckersConfigurations.Diamond).getBoard(),
+                      manager.board(second) );
+        assertTrue( manager.reset(first) );
+        assertEquals( START, manager.board(first) );
+        assertEquals( 2, manager.size() );
+    }
+
+    @Test
+    public void illegalMovesAndTapsAreIgnored() {
+        SessionManager manager = this.manager( 4, 3600 );
+        long           session = manager.open();
+        int            center  = GEOMETRY.bit( 3, 3 );
+
+        assertEquals( SessionManager.IGNORED, manager.play(session, -1) );
+        assertEquals( SessionManager.IGNORED, manager.play(session, GEOMETRY.getMoves()) );
+        assertEquals( SessionManager.IGNORED, manager.tap(session, center) );   // a hole, no peg tapped yet
+        assertEquals( SessionManager.IGNORED, manager.tap(session, 0) );        // off the board
+        assertEquals( START, manager.board(session) );
+        assertEquals( ReplayResult.UNFINISHED, manager.status(session) );
+    }
+
+    @Test
+    public void tapsPlayAsTheAppDoes() {
+        SessionManager manager = this.manager( 4, 3600 );
+        long           session = manager.open();
+        int            peg     = GEOMETRY.bit( 3, 1 );
+        int            center  = GEOMETRY.bit( 3, 3 );
+
+        /* (3,1) has one jump, to the center */
+        assertEquals( SessionManager.PLAYED, manager.tap(session, peg) );
+        assertEquals( 0L, manager.board(session) & (1L << peg) );
+        assertTrue( (manager.board(session) & (1L << center)) != 0L );
+    }
+
+    @Test
+    public void closedSessionIsRefusedAfterItsSlotIsReused() {
+        SessionManager manager = this.manager( 1, 3600 );
+        long           closed  = manager.open();
+        long           reused;
+
+        assertTrue( manager.close(closed) );
+        assertFalse( manager.close(closed) );
+        reused = manager.open();
+        assertEquals( (int) closed, (int) reused );   // the same slot, a later generation
+        assertNotEquals( closed, reused );
+
+        assertEquals( SessionManager.NO_BOARD, manager.board(closed) );
+        assertEquals( SessionManager.UNKNOWN_SESSION, manager.play(closed, firstMove(START)) );
+        assertEquals( SessionManager.UNKNOWN_SESSION, manager.tap(closed, GEOMETRY.bit(3, 1)) );
+        assertFalse( manager.reset(closed) );
+        assertFalse( manager.close(closed) );
+        assertEquals( -1, manager.status(closed) );
+        assertEquals( START, manager.board(reused) );
+        assertEquals( 1, manager.size() );
+    }
+
+    @Test
+    public void fullManagerOpensNoSession() {
+        SessionManager manager = this.manager( 2, 3600 );
+        long           first   = manager.open();
+
+        assertNotEquals( SessionManager.NO_SESSION, manager.open() );
+        assertEquals( SessionManager.NO_SESSION, manager.open() );
+        assertTrue( manager.close(first) );
+        assertNotEquals( SessionManager.NO_SESSION, manager.open() );
+        assertEquals( SessionManager.NO_SESSION, manager.open() );
+    }
+
+    @Test
+    public void idCannotNameASlotOutsideTheManager() {
+        SessionManager manager = this.manager( 2, 3600 );
+
+        assertEquals( SessionManager.NO_BOARD, manager.board(5L) );
+        assertEquals( SessionManager.NO_BOARD, manager.board(SessionManager.NO_SESSION) );
+        assertEquals( SessionManager.UNKNOWN_SESSION, manager.play(-7L, 0) );
+    }
+
+    @Test
+    public void evictedSessionIsRefused() throws InterruptedException {
+        SessionManager manager = this.manager( 1, 1 );
+        long           idle    = manager.open();
+        long           next;
+
+        manager.shutdown();   // evict by hand, not by the sweep
+        assertEquals( 0, manager.evictIdle() );
+        Thread.sleep( 2100L );
+        assertEquals( 1, manager.evictIdle() );
+        assertEquals( 0, manager.size() );
+        assertEquals( SessionManager.NO_BOARD, manager.board(idle) );
+        assertEquals( SessionManager.UNKNOWN_SESSION, manager.play(idle, firstMove(START)) );
+
+        next = manager.open();
+        assertNotEquals( SessionManager.NO_SESSION, next );
+        assertNotEquals( idle, next );
+        assertEquals( START, manager.board(next) );
+    }
+
+    /**
+     * Four threads open, play and close games on fewer slots than they use
+     * in all, so slots are reused all the time; each thread checks that its
+     * sessions hold exactly the moves it played and that the ids it closed
+     * stay closed.
+     */
+    @Test
+    public void concurrentSessionsAreIsolated() throws Exception {
+        SessionManager        manager = this.manager( 24, 3600 );
+        ExecutorService       threads = Executors.newFixedThreadPool( 4 );
+        List<Future<Integer>> parts   = new ArrayList<Future<Integer>>();
+        int                   games   = 0;
+
+        for( int t = 0; t < 4; t++ ) {
+            long seed = 0x9E3779B97F4A7C15L * (t + 1);
+            parts.add( threads.submit(() -> play(manager, seed, 2000)) );
+        }
+        for( Future<Integer> part : parts )
+            games += part.get();
+        threads.shutdown();
+
+        assertEquals( 4 * 2000, games );
+        assertEquals( 0, manager.size() );
+    }
+
+    /**
+     * Play games on a manager, a few sessions at a time.
+     * @return int the number of games played
+     */
+    private static int play( SessionManager manager, long seed, int games ) {
+        SplittableRandom random = new SplittableRandom( seed );
+        int[]            moves  = new int[BoardGeometry.MAX_MOVES];
+        long[]           open   = new long[8];
+        long[]           boards = new long[open.length];
+        long[]           closed = new long[open.length];
+        int              played = 0;
+
+        Arrays.fill( open, SessionManager.NO_SESSION );
+        Arrays.fill( closed, SessionManager.NO_SESSION );
+        while( played < games ) {
+            int  i     = random.nextInt( open.length );
+            long board = boards[i];
+            int  n;
+            int  move;
+
+            if ( open[i] == SessionManager.NO_SESSION ) {
+                open[i] = manager.open();
+                if ( open[i] == SessionManager.NO_SESSION )
+                    Thread.yield();
+                /* the slot may be the closed session's, now someone else's */
+                assertEquals( SessionManager.NO_BOARD, manager.board(closed[i]) );
+                boards[i] = START;
+                continue;
+            }
+
+            assertEquals( board, manager.board(open[i]) );
+            n = GEOMETRY.generateMoves( board, moves );
+            if ( (n == 0) || (random.nextInt(16) == 0) ) {
+                assertTrue( manager.close(open[i]) );
+                assertEquals( SessionManager.NO_BOARD, manager.board(open[i]) );
+                assertEquals( SessionManager.UNKNOWN_SESSION, manager.play(open[i], firstMove(START)) );
+                closed[i] = open[i];
+                open[i]   = SessionManager.NO_SESSION;
+                played++;
+                continue;
+            }
+            move = moves[random.nextInt( n )];
+            assertEquals( SessionManager.PLAYED, manager.play(open[i], move) );
+            boards[i] = GEOMETRY.apply( board, move );
+        }
+        for( long session : open ) {
+            if ( session != SessionManager.NO_SESSION )
+                assertTrue( manager.close(session) );
+        }
+
+        return played;
+    }
+
+    private SessionManager manager( int capacity, int idleSeconds ) {
+        SessionManager manager = new SessionManager( GEOMETRY, capacity, idleSeconds );
+
+        managers.add( manager );
+
+        return manager;
+    }
+
+    private static int firstMove( long board ) {
+        int[] moves = new int[BoardGeometry.MAX_MOVES];
+
+        GEOMETRY.generateMoves( board, moves );
+
+        return moves[0];
+    }
+}
@@ -0,0 +1,121 @@
+package com.algonquincollege.four0126.solitairecheckers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import model.SolitaireCheckersAdvisor;
+import model.SolitaireCheckersHint;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+/**
+ * Runs hint analysis on a background thread and posts each result back to
+ * the main thread.
+ *
+ * Only the latest request counts: a new request cancels the pending one,
+ * and a result arriving after a newer request (or after shutdown) is
+ * dropped. Analysis works on a copy of the board, never on the model, so
+ * the model stays confined to the main thread. Every method must be called
+ * from the main thread.
+ *
+ * @author Alex Fournier - four0126@algonquinlive.com
+ * @version 1.0
+ */
+final class AnalysisExecutor {
+
+	/**
+	 * Receives analysis results on the main thread.
+	 */
+	interface Callback {
+		/* The hint of the latest requested board. */
+		void analysed(SolitaireCheckersHint hint);
+	}
+
+	private final ExecutorService executor;
+	private final Handler handler;
+	private final Callback callback;
+	// bumped by every request, so older results can be recognised
+	private int generation;
+	private Future<?> pending;
+	private boolean shutdown;
+
+	/**
+	 * Creates an executor with one low priority worker thread.
+	 * @param Callback callback
+	 */
+	AnalysisExecutor(Callback callback) {
+		this.callback = callback;
+		this.handler = new Handler(Looper.getMainLooper());
+		this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+						runnable.run();
+					}
+				}, "analysis");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Cancel the pending request, if any.
+	 */
+	void cancel() {
+		generation++;
+		if (pending != null) {
+			pending.cancel(false);
+			pending = null;
+		}
+	}
+
+	/**
+	 * Analyse board, replacing any pending request.
+	 * @param SolitaireCheckersAdvisor advisor of the board's geometry
+	 * @param long board
+	 */
+	void request(final SolitaireCheckersAdvisor advisor, final long board) {
+		final int requested;
+
+		if (shutdown) {
+			return;
+		}
+		this.cancel();
+		requested = generation;
+
+		pending = executor.submit(new Runnable() {
+			@Override
+			public void run() {
+				final SolitaireCheckersHint hint = advisor.getHint(board);
+
+				handler.post(new Runnable() {
+					@Override
+					public void run() {
+						if (!shutdown && requested == generation) {
+							pending = null;
+							callback.analysed(hint);
+						}
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Stop the worker thread and drop every result not yet delivered.
+	 */
+	void shutdown() {
+		this.cancel();
+		shutdown = true;
+		executor.shutdownNow();
+		handler.removeCallbacksAndMessages(null);
+	}
+}
@@ -15,13 +15,15 @@
 /*******************************************************************/
 package com.algonquincollege.four0126.solitairecheckers;
 
-import java.util.Observable;
-import java.util.Observer;
-
+import model.BoardChangeEvent;
+import model.BoardChangeListener;
+import model.BoardGeometry;
 import model.SolitaireCheckersConstants;
+import model.SolitaireCheckersHint;
 import model.SolitaireCheckersModel;
 
 import android.os.Bundle;
+import android.app.ActionBar;
 import android.app.Activity;
 import android.app.AlertDialog;
 import android.app.Dialog;
@@ -43,8 +45,8 @@ import android.widget.Toast;
  * @author Alex Fournier - four0126@algonquinlive.com
  * @version 1.0
  */
-public class MainActivity extends Activity implements Observer,
-		OnItemSelectedListener {
+public class MainActivity extends Activity implements BoardChangeListener,
+		OnItemSelectedListener, AnalysisExecutor.Callback {
 
 	private static final int INFO_DIALOG = 10;
 
@@ -54,7 +56,11 @@ public class MainActivity extends Activity implements Observer,
 	private Dialog infoDialog;
 	private SolitaireCheckersModel model;
 	private ProgressBar progressBar;
-	private ImageView imageView;
+	// cell views indexed by bitboard bit (see BoardGeometry), resolved once
+	private ImageView[] cells;
+	// hints are worked out off the main thread, see requestAnalysis()
+	private AnalysisExecutor analysis;
+	private long analysedBoard;
 
 	// CONSTROCTORS
 
@@ -67,9 +73,14 @@ public class MainActivity extends Activity implements Observer,
 		super.onCreate(savedInstanceState);
 		setContentView(R.layout.activity_main);
 
-		// register this activity as an Observer of the model
+		// resolve every cell view once
+		this.findCells();
+
+		analysis = new AnalysisExecutor(this);
+
+		// register this activity as a listener of the model
 		model = new SolitaireCheckersModel();
-		model.addObserver(this);
+		model.addBoardChangeListener(this);
 
 		infoDialog = onCreateDialog(INFO_DIALOG);
 		progressBar = (ProgressBar) findViewById(R.id.progressBar);
@@ -84,6 +95,72 @@ public class MainActivity extends Activity implements Observer,
 		this.updateView();
 	}
 
+	/**
+	 * Stop the analysis thread with the activity.
+	 */
+	@Override
+	protected void onDestroy() {
+		analysis.shutdown();
+		model.removeBoardChangeListener(this);
+		super.onDestroy();
+	}
+
+	/**
+	 * Show the hint of the current board in the action bar.
+	 * @param SolitaireCheckersHint hint
+	 */
+	@Override
+	public void analysed(SolitaireCheckersHint hint) {
+		if (!hint.isKnown()) {
+			this.showAnalysis(getString(R.string.hintUnknown));
+		} else if (hint.isLost()) {
+			this.showAnalysis(getString(R.string.hintLost));
+		} else if (hint.hasMove()) {
+			// 1 based, as the model's status names pegs
+			this.showAnalysis(getString(
+					hint.isWinnableIdeal() ? R.string.hintWinnableIdeal
+							: R.string.hintWinnable, hint.getFromRow() + 1,
+					hint.getFromColumn() + 1, hint.getToRow() + 1,
+					hint.getToColumn() + 1));
+		} else {
+			this.showAnalysis(null);
+		}
+	}
+
+	/**
+	 * Repaint the cells that changed, then the progress and win or loss.
+	 * @param BoardChangeEvent event
+	 */
+	@Override
+	public void boardChanged(BoardChangeEvent event) {
+		this.updateCells(event.getChangedCells(), event.getPossibleJumpCells());
+		this.updateProgress();
+		this.updateWinOrLoss();
+		this.requestAnalysis();
+	}
+
+	/**
+	 * Look up the view of every cell, once, and tag it with its bit.
+	 */
+	private void findCells() {
+		Resources res = getResources();
+		String packageName = getBaseContext().getPackageName();
+		// the layout is the English board
+		BoardGeometry english = BoardGeometry.ENGLISH;
+
+		cells = new ImageView[english.getRows() * BoardGeometry.STRIDE];
+		for (int i = 0; i < english.getRows(); i++) {
+			for (int j = 0; j < english.widthOf(i); j++) {
+				int bit = english.bit(i, j);
+				int id = res.getIdentifier("r" + i + "c" + j, "id",
+						packageName);
+
+				cells[bit] = (ImageView) findViewById(id);
+				cells[bit].setTag(Integer.valueOf(bit));
+			}
+		}
+	}
+
 	/**
 	 * checking for action options.
 	 * @param Menu menu
@@ -130,11 +207,10 @@ public class MainActivity extends Activity implements Observer,
 	 * @param view v
 	 */
 	public void handlePeg(View v) {
-		String name = getResources().getResourceEntryName(v.getId());
-
 		// GET which view object was clicked
-		int r = name.charAt(1) - '0';
-		int c = name.charAt(3) - '0';
+		int bit = ((Integer) v.getTag()).intValue();
+		int r = model.getGeometry().rowOf(bit);
+		int c = model.getGeometry().columnOf(bit);
 
 		if (model.isPegAt(r, c)) {
 			model.jumpPegAt(r, c);
@@ -200,73 +276,61 @@ public class MainActivity extends Activity implements Observer,
 	}
 
 	/**
-	 * Update view
-	 * @param obsevable
-	 * @param data
-	 * @see updateView()
-	 */
-	@Override
-	public void update(Observable observable, Object object) {
-		this.updateView();
-	}
-
-	/**
-	 * Loop and update board. Change image state. Option for multiple jumps
+	 * Repaint the cells of mask: peg or no peg, and the multiple jumps
+	 * highlight.
+	 * @param long mask of the cells to repaint
+	 * @param long mask of the multiple jumps cells
 	 */
-	private void updateBoard() {
-		int row;
-		int col;
-
-		int id;
-		imageView = null;
-		Resources res = getResources();
-
-		for (int i = 0; i < model.getBoardLength(); i++) {
-			for (int j = 0; j < model.getBoardLengthAt(i); j++) {
-
-				String StringId = "r" + i + "c" + j;
-
-				id = res.getIdentifier(StringId, "id", getBaseContext()
-						.getPackageName());
-
-				imageView = (ImageView) findViewById(id);
+	private void updateCells(long mask, long possibleJumpCells) {
+		long board = model.getBitboard();
+
+		while (mask != 0L) {
+			int bit = Long.numberOfTrailingZeros(mask);
+			long cell = 1L << bit;
+			ImageView imageView = cells[bit];
+			mask &= mask - 1;
+
+			if ((possibleJumpCells & cell) != 0L) {
+				imageView.setBackgroundResource(R.color.multipleJumps);
+				imageView.setEnabled(true);
+				imageView.setClickable(true);
+			} else {
 				imageView.setBackgroundResource(R.color.background);
+				imageView.setEnabled((board & cell) != 0L);
+			}
 
-				// imageView.setClickable(false);
-				imageView.setEnabled(false);
-
-				if (model.isPegAt(i, j) == true) {
-					imageView.setEnabled(true);
-					imageView.setImageResource(R.drawable.peg);
-
-				} else {
-					imageView.setImageResource(R.drawable.nopeg);
-				}
+			if ((board & cell) != 0L) {
+				imageView.setImageResource(R.drawable.peg);
+			} else {
+				imageView.setImageResource(R.drawable.nopeg);
 			}
 		}
+	}
 
-		// special update condition: multiple jumps
-		if (model.hasMultipleJumps() == true) {
-			int[][] possibleJumps;
-			possibleJumps = model.getPossibleJumps();
-
-			for (int i = 0; i < possibleJumps.length; i++) {
-				if (possibleJumps[i][SolitaireCheckersModel.ROW] != SolitaireCheckersModel.ILLEGAL_JUMP
-						&& possibleJumps[i][SolitaireCheckersModel.COLUMN] != SolitaireCheckersModel.ILLEGAL_JUMP) {
-
-					row = possibleJumps[i][SolitaireCheckersModel.ROW];
+	/**
+	 * Ask for the hint of the current board, replacing any pending request,
+	 * unless the board is the one last asked about (selecting a peg).
+	 * Analysis runs on a copy of the board, so taps never wait on it.
+	 */
+	private void requestAnalysis() {
+		long board = model.getBitboard();
 
-					col = possibleJumps[i][SolitaireCheckersModel.COLUMN];
+		if (board != analysedBoard) {
+			analysedBoard = board;
+			this.showAnalysis(getString(R.string.hintThinking));
+			analysis.request(model.getAdvisor(), board);
+		}
+	}
 
-					id = getResources().getIdentifier("r" + row + "c" + col,
-							"id", getBaseContext().getPackageName());
+	/**
+	 * Show an analysis result under the title.
+	 * @param String text, or null for none
+	 */
+	private void showAnalysis(String text) {
+		ActionBar actionBar = getActionBar();
 
-					imageView = (ImageView) findViewById(id);
-					imageView.setBackgroundResource(R.color.multipleJumps);
-					imageView.setEnabled(true);
-					imageView.setClickable(true);
-				}
-			}
+		if (actionBar != null) {
+			actionBar.setSubtitle(text);
 		}
 	}
 
@@ -282,15 +346,16 @@ public class MainActivity extends Activity implements Observer,
 	}
 
 	/**
-	 * updateView: board, progressBar, win or loss
-	 * @see updateBoard()
+	 * updateView: every cell, progressBar, win or loss
+	 * @see updateCells()
 	 * @see updateProgress()
 	 * @see updateWinOrLose()
 	 */
 	public void updateView() {
-		this.updateBoard();
+		this.updateCells(model.getGeometry().getValid(), 0L);
 		this.updateProgress();
 		this.updateWinOrLoss();
+		this.requestAnalysis();
 	}
 
 	/**
@@ -0,0 +1,237 @@
+package model;
+
+/**
+ * Fixed capacity, least recently used map of long keys to int values (no
+ * boxing, no allocation after construction). Used to remember analysed
+ * positions by board.
+ *
+ * Entries live in parallel arrays: chained through buckets for lookup and
+ * doubly linked in order of use, most recent first. Once full, putting a
+ * new key reuses the entry of the least recently used one.
+ *
+ * A cache is not thread-safe.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class AnalysisCache {
+
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    private static final int NONE = -1;
+
+    private final long[] keys;
+    private final int[]  values;
+    private final int[]  chain;
+    private final int[]  previous;
+    private final int[]  next;
+    private final int[]  buckets;
+    private final int    mask;
+    private int          size;
+    private int          head;
+    private int          tail;
+    private long         hits;
+    private long         misses;
+    private long         evictions;
+
+
+    /**
+     * Creates a cache of at most capacity entries.
+     * @param int capacity, at least 1
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public AnalysisCache( int capacity ) {
+        int length = 1;
+
+        if ( capacity < 1 )
+            throw new IllegalArgumentException( "capacity must be at least 1: " + capacity );
+
+        while( length < 2 * capacity )
+            length <<= 1;
+
+        this.keys     = new long[capacity];
+        this.values   = new int[capacity];
+        this.chain    = new int[capacity];
+        this.previous = new int[capacity];
+        this.next     = new int[capacity];
+        this.buckets  = new int[length];
+        this.mask     = length - 1;
+        this.clear();
+    }
+
+    /**
+     * Remove every entry. The counters are kept.
+     */
+    public void clear() {
+        java.util.Arrays.fill( buckets, NONE );
+        size = 0;
+        head = NONE;
+        tail = NONE;
+    }
+
+    /**
+     * Get the value of key, making it the most recently used.
+     * @param long key
+     * @return int the value, or MISSING when key is not cached
+     */
+    public int get( long key ) {
+        int entry = this.find( key );
+
+        if ( entry == NONE ) {
+            misses++;
+            return MISSING;
+        }
+
+        hits++;
+        this.moveToFront( entry );
+
+        return values[entry];
+    }
+
+    /**
+     * Get the maximum number of entries.
+     * @return int the capacity
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Get the number of entries dropped to make room for new ones.
+     * @return long the number of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get the number of gets that found their key.
+     * @return long the number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of gets that did not find their key.
+     * @return long the number of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Set the value of key, making it the most recently used. When the
+     * cache is full, the least recently used entry is dropped.
+     * @param long key
+     * @param int value, not MISSING
+     */
+    public void put( long key, int value ) {
+        int entry = this.find( key );
+
+        if ( entry == NONE ) {
+            if ( size < keys.length ) {
+                entry = size++;
+            } else {
+                entry = tail;
+                this.unlink( entry );
+                this.unchain( entry );
+                evictions++;
+            }
+            keys[entry]   = key;
+            chain[entry]  = buckets[this.bucketOf( key )];
+            buckets[this.bucketOf( key )] = entry;
+            this.linkFirst( entry );
+        } else {
+            this.moveToFront( entry );
+        }
+
+        values[entry] = value;
+    }
+
+    /**
+     * Get the number of entries.
+     * @return int the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return this cache's counters as a string.
+     * @return String
+     */
+    @Override
+    public String toString() {
+        StringBuffer s;
+
+        s = new StringBuffer( "cache " );
+        s.append( size );
+        s.append( '/' );
+        s.append( keys.length );
+        s.append( ", " );
+        s.append( hits );
+        s.append( " hits, " );
+        s.append( misses );
+        s.append( " misses, " );
+        s.append( evictions );
+        s.append( " evictions" );
+
+        return s.toString();
+    }
+
+    private int bucketOf( long key ) {
+        return LongHashSet.index( key ) & mask;
+    }
+
+    private int find( long key ) {
+        int entry = buckets[this.bucketOf( key )];
+
+        while( (entry != NONE) && (keys[entry] != key) )
+            entry = chain[entry];
+
+        return entry;
+    }
+
+    private void linkFirst( int entry ) {
+        previous[entry] = NONE;
+        next[entry]     = head;
+        if ( head != NONE )
+            previous[head] = entry;
+        head = entry;
+        if ( tail == NONE )
+            tail = entry;
+    }
+
+    private void moveToFront( int entry ) {
+        if ( entry != head ) {
+            this.unlink( entry );
+            this.linkFirst( entry );
+        }
+    }
+
+    private void unchain( int entry ) {
+        int bucket = this.bucketOf( keys[entry] );
+        int at     = buckets[bucket];
+
+        if ( at == entry ) {
+            buckets[bucket] = chain[entry];
+            return;
+        }
+        while( chain[at] != entry )
+            at = chain[at];
+        chain[at] = chain[entry];
+    }
+
+    private void unlink( int entry ) {
+        if ( previous[entry] == NONE )
+            head = next[entry];
+        else
+            next[previous[entry]] = next[entry];
+
+        if ( next[entry] == NONE )
+            tail = previous[entry];
+        else
+            previous[next[entry]] = previous[entry];
+    }
+}
@@ -0,0 +1,90 @@
+package model;
+
+/**
+ * What changed on a SolitaireCheckersModel since its previous event.
+ *
+ * Cells are given as bitboard masks (see BoardGeometry). A cell changes when a
+ * peg arrives or leaves, or when it starts or stops being the landing
+ * cell of a multiple jump.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class BoardChangeEvent {
+
+    private final SolitaireCheckersModel source;
+    private final long                   changedCells;
+    private final long                   possibleJumpCells;
+    private final int                    pegsRemoved;
+    private final String                 status;
+
+
+    /**
+     * Creates an event.
+     * @param SolitaireCheckersModel the model that changed
+     * @param long mask of the changed cells
+     * @param long mask of the current multiple jump landing cells
+     * @param int number of pegs removed (negative when pegs came back)
+     * @param String the model's status
+     */
+    public BoardChangeEvent( SolitaireCheckersModel source, long changedCells,
+                             long possibleJumpCells, int pegsRemoved, String status ) {
+        this.source            = source;
+        this.changedCells      = changedCells;
+        this.possibleJumpCells = possibleJumpCells;
+        this.pegsRemoved       = pegsRemoved;
+        this.status            = status;
+    }
+
+    /**
+     * Get the mask of the cells that changed.
+     * @return long the changed cells
+     */
+    public long getChangedCells() {
+        return changedCells;
+    }
+
+    /**
+     * Get the number of pegs removed since the previous event.
+     * @return int the number of pegs removed
+     */
+    public int getPegsRemoved() {
+        return pegsRemoved;
+    }
+
+    /**
+     * Get the mask of the cells a peg with multiple jumps can land on.
+     * @return long the landing cells, 0 when there is no multiple jump
+     */
+    public long getPossibleJumpCells() {
+        return possibleJumpCells;
+    }
+
+    /**
+     * Get the model that changed.
+     * @return SolitaireCheckersModel the model
+     */
+    public SolitaireCheckersModel getSource() {
+        return source;
+    }
+
+    /**
+     * Get the model's status when the event was published.
+     * @return String the status
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Answer whether or not the cell at row, column changed.
+     * @param int row
+     * @param int column
+     * @return boolean true if the cell changed; otherwise, false
+     */
+    public boolean isChanged( int row, int column ) {
+        int bit = source.getGeometry().bit( row, column );
+
+        return (bit != BoardGeometry.NO_HOLE) && ((changedCells & (1L << bit)) != 0L);
+    }
+}
@@ -0,0 +1,16 @@
+package model;
+
+/**
+ * <<interface>> BoardChangeListener
+ * 
+ * Declares the method that objects interested in the changes of a
+ * SolitaireCheckersModel must implement.
+ * 
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public interface BoardChangeListener {
+
+	/* The board has changed: event describes what changed. */
+	public void boardChanged( BoardChangeEvent event );
+}
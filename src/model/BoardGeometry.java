@@ -0,0 +1,686 @@
+package model;
+
+/**
+ * Shape of a peg solitaire board, and every table the game needs on it.
+ *
+ * A board is described as data: the width of each row, the grid column of
+ * each row's first hole, the direction vectors a peg can jump along, the
+ * center (where an ideal game ends) and the starting vacancy. Holes are laid
+ * out on a grid of at most 8 rows with a stride of 8 bits per row, so
+ * hole (row, gridColumn) is bit (row * 8 + gridColumn); the eighth column
+ * is never a hole.
+ *
+ * Moves are encoded as (hole * directions + direction), where hole is the
+ * dense row-major index of the jumping peg. The from, over and to masks of every move, and the pegs able
+ * to jump in each direction, are precomputed once, so playing and
+ * generating moves is table lookups and shifts on any shape. A geometry
+ * has at most 256 move codes, so a move always fits in one byte.
+ *
+ * The rotations and reflections that map the board onto itself (8 for the
+ * English and European boards, 6 for the triangle) are found once, and
+ * every hole has a Zobrist key. Keys come from a fixed seed, so hashes are
+ * the same on every JVM and can be stored. A move changes the hash of a
+ * board's image under any symmetry by one precomputed key, so games can
+ * keep their hashes incrementally.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class BoardGeometry {
+
+    public static final int STRIDE       = 8;
+    public static final int MAX_ROWS     = 8;
+    public static final int MAX_COLUMNS  = STRIDE - 1;
+    public static final int MAX_MOVES    = 256;
+
+    public static final int UP           = 0;
+    public static final int RIGHT        = 1;
+    public static final int DOWN         = 2;
+    public static final int LEFT         = 3;
+    public static final int UP_LEFT      = 4;
+    public static final int DOWN_RIGHT   = 5;
+
+    public static final int NO_HOLE      = -1;
+    public static final int NO_DIRECTION = -1;
+    public static final int IDENTITY     = 0;
+
+    private static final long ZOBRIST_SEED = 0x2545F4914F6CDD1DL;
+    private static final int  ROW_PATTERNS = (1 << MAX_COLUMNS) - 1;
+
+    /* Row and column step of each direction, indexed as the constants above. */
+    private static final int[][] ORTHOGONAL = { {-1, 0}, {0, 1}, {1, 0}, {0, -1} };
+    private static final int[][] TRIANGULAR = { {-1, 0}, {0, 1}, {1, 0}, {0, -1}, {-1, -1}, {1, 1} };
+
+    /** The 33-hole English cross (the board of SolitaireCheckersConfigurations). */
+    public static final BoardGeometry ENGLISH = new BoardGeometry( "English",
+        new int[] { 3, 3, 7, 7, 7, 3, 3 },
+        new int[] { 2, 2, 0, 0, 0, 2, 2 },
+        ORTHOGONAL, 3, 3, 3, 3 );
+
+    /** The 37-hole European (French) board. */
+    public static final BoardGeometry EUROPEAN = new BoardGeometry( "European",
+        new int[] { 3, 5, 7, 7, 7, 5, 3 },
+        new int[] { 2, 1, 0, 0, 0, 1, 2 },
+        ORTHOGONAL, 3, 3, 2, 3 );
+
+    /** The 15-hole triangular board, rows left aligned on the grid. */
+    public static final BoardGeometry TRIANGULAR_15 = new BoardGeometry( "Triangular",
+        new int[] { 1, 2, 3, 4, 5 },
+        new int[] { 0, 0, 0, 0, 0 },
+        TRIANGULAR, 0, 0, 0, 0 );
+
+    private final String   name;
+    private final int      rows;
+    private final int      holes;
+    private final int      directions;
+    private final int      moves;
+    private final long     valid;
+    private final long     center;
+    private final long     start;
+
+    /* Package visible so the model and its tests can read the tables directly. */
+    final int[]            rowWidth;
+    final int[]            rowOffset;
+    final int[]            shift;
+    final long[]           jumpFrom;
+    final int[]            holeBit;
+    final int[]            bitHole;
+    final long[]           movePath;
+    final long[]           moveFlip;
+    final int[]            moveTo;
+    final long[]           moveNear;
+    final int[][]          symmetry;
+    final long[][][]       rowImage;
+    final long[]           zobrist;
+    final long[]           zobristMove;
+
+    /* Template of the standard start, built on first use by SolitaireCheckersTemplate.of;
+       templates are immutable, so a race only builds it twice. */
+    volatile SolitaireCheckersTemplate standard;
+
+
+    /**
+     * Creates a geometry and computes its tables.
+     * @param String name of the board
+     * @param int[] width of each row
+     * @param int[] grid column of the first hole of each row
+     * @param int[][] row and column step of each direction
+     * @param int row of the center
+     * @param int column (row relative) of the center
+     * @param int row of the starting vacancy
+     * @param int column (row relative) of the starting vacancy
+     * @throws IllegalArgumentException if the board does not fit the grid,
+     * or has more than MAX_MOVES move codes
+     */
+    public BoardGeometry( String name, int[] widths, int[] offsets, int[][] steps,
+                          int centerRow, int centerColumn, int startRow, int startColumn ) {
+        long mask = 0L;
+        int  hole = 0;
+
+        if ( (widths.length > MAX_ROWS) || (widths.length != offsets.length) )
+            throw new IllegalArgumentException( name + ": rows do not fit the grid" );
+
+        this.name       = name;
+        this.rows       = widths.length;
+        this.rowWidth   = widths.clone();
+        this.rowOffset  = offsets.clone();
+        this.directions = steps.length;
+        this.bitHole    = new int[Long.SIZE];
+        java.util.Arrays.fill( bitHole, NO_HOLE );
+
+        for( int row = 0; row < rows; row++ ) {
+            if ( (offsets[row] < 0) || (offsets[row] + widths[row] > MAX_COLUMNS) )
+                throw new IllegalArgumentException( name + ": row " + row + " does not fit the grid" );
+            hole += widths[row];
+        }
+
+        this.holes   = hole;
+        this.moves   = holes * directions;
+        this.holeBit = new int[holes];
+        if ( moves > MAX_MOVES )
+            throw new IllegalArgumentException( name + ": more than " + MAX_MOVES + " move codes" );
+
+        hole = 0;
+        for( int row = 0; row < rows; row++ ) {
+            for( int column = 0; column < widths[row]; column++ ) {
+                int bit = (row * STRIDE) + offsets[row] + column;
+                holeBit[hole] = bit;
+                bitHole[bit]  = hole;
+                mask |= 1L << bit;
+                hole++;
+            }
+        }
+        this.valid  = mask;
+        this.center = 1L << this.bit( centerRow, centerColumn );
+        this.start  = valid & ~(1L << this.bit( startRow, startColumn ));
+
+        this.shift    = new int[directions];
+        this.jumpFrom = new long[directions];
+        this.movePath = new long[moves];
+        this.moveFlip = new long[moves];
+        this.moveTo   = new int[moves];
+        this.moveNear = new long[moves];
+
+        for( int direction = 0; direction < directions; direction++ ) {
+            shift[direction] = (steps[direction][0] * STRIDE) + steps[direction][1];
+        }
+
+        for( int h = 0; h < holes; h++ ) {
+            int from       = holeBit[h];
+            int row        = from / STRIDE;
+            int gridColumn = from % STRIDE;
+            for( int direction = 0; direction < directions; direction++ ) {
+                int code = (h * directions) + direction;
+                int over = this.gridBit( row + steps[direction][0], gridColumn + steps[direction][1] );
+                int to   = this.gridBit( row + 2 * steps[direction][0], gridColumn + 2 * steps[direction][1] );
+
+                moveTo[code] = NO_HOLE;
+                if ( (over != NO_HOLE) && (to != NO_HOLE) ) {
+                    movePath[code] = (1L << from) | (1L << over);
+                    moveFlip[code] = movePath[code] | (1L << to);
+                    moveTo[code]   = to;
+                    jumpFrom[direction] |= 1L << from;
+                }
+            }
+        }
+
+        /* A move changes the jumps that pass through any of its three holes. */
+        for( int code = 0; code < moves; code++ ) {
+            long near = 0L;
+            for( int c = 0; c < moves; c++ ) {
+                if ( (moveFlip[c] & moveFlip[code]) != 0L )
+                    near |= 1L << holeBit[c / directions];
+            }
+            moveNear[code] = near;
+        }
+
+        this.symmetry    = this.findSymmetries();
+        this.rowImage    = this.rowImages();
+        this.zobrist     = new long[Long.SIZE];
+        this.zobristMove = new long[symmetry.length * moves];
+        for( int h = 0; h < holes; h++ ) {
+            zobrist[holeBit[h]] = mix( ZOBRIST_SEED + holeBit[h] );
+        }
+        for( int s = 0; s < symmetry.length; s++ ) {
+            for( int code = 0; code < moves; code++ ) {
+                zobristMove[(s * moves) + code] = this.hash( moveFlip[code], s );
+            }
+        }
+    }
+
+    /**
+     * Tabulate every symmetry a row at a time: the image of each of the
+     * 128 ways to peg a row's grid columns.
+     * @return long[][][] for each symmetry and row, the image of every row pattern
+     */
+    private long[][][] rowImages() {
+        long[][][] images = new long[symmetry.length][rows][ROW_PATTERNS + 1];
+
+        for( int s = 0; s < symmetry.length; s++ ) {
+            for( int row = 0; row < rows; row++ ) {
+                for( int pegs = 1; pegs <= ROW_PATTERNS; pegs++ ) {
+                    int  low = Integer.numberOfTrailingZeros( pegs );
+                    int  bit = (row * STRIDE) + low;
+                    long to  = (bitHole[bit] == NO_HOLE) ? 0L : 1L << symmetry[s][bit];
+
+                    images[s][row][pegs] = images[s][row][pegs & (pegs - 1)] | to;
+                }
+            }
+        }
+
+        return images;
+    }
+
+    /**
+     * Find every rotation and reflection of the grid that maps the holes
+     * onto the holes and every jump onto a jump. The identity comes first.
+     * @return int[][] for each symmetry, the image bit of every bit (NO_HOLE off the board)
+     */
+    private int[][] findSymmetries() {
+        java.util.List<int[]> found = new java.util.ArrayList<int[]>();
+
+        found.add( this.imageOf(1, 0, 0, 1) );
+
+        /* Every integer matrix (a b / c d) with entries -1 to 1. */
+        for( int m = 0; m < 81; m++ ) {
+            int[]   image = this.imageOf( (m % 3) - 1, ((m / 3) % 3) - 1, ((m / 9) % 3) - 1, ((m / 27) % 3) - 1 );
+            boolean known = (image == null);
+
+            for( int i = 0; (known == false) && (i < found.size()); i++ )
+                known = java.util.Arrays.equals( found.get(i), image );
+            if ( known == false )
+                found.add( image );
+        }
+
+        return found.toArray( new int[found.size()][] );
+    }
+
+    /**
+     * Map every hole (row, gridColumn) to (a row + b column, c row + d column),
+     * moved back onto the board's bounding box.
+     * @param int a
+     * @param int b
+     * @param int c
+     * @param int d
+     * @return int[] the image bit of every bit, or null when the map is
+     * not a symmetry of the board
+     */
+    private int[] imageOf( int a, int b, int c, int d ) {
+        int[] image     = new int[Long.SIZE];
+        int   minRow    = Integer.MAX_VALUE;
+        int   minColumn = Integer.MAX_VALUE;
+        int   rowShift;
+        int   columnShift;
+
+        if ( Math.abs((a * d) - (b * c)) != 1 )
+            return null;
+
+        for( int h = 0; h < holes; h++ ) {
+            int row    = holeBit[h] / STRIDE;
+            int column = holeBit[h] % STRIDE;
+            minRow    = Math.min( minRow, (a * row) + (b * column) );
+            minColumn = Math.min( minColumn, (c * row) + (d * column) );
+        }
+        rowShift    = (holeBit[0] / STRIDE) - minRow;
+        columnShift = this.minGridColumn() - minColumn;
+
+        java.util.Arrays.fill( image, NO_HOLE );
+        for( int h = 0; h < holes; h++ ) {
+            int row    = holeBit[h] / STRIDE;
+            int column = holeBit[h] % STRIDE;
+            int to     = this.gridBit( (a * row) + (b * column) + rowShift, (c * row) + (d * column) + columnShift );
+            if ( to == NO_HOLE )
+                return null;
+            image[holeBit[h]] = to;
+        }
+
+        for( int code = 0; code < moves; code++ ) {
+            int to = moveTo[code];
+            if ( (to != NO_HOLE) && (this.directionOf(image[holeBit[code / directions]], image[to]) == NO_DIRECTION) )
+                return null;
+        }
+
+        return image;
+    }
+
+    /**
+     * Answer the smallest grid column of any hole.
+     * @return int the grid column
+     */
+    private int minGridColumn() {
+        int min = MAX_COLUMNS;
+
+        for( int row = 0; row < rows; row++ ) {
+            min = Math.min( min, rowOffset[row] );
+        }
+
+        return min;
+    }
+
+    /**
+     * Scramble x (the splitmix64 finalizer).
+     * @param long x
+     * @return long the scrambled value
+     */
+    private static long mix( long x ) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * Answer the bit of the hole at row, column, where column is counted
+     * from the first hole of the row (as in SolitaireCheckersModel).
+     * @param int row
+     * @param int column
+     * @return int the bit, or NO_HOLE when row, column is off the board
+     */
+    public int bit( int row, int column ) {
+        if ( (row < 0) || (row >= rows) || (column < 0) || (column >= rowWidth[row]) )
+            return NO_HOLE;
+
+        return (row * STRIDE) + rowOffset[row] + column;
+    }
+
+    /**
+     * Answer the row of a hole bit.
+     * @param int bit
+     * @return int the row
+     */
+    public int rowOf( int bit ) {
+        return bit / STRIDE;
+    }
+
+    /**
+     * Answer the (row relative) column of a hole bit.
+     * @param int bit
+     * @return int the column
+     */
+    public int columnOf( int bit ) {
+        return (bit % STRIDE) - rowOffset[bit / STRIDE];
+    }
+
+    /**
+     * Answer the number of holes in row.
+     * @param int row
+     * @return int the width of the row
+     */
+    public int widthOf( int row ) {
+        return rowWidth[row];
+    }
+
+    /**
+     * Answer the bit of the dense hole index 0 to getHoles() - 1.
+     * @param int hole
+     * @return int the bit
+     */
+    public int bitOf( int hole ) {
+        return holeBit[hole];
+    }
+
+    /**
+     * Answer the dense hole index 0 to getHoles() - 1 of a bit.
+     * @param int bit
+     * @return int the hole, or NO_HOLE when the bit is not a hole
+     */
+    public int holeOf( int bit ) {
+        return bitHole[bit];
+    }
+
+    /**
+     * Answer the pegs that can jump in direction.
+     * A peg at p can jump when p and its direction's next hole hold pegs
+     * and the hole after that is empty.
+     * @param long board
+     * @param int direction
+     * @return long mask of jumping pegs
+     */
+    public long jumpers( long board, int direction ) {
+        int s = shift[direction];
+
+        return board & jumpFrom[direction]
+                     & Long.rotateRight( board, s )
+                     & Long.rotateRight( valid & ~board, s + s );
+    }
+
+    /**
+     * Answer the direction of the jump from bit from to bit to.
+     * @param int from
+     * @param int to
+     * @return int the direction, or NO_DIRECTION when no jump lands on to
+     */
+    public int directionOf( int from, int to ) {
+        int hole = bitHole[from];
+
+        if ( hole == NO_HOLE )
+            return NO_DIRECTION;
+
+        for( int direction = 0; direction < directions; direction++ ) {
+            if ( moveTo[(hole * directions) + direction] == to )
+                return direction;
+        }
+
+        return NO_DIRECTION;
+    }
+
+    /**
+     * Fill moves with every legal move code on board.
+     * @param long board
+     * @param int[] moves buffer of at least getMoves() entries
+     * @return int the number of legal moves written
+     */
+    public int generateMoves( long board, int[] moves ) {
+        int count = 0;
+
+        for( int direction = 0; direction < directions; direction++ ) {
+            long from = this.jumpers( board, direction );
+            while( from != 0L ) {
+                moves[count++] = (bitHole[Long.numberOfTrailingZeros(from)] * directions) + direction;
+                from &= from - 1;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Answer the move code for the peg at bit jumping in direction.
+     * @param int bit
+     * @param int direction
+     * @return int the move code
+     */
+    public int moveCode( int bit, int direction ) {
+        return (bitHole[bit] * directions) + direction;
+    }
+
+    /**
+     * Answer the bit the move jumps from.
+     * @param int move
+     * @return int the bit
+     */
+    public int moveFrom( int move ) {
+        return holeBit[move / directions];
+    }
+
+    /**
+     * Answer the bit the move lands on.
+     * @param int move
+     * @return int the bit, or NO_HOLE when the move leaves the board
+     */
+    public int moveTo( int move ) {
+        return moveTo[move];
+    }
+
+    /**
+     * Answer the three holes changed by the move.
+     * @param int move
+     * @return long mask of from, over and to
+     */
+    public long moveMask( int move ) {
+        return moveFlip[move];
+    }
+
+    /**
+     * Answer the pegs whose jumps may become legal or illegal when the
+     * move is played.
+     * @param int move
+     * @return long mask of the affected jump origins
+     */
+    public long moveNeighbourhood( int move ) {
+        return moveNear[move];
+    }
+
+    /**
+     * Answer whether or not the move is legal on board.
+     * @param long board
+     * @param int move 0 to getMoves() - 1
+     * @return boolean true if from and over hold pegs and to is empty
+     */
+    public boolean isLegal( long board, int move ) {
+        long flip = moveFlip[move];
+
+        return (flip != 0L) && ((board & flip) == movePath[move]);
+    }
+
+    /**
+     * Play (or take back) the move. The move must be legal on board
+     * (or on the board it was played from).
+     * @param long board
+     * @param int move
+     * @return long the resulting board
+     */
+    public long apply( long board, int move ) {
+        return board ^ moveFlip[move];
+    }
+
+    /**
+     * Answer the Zobrist hash of board.
+     * @param long board
+     * @return long the hash
+     */
+    public long hash( long board ) {
+        return this.hash( board, IDENTITY );
+    }
+
+    /**
+     * Answer the Zobrist hash of the image of board under symmetry.
+     * @param long board
+     * @param int symmetry IDENTITY to getSymmetries() - 1
+     * @return long the hash
+     */
+    public long hash( long board, int symmetry ) {
+        int[] image = this.symmetry[symmetry];
+        long  hash  = 0L;
+
+        while( board != 0L ) {
+            hash ^= zobrist[image[Long.numberOfTrailingZeros(board)]];
+            board &= board - 1;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Answer the smallest hash of board's images under every symmetry.
+     * Positions that are images of one another share the same canonical hash.
+     * @param long board
+     * @return long the canonical hash
+     */
+    public long canonicalHash( long board ) {
+        long best = this.hash( board, IDENTITY );
+
+        for( int s = 1; s < symmetry.length; s++ ) {
+            best = Math.min( best, this.hash(board, s) );
+        }
+
+        return best;
+    }
+
+    /**
+     * Answer the smallest image of board under every symmetry.
+     * Positions that are images of one another share the same canonical board.
+     * @param long board
+     * @return long the canonical board
+     */
+    public long canonical( long board ) {
+        long best = board;
+
+        for( int s = 1; s < symmetry.length; s++ ) {
+            best = Math.min( best, this.transform(board, s) );
+        }
+
+        return best;
+    }
+
+    /**
+     * Answer the image of board under symmetry, a row at a time.
+     * @param long board
+     * @param int symmetry IDENTITY to getSymmetries() - 1
+     * @return long the transformed board
+     */
+    public long transform( long board, int symmetry ) {
+        long[][] table = rowImage[symmetry];
+        long     to    = 0L;
+
+        for( int row = 0; row < rows; row++ ) {
+            to |= table[row][(int) (board >>> (row * STRIDE)) & ROW_PATTERNS];
+        }
+
+        return to;
+    }
+
+    /**
+     * Get the hole an ideal game ends in.
+     * @return long mask of the center
+     */
+    public long getCenter() {
+        return center;
+    }
+
+    /**
+     * Get the number of jump directions.
+     * @return int the number of directions
+     */
+    public int getDirections() {
+        return directions;
+    }
+
+    /**
+     * Get the number of holes.
+     * @return int the number of holes
+     */
+    public int getHoles() {
+        return holes;
+    }
+
+    /**
+     * Get the number of move codes (getHoles() * getDirections()).
+     * @return int the number of move codes
+     */
+    public int getMoves() {
+        return moves;
+    }
+
+    /**
+     * Get the name of the board.
+     * @return String the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of rows.
+     * @return int the number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the standard starting board: every hole but the starting vacancy.
+     * @return long the bitboard
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Get the number of symmetries (the identity included).
+     * @return int the number of symmetries
+     */
+    public int getSymmetries() {
+        return symmetry.length;
+    }
+
+    /**
+     * Get every hole of the board.
+     * @return long mask of the holes
+     */
+    public long getValid() {
+        return valid;
+    }
+
+    /**
+     * Return the name of the board.
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Answer the bit of the hole at row, gridColumn.
+     * @param int row
+     * @param int gridColumn
+     * @return int the bit, or NO_HOLE when there is no such hole
+     */
+    private int gridBit( int row, int gridColumn ) {
+        if ( (row < 0) || (row >= rows) || (gridColumn < 0) || (gridColumn >= MAX_COLUMNS) )
+            return NO_HOLE;
+
+        return (bitHole[(row * STRIDE) + gridColumn] == NO_HOLE) ? NO_HOLE : (row * STRIDE) + gridColumn;
+    }
+}
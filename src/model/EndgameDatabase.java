@@ -0,0 +1,167 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only, memory-mapped table of every solved position with up to
+ * maxPegs pegs (see EndgameIndex for the numbering and the layout).
+ *
+ * The file is mapped, never read: opening is instant whatever its size,
+ * pages are loaded on first use, and every JVM (and process) opening the
+ * same file shares them through the page cache. Lookups are a rank and a
+ * bit test, safe from any number of threads.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class EndgameDatabase {
+
+    public static final int UNKNOWN        = -1;
+    public static final int LOST           = 0;
+    public static final int WINNABLE       = 1;
+    public static final int WINNABLE_IDEAL = 2;
+
+    public static final int NO_MOVE        = -1;
+
+    private final EndgameIndex     index;
+    private final MappedByteBuffer table;
+    private final int[]            winnable;
+    private final int[]            ideal;
+
+
+    /**
+     * Creates a database over a mapped file.
+     * @param EndgameIndex the index the file was built with
+     * @param MappedByteBuffer the whole file
+     */
+    private EndgameDatabase( EndgameIndex index, MappedByteBuffer table ) {
+        this.index    = index;
+        this.table    = table;
+        this.winnable = new int[index.getMaxPegs() + 1];
+        this.ideal    = new int[index.getMaxPegs() + 1];
+        for( int pegs = 1; pegs <= index.getMaxPegs(); pegs++ ) {
+            winnable[pegs] = (int) index.tableOffset( pegs, EndgameIndex.WINNABLE );
+            ideal[pegs]    = (int) index.tableOffset( pegs, EndgameIndex.IDEAL );
+        }
+    }
+
+    /**
+     * Open a database file built for geometry.
+     * @param File the file
+     * @param BoardGeometry the board
+     * @return EndgameDatabase the database
+     * @throws IOException if the file cannot be mapped, or was not built for geometry
+     */
+    public static EndgameDatabase open( File file, BoardGeometry geometry ) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile( file, "r" );
+
+        try {
+            FileChannel      channel = raf.getChannel();
+            MappedByteBuffer header  = channel.map( FileChannel.MapMode.READ_ONLY, 0, EndgameIndex.HEADER_BYTES );
+            EndgameIndex     index;
+
+            header.order( ByteOrder.LITTLE_ENDIAN );
+            if ( (header.getInt(0) != EndgameIndex.MAGIC) || (header.getInt(4) != EndgameIndex.VERSION) )
+                throw new IOException( file + " is not an endgame database" );
+            if ( (header.getInt(12) != geometry.getHoles()) || (header.getLong(16) != geometry.getValid()) ||
+                 (header.getLong(24) != geometry.getCenter()) )
+                throw new IOException( file + " was not built for the " + geometry + " board" );
+
+            index = new EndgameIndex( geometry, header.getInt(8) );
+            if ( (index.getSize() != channel.size()) || (index.getSize() > Integer.MAX_VALUE) )
+                throw new IOException( file + " has " + channel.size() + " bytes, " + index.getSize() + " expected" );
+
+            /* The mapping stays valid once the file is closed. */
+            return new EndgameDatabase( index, channel.map(FileChannel.MapMode.READ_ONLY, 0, index.getSize()) );
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Answer the best move on board: one keeping an ideal finish if there
+     * is one, otherwise one keeping any win.
+     * @param long board, with 2 to getMaxPegs() + 1 pegs (its successors must be covered)
+     * @return int the move code, or NO_MOVE when the position is lost or unknown
+     */
+    public int bestMove( long board ) {
+        BoardGeometry geometry = index.getGeometry();
+        int           best     = NO_MOVE;
+
+        for( int direction = 0; direction < geometry.getDirections(); direction++ ) {
+            long from = geometry.jumpers( board, direction );
+            while( from != 0L ) {
+                int move = geometry.moveCode( Long.numberOfTrailingZeros(from), direction );
+                int next = this.lookup( geometry.apply(board, move) );
+                from &= from - 1;
+                if ( next == WINNABLE_IDEAL )
+                    return move;
+                if ( (next == WINNABLE) && (best == NO_MOVE) )
+                    best = move;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Answer whether or not board is in the database.
+     * @param long board
+     * @return boolean true if board has 1 to getMaxPegs() pegs; otherwise, false
+     */
+    public boolean covers( long board ) {
+        int pegs = Long.bitCount( board );
+
+        return (pegs >= 1) && (pegs <= index.getMaxPegs());
+    }
+
+    /**
+     * Get the index the database was built with.
+     * @return EndgameIndex the index
+     */
+    public EndgameIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the largest number of pegs of the positions in the database.
+     * @return int the number of pegs
+     */
+    public int getMaxPegs() {
+        return index.getMaxPegs();
+    }
+
+    /**
+     * Answer how board can end.
+     * @param long board
+     * @return int WINNABLE_IDEAL, WINNABLE, LOST, or UNKNOWN when board is not covered
+     */
+    public int lookup( long board ) {
+        int  pegs = Long.bitCount( board );
+        long rank;
+
+        if ( (pegs < 1) || (pegs > index.getMaxPegs()) )
+            return UNKNOWN;
+
+        rank = index.rank( board );
+        if ( this.isSet(ideal[pegs], rank) )
+            return WINNABLE_IDEAL;
+
+        return this.isSet( winnable[pegs], rank ) ? WINNABLE : LOST;
+    }
+
+    /**
+     * Answer whether or not bit rank of the table at offset is set.
+     * @param int offset of the table
+     * @param long rank
+     * @return boolean true if set; otherwise, false
+     */
+    private boolean isSet( int offset, long rank ) {
+        return (table.get( offset + (int) (rank >>> 3) ) & (1 << (int) (rank & 7))) != 0;
+    }
+}
@@ -0,0 +1,155 @@
+package model;
+
+/**
+ * Numbering and file layout of an endgame database (see EndgameDatabase).
+ *
+ * Every position with k pegs on a board of n holes is numbered 0 to
+ * C(n, k) - 1 by the colexicographic rank of its holes: the sum of
+ * C(hole_j, j) over its pegs, the holes taken in increasing order. Numbers
+ * are dense, so one bit per position is the whole table.
+ *
+ * The file is a HEADER_BYTES header, then, for 1 to maxPegs pegs, the
+ * "winnable" bits followed by the "ideally winnable" bits of every position
+ * with that many pegs. Bit r of a table is bit (r % 8) of its byte r / 8,
+ * and every table is padded to a multiple of 8 bytes.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class EndgameIndex {
+
+    public static final int  MAGIC        = 0x53434547;   // "SCEG"
+    public static final int  VERSION      = 1;
+    public static final int  HEADER_BYTES = 32;
+
+    public static final int  WINNABLE     = 0;
+    public static final int  IDEAL        = 1;
+
+    private final BoardGeometry geometry;
+    private final int           maxPegs;
+    private final long[][]      binomial;
+    private final long[]        offset;
+    private final long          size;
+
+
+    /**
+     * Creates the index of the positions of up to maxPegs pegs.
+     * @param BoardGeometry the board
+     * @param int largest number of pegs, 1 to the number of holes
+     * @throws IllegalArgumentException if maxPegs is out of range
+     */
+    public EndgameIndex( BoardGeometry geometry, int maxPegs ) {
+        int  holes = geometry.getHoles();
+        long at    = HEADER_BYTES;
+
+        if ( (maxPegs < 1) || (maxPegs > holes) )
+            throw new IllegalArgumentException( "maxPegs must be 1 to " + holes + ": " + maxPegs );
+
+        this.geometry = geometry;
+        this.maxPegs  = maxPegs;
+        this.binomial = new long[holes + 1][maxPegs + 1];
+        for( int n = 0; n <= holes; n++ ) {
+            binomial[n][0] = 1L;
+            for( int k = 1; k <= Math.min(n, maxPegs); k++ ) {
+                binomial[n][k] = binomial[n - 1][k - 1] + binomial[n - 1][k];
+            }
+        }
+
+        this.offset = new long[maxPegs + 1];
+        for( int pegs = 1; pegs <= maxPegs; pegs++ ) {
+            offset[pegs] = at;
+            at += 2 * this.tableBytes( pegs );
+        }
+        this.size = at;
+    }
+
+    /**
+     * Get the board.
+     * @return BoardGeometry the geometry
+     */
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Get the largest number of pegs of the positions in the database.
+     * @return int the number of pegs
+     */
+    public int getMaxPegs() {
+        return maxPegs;
+    }
+
+    /**
+     * Get the size of the database file.
+     * @return long the number of bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Answer the number of positions with pegs pegs.
+     * @param int pegs 1 to getMaxPegs()
+     * @return long C(holes, pegs)
+     */
+    public long positions( int pegs ) {
+        return binomial[geometry.getHoles()][pegs];
+    }
+
+    /**
+     * Answer the byte offset of a table in the file.
+     * @param int pegs 1 to getMaxPegs()
+     * @param int table WINNABLE or IDEAL
+     * @return long the offset
+     */
+    public long tableOffset( int pegs, int table ) {
+        return offset[pegs] + (table * this.tableBytes(pegs));
+    }
+
+    /**
+     * Answer the size of one table.
+     * @param int pegs 1 to getMaxPegs()
+     * @return long the number of bytes, a multiple of 8
+     */
+    public long tableBytes( int pegs ) {
+        return ((this.positions(pegs) + Long.SIZE - 1) / Long.SIZE) * (Long.SIZE / Byte.SIZE);
+    }
+
+    /**
+     * Answer the number of a position among those with as many pegs.
+     * @param long board, with 1 to getMaxPegs() pegs
+     * @return long the rank 0 to positions(pegs) - 1
+     */
+    public long rank( long board ) {
+        long rank = 0L;
+        int  j    = 1;
+
+        while( board != 0L ) {
+            rank += binomial[geometry.holeOf( Long.numberOfTrailingZeros(board) )][j++];
+            board &= board - 1;
+        }
+
+        return rank;
+    }
+
+    /**
+     * Answer the position numbered rank among those with pegs pegs.
+     * @param long rank 0 to positions(pegs) - 1
+     * @param int pegs 1 to getMaxPegs()
+     * @return long the board
+     */
+    public long unrank( long rank, int pegs ) {
+        long board = 0L;
+        int  hole  = geometry.getHoles() - 1;
+
+        for( int j = pegs; j > 0; j-- ) {
+            while( binomial[hole][j] > rank )
+                hole--;
+            rank  -= binomial[hole][j];
+            board |= 1L << geometry.bitOf( hole );
+            hole--;
+        }
+
+        return board;
+    }
+}
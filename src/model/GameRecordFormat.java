@@ -0,0 +1,69 @@
+package model;
+
+/**
+ * Layout of a game record file (see GameRecordWriter and GameRecordReader).
+ *
+ * All numbers are little endian. The file is:
+ * <ul>
+ * <li>a HEADER_BYTES header: MAGIC, VERSION (ints), then the valid holes
+ * of the board the games were played on (long);</li>
+ * <li>one record per game: the configuration ordinal (a byte, or
+ * NO_CONFIGURATION for the standard start of a board other than the
+ * English board), the number of moves (a byte), then one move code per
+ * move (see BoardGeometry);</li>
+ * <li>the index: the offset in the file (long) of every INDEX_INTERVAL-th
+ * record, from the first;</li>
+ * <li>a FOOTER_BYTES footer: the number of games and the offset of the
+ * index (longs), then MAGIC and VERSION again.</li>
+ * </ul>
+ *
+ * A record is at most MAX_RECORD_BYTES long, so a game is found from the
+ * index by skipping at most INDEX_INTERVAL - 1 records.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class GameRecordFormat {
+
+    public static final int MAGIC            = 0x53434752;   // "SCGR"
+    public static final int VERSION          = 1;
+    public static final int HEADER_BYTES     = 16;
+    public static final int FOOTER_BYTES     = 24;
+
+    public static final int NO_CONFIGURATION = 0xFF;
+    public static final int MAX_MOVES        = 0xFF;
+    public static final int MAX_RECORD_BYTES = 2 + MAX_MOVES;
+
+    public static final int INDEX_INTERVAL   = 64;
+
+
+    private GameRecordFormat() {
+    }
+
+    /**
+     * Answer the configuration byte of a game's start.
+     * @param SolitaireCheckersConfigurations the configuration, or null
+     * @return int the ordinal, or NO_CONFIGURATION
+     */
+    static int configurationByte( SolitaireCheckersConfigurations configuration ) {
+        return (configuration == null) ? NO_CONFIGURATION : configuration.ordinal();
+    }
+
+    /**
+     * Answer the start of a game from its configuration byte.
+     * @param BoardGeometry the board
+     * @param int the configuration byte
+     * @return SolitaireCheckersTemplate the start
+     * @throws IllegalArgumentException if the byte is not a configuration of geometry
+     */
+    public static SolitaireCheckersTemplate startOf( BoardGeometry geometry, int configuration ) {
+        SolitaireCheckersConfigurations[] configurations = SolitaireCheckersConfigurations.values();
+
+        if ( configuration == NO_CONFIGURATION )
+            return SolitaireCheckersTemplate.of( geometry );
+        if ( (geometry != BoardGeometry.ENGLISH) || (configuration >= configurations.length) )
+            throw new IllegalArgumentException( "no configuration " + configuration + " on the " + geometry + " board" );
+
+        return SolitaireCheckersTemplate.of( configurations[configuration] );
+    }
+}
@@ -0,0 +1,247 @@
+package model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads a game record file (see GameRecordFormat) through a memory
+ * mapping, one record at a time.
+ *
+ * The reader is a cursor: next() moves to the following record and
+ * seek(game) to any game, found from the index. The current record is read
+ * in place from the mapped file, so no object is created per game.
+ * Files larger than a mapping are mapped in SEGMENT_BYTES segments, each
+ * overlapping the next by a whole record.
+ *
+ * A reader is not thread-safe; open one per thread (mappings of the same
+ * file share their pages). The file itself is closed once it is mapped;
+ * close() drops the reader's mappings, so the memory can be unmapped even
+ * while the reader is still referenced.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class GameRecordReader implements Closeable {
+
+    static final long SEGMENT_BYTES = 1L << 30;
+
+    private final BoardGeometry      geometry;
+    private final MappedByteBuffer[] segments;
+    private final long               games;
+    private final long               indexOffset;
+    private long                     game;
+    private long                     next;
+    private MappedByteBuffer         segment;
+    private int                      at;
+    private boolean                  closed;
+
+
+    /**
+     * Creates a reader over a mapped file.
+     */
+    private GameRecordReader( BoardGeometry geometry, MappedByteBuffer[] segments, long games, long indexOffset ) {
+        this.geometry    = geometry;
+        this.segments    = segments;
+        this.games       = games;
+        this.indexOffset = indexOffset;
+        this.seek( 0L );
+    }
+
+    /**
+     * Open a game record file of games played on geometry.
+     * @param File the file
+     * @param BoardGeometry the board
+     * @return GameRecordReader a reader before the first game
+     * @throws IOException if the file cannot be mapped, is not a closed
+     * game record file, or was not written for geometry
+     */
+    public static GameRecordReader open( File file, BoardGeometry geometry ) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile( file, "r" );
+
+        try {
+            FileChannel        channel = raf.getChannel();
+            long               size    = channel.size();
+            MappedByteBuffer[] segments;
+            MappedByteBuffer   header;
+            MappedByteBuffer   footer;
+            long               games;
+            long               indexOffset;
+
+            if ( size < GameRecordFormat.HEADER_BYTES + GameRecordFormat.FOOTER_BYTES )
+                throw new IOException( file + " is not a game record file" );
+
+            header = channel.map( FileChannel.MapMode.READ_ONLY, 0, GameRecordFormat.HEADER_BYTES );
+            footer = channel.map( FileChannel.MapMode.READ_ONLY, size - GameRecordFormat.FOOTER_BYTES,
+                                  GameRecordFormat.FOOTER_BYTES );
+            header.order( ByteOrder.LITTLE_ENDIAN );
+            footer.order( ByteOrder.LITTLE_ENDIAN );
+            if ( (header.getInt(0) != GameRecordFormat.MAGIC) || (header.getInt(4) != GameRecordFormat.VERSION) )
+                throw new IOException( file + " is not a game record file" );
+            if ( header.getLong(8) != geometry.getValid() )
+                throw new IOException( file + " was not written for the " + geometry + " board" );
+            if ( (footer.getInt(16) != GameRecordFormat.MAGIC) || (footer.getInt(20) != GameRecordFormat.VERSION) )
+                throw new IOException( file + " was not closed" );
+
+            games       = footer.getLong( 0 );
+            indexOffset = footer.getLong( 8 );
+            if ( indexOffset + (8 * ((games + GameRecordFormat.INDEX_INTERVAL - 1) / GameRecordFormat.INDEX_INTERVAL))
+                 != size - GameRecordFormat.FOOTER_BYTES )
+                throw new IOException( file + " has a damaged index" );
+
+            /* The mappings stay valid once the file is closed. */
+            segments = new MappedByteBuffer[(int) ((size + SEGMENT_BYTES - 1) / SEGMENT_BYTES)];
+            for( int i = 0; i < segments.length; i++ ) {
+                long from = i * SEGMENT_BYTES;
+                segments[i] = channel.map( FileChannel.MapMode.READ_ONLY, from,
+                                           Math.min(SEGMENT_BYTES + GameRecordFormat.MAX_RECORD_BYTES, size - from) );
+                segments[i].order( ByteOrder.LITTLE_ENDIAN );
+            }
+
+            return new GameRecordReader( geometry, segments, games, indexOffset );
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Drop the mappings of the file. Closing twice does nothing.
+     */
+    public void close() {
+        closed  = true;
+        segment = null;
+        Arrays.fill( segments, null );
+    }
+
+    /**
+     * Get the board of the games.
+     * @return BoardGeometry the geometry
+     */
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Get the number of games in the file.
+     * @return long the number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Get the index of the current game.
+     * @return long the game, 0 to getGames() - 1
+     */
+    public long getGame() {
+        return game;
+    }
+
+    /**
+     * Get the configuration byte of the current game.
+     * @return int the configuration ordinal, or GameRecordFormat.NO_CONFIGURATION
+     */
+    public int getConfigurationByte() {
+        return segment.get( at ) & 0xFF;
+    }
+
+    /**
+     * Get the start of the current game.
+     * @return SolitaireCheckersTemplate the start
+     * @throws IllegalArgumentException if the record names no configuration of the board
+     */
+    public SolitaireCheckersTemplate getStart() {
+        return GameRecordFormat.startOf( geometry, this.getConfigurationByte() );
+    }
+
+    /**
+     * Get the number of moves of the current game.
+     * @return int the number of moves
+     */
+    public int getMoveCount() {
+        return segment.get( at + 1 ) & 0xFF;
+    }
+
+    /**
+     * Get a move of the current game.
+     * @param int i 0 to getMoveCount() - 1
+     * @return int the move code
+     */
+    public int getMove( int i ) {
+        return segment.get( at + 2 + i ) & 0xFF;
+    }
+
+    /**
+     * Copy the moves of the current game.
+     * @param byte[] at least getMoveCount() bytes
+     * @return int the number of moves copied
+     */
+    public int getMoves( byte[] moves ) {
+        int count = this.getMoveCount();
+
+        for( int i = 0; i < count; i++ )
+            moves[i] = segment.get( at + 2 + i );
+
+        return count;
+    }
+
+    /**
+     * Move to the next game.
+     * @return boolean true if there is one; otherwise, false (the current game is unchanged)
+     * @throws IllegalStateException if the reader is closed
+     */
+    public boolean next() {
+        if ( closed )
+            throw new IllegalStateException( "the reader is closed" );
+        if ( game + 1 >= games )
+            return false;
+
+        game++;
+        this.moveTo( next );
+        next += 2 + this.getMoveCount();
+
+        return true;
+    }
+
+    /**
+     * Move before a game, so that next() reads it.
+     * @param long game 0 to getGames()
+     * @throws IndexOutOfBoundsException if game is out of range
+     * @throws IllegalStateException if the reader is closed
+     */
+    public void seek( long game ) {
+        long interval = GameRecordFormat.INDEX_INTERVAL;
+        long first    = (game / interval) * interval;
+
+        if ( closed )
+            throw new IllegalStateException( "the reader is closed" );
+        if ( (game < 0) || (game > games) )
+            throw new IndexOutOfBoundsException( "game " + game + " of " + games );
+
+        if ( first == games ) {
+            next = indexOffset;
+        } else {
+            this.moveTo( indexOffset + (8 * (game / interval)) );
+            next = segment.getLong( at );
+            for( long skip = first; skip < game; skip++ ) {
+                this.moveTo( next );
+                next += 2 + this.getMoveCount();
+            }
+        }
+        this.game = game - 1;
+    }
+
+    /**
+     * Point the cursor at a file offset.
+     * @param long offset
+     */
+    private void moveTo( long offset ) {
+        segment = segments[(int) (offset / SEGMENT_BYTES)];
+        at      = (int) (offset % SEGMENT_BYTES);
+    }
+}
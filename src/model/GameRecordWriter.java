@@ -0,0 +1,179 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Appends games to a game record file (see GameRecordFormat).
+ *
+ * Records go through one direct buffer straight to the file channel, so
+ * writing a game copies its moves once. The index and footer are written
+ * by close(); a file that was not closed cannot be read back.
+ *
+ * A writer is not thread-safe.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class GameRecordWriter {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final BoardGeometry    geometry;
+    private final RandomAccessFile file;
+    private final FileChannel      channel;
+    private final ByteBuffer       buffer;
+    private long                   position;
+    private long                   games;
+    private long[]                 index;
+    private boolean                closed;
+
+
+    /**
+     * Creates a writer of a new file.
+     * @param File the file, replaced if it exists
+     * @param BoardGeometry the board of every game
+     * @throws IOException if the file cannot be created
+     */
+    public GameRecordWriter( File file, BoardGeometry geometry ) throws IOException {
+        boolean created = false;
+
+        this.geometry = geometry;
+        this.file     = new RandomAccessFile( file, "rw" );
+        try {
+            this.channel  = this.file.getChannel();
+            this.buffer   = ByteBuffer.allocateDirect( BUFFER_BYTES ).order( ByteOrder.LITTLE_ENDIAN );
+            this.index    = new long[64];
+
+            channel.truncate( 0 );
+            buffer.putInt( GameRecordFormat.MAGIC )
+                  .putInt( GameRecordFormat.VERSION )
+                  .putLong( geometry.getValid() );
+            position = GameRecordFormat.HEADER_BYTES;
+            created  = true;
+        } finally {
+            /* a writer that failed is never closed by its caller */
+            if ( !created )
+                this.file.close();
+        }
+    }
+
+    /**
+     * Write the index and footer, and close the file. Closing twice does nothing.
+     * @throws IOException if the file cannot be written
+     */
+    public void close() throws IOException {
+        long indexOffset = position;
+        int  entries     = (int) ((games + GameRecordFormat.INDEX_INTERVAL - 1) / GameRecordFormat.INDEX_INTERVAL);
+
+        if ( closed )
+            return;
+        closed = true;
+
+        try {
+            for( int i = 0; i < entries; i++ ) {
+                this.reserve( 8 );
+                buffer.putLong( index[i] );
+            }
+            this.reserve( GameRecordFormat.FOOTER_BYTES );
+            buffer.putLong( games )
+                  .putLong( indexOffset )
+                  .putInt( GameRecordFormat.MAGIC )
+                  .putInt( GameRecordFormat.VERSION );
+            this.flush();
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Get the number of games written.
+     * @return long the number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Write the moves played in a game since its start.
+     * @param SolitaireCheckersModel the game
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the game is on another board, or
+     * did not start from a configuration or its board's standard start (a
+     * record cannot name another start)
+     */
+    public void write( SolitaireCheckersModel model ) throws IOException {
+        byte[] moves = model.getMoves();
+
+        if ( model.getGeometry() != geometry )
+            throw new IllegalArgumentException( "the game is not on the " + geometry + " board" );
+        if ( model.getTemplate().getBoard() != GameRecordFormat.startOf(geometry,
+                GameRecordFormat.configurationByte(model.getConfiguration())).getBoard() )
+            throw new IllegalArgumentException( "the game did not start from a configuration" );
+
+        this.write( model.getConfiguration(), moves, 0, moves.length );
+    }
+
+    /**
+     * Write a game.
+     * @param SolitaireCheckersConfigurations the start, or null for the
+     * standard start of a board other than the English board
+     * @param byte[] move codes
+     * @param int offset of the first move
+     * @param int number of moves, at most GameRecordFormat.MAX_MOVES
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if a configuration is given for a
+     * board other than the English board, there are too many moves, or a
+     * byte is not a move code of the board
+     * @throws IllegalStateException if the writer is closed
+     */
+    public void write( SolitaireCheckersConfigurations configuration, byte[] moves, int offset, int length )
+            throws IOException {
+        if ( closed )
+            throw new IllegalStateException( "the writer is closed" );
+        if ( (configuration != null) && (geometry != BoardGeometry.ENGLISH) )
+            throw new IllegalArgumentException( "configurations are for the English board, not the " + geometry + " board" );
+        if ( (length < 0) || (length > GameRecordFormat.MAX_MOVES) )
+            throw new IllegalArgumentException( "a game has 0 to " + GameRecordFormat.MAX_MOVES + " moves: " + length );
+        for( int i = offset; i < offset + length; i++ ) {
+            if ( (moves[i] & 0xFF) >= geometry.getMoves() )
+                throw new IllegalArgumentException( "not a move code of the " + geometry + " board: " + (moves[i] & 0xFF) );
+        }
+
+        if ( (games % GameRecordFormat.INDEX_INTERVAL) == 0 ) {
+            int entry = (int) (games / GameRecordFormat.INDEX_INTERVAL);
+            if ( entry == index.length )
+                index = Arrays.copyOf( index, index.length * 2 );
+            index[entry] = position;
+        }
+
+        this.reserve( 2 + length );
+        buffer.put( (byte) GameRecordFormat.configurationByte(configuration) )
+              .put( (byte) length )
+              .put( moves, offset, length );
+        games++;
+    }
+
+    /**
+     * Make room for bytes more bytes in the buffer, flushing it if need be.
+     * @param int number of bytes, at most the buffer's capacity
+     * @throws IOException if the file cannot be written
+     */
+    private void reserve( int bytes ) throws IOException {
+        if ( buffer.remaining() < bytes )
+            this.flush();
+        position += bytes;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while( buffer.hasRemaining() )
+            channel.write( buffer );
+        buffer.clear();
+    }
+}
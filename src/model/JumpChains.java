@@ -0,0 +1,206 @@
+package model;
+
+/**
+ * Every chain of jumps one peg can make from a board: the peg jumps, then
+ * jumps again from where it landed, and so on. Each chain is a sequence of
+ * move codes that can be stopped after any jump, so every prefix of a chain
+ * is listed as a chain of its own.
+ *
+ * The chains are found in one depth-first pass on bitboards. Two orders of
+ * the same jumps that reach the same board are the same position (the peg
+ * is on the same hole, the same pegs are gone), so a board already reached
+ * is pruned with everything that follows it: each board is listed once,
+ * under the first chain that reached it.
+ *
+ * Chains are kept in flat arrays, in the order they are found, so a chain
+ * always comes after the chains it extends.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class JumpChains {
+
+    private static final int MAX_LENGTH = Long.SIZE;   // a chain takes a peg per jump
+
+    private final BoardGeometry geometry;
+    private final long          board;
+    private final int           from;
+    private int                 count;
+    private long[]              boards;
+    private int[]               offsets;
+    private byte[]              moves;
+
+
+    private JumpChains( BoardGeometry geometry, long board, int from ) {
+        this.geometry = geometry;
+        this.board    = board;
+        this.from     = from;
+        this.boards   = new long[8];
+        this.offsets  = new int[9];
+        this.moves    = new byte[32];
+    }
+
+    /**
+     * Find the chains of the peg at bit.
+     * @param BoardGeometry the board's geometry
+     * @param long the board
+     * @param int the peg's bit (see BoardGeometry); a bit without a peg has no chains
+     * @return JumpChains the chains
+     */
+    public static JumpChains search( BoardGeometry geometry, long board, int bit ) {
+        JumpChains  chains = new JumpChains( geometry, board, bit );
+        long[]      stack  = new long[MAX_LENGTH + 1];
+        int[]       cells  = new int[MAX_LENGTH + 1];
+        int[]       next   = new int[MAX_LENGTH + 1];
+        byte[]      path   = new byte[MAX_LENGTH];
+        LongHashSet seen   = null;
+        int         depth  = 0;
+
+        if ( (bit < 0) || (bit >= Long.SIZE) || ((board & (1L << bit)) == 0L) )
+            return chains;
+
+        stack[0] = board;
+        cells[0] = bit;
+        while( depth >= 0 ) {
+            int  direction = next[depth]++;
+            int  move;
+            long after;
+
+            if ( direction == geometry.getDirections() ) {
+                depth--;
+                continue;
+            }
+            if ( (geometry.jumpers(stack[depth], direction) & (1L << cells[depth])) == 0L )
+                continue;
+
+            move  = geometry.moveCode( cells[depth], direction );
+            after = geometry.apply( stack[depth], move );
+            /* one jump from the start never repeats a board; later ones may */
+            if ( depth > 0 ) {
+                if ( seen == null )
+                    seen = new LongHashSet( 64 );
+                if ( !seen.add(after) )
+                    continue;
+            }
+
+            path[depth] = (byte) move;
+            chains.add( after, path, depth + 1 );
+            depth++;
+            stack[depth] = after;
+            cells[depth] = geometry.moveTo( move );
+            next[depth]  = 0;
+        }
+
+        return chains;
+    }
+
+    /**
+     * Get the board the chains start from.
+     * @return long the bitboard
+     */
+    public long getBoard() {
+        return board;
+    }
+
+    /**
+     * Get the board after a chain.
+     * @param int the chain, 0 to getCount() - 1
+     * @return long the bitboard
+     */
+    public long getBoardAfter( int chain ) {
+        return boards[chain];
+    }
+
+    /**
+     * Get the number of chains.
+     * @return int the number of chains, 0 if the peg cannot jump
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Get the bit of the peg that jumps.
+     * @return int the bit
+     */
+    public int getFrom() {
+        return from;
+    }
+
+    /**
+     * Get the number of jumps of a chain.
+     * @param int the chain
+     * @return int the number of jumps, at least 1
+     */
+    public int getLength( int chain ) {
+        return offsets[chain + 1] - offsets[chain];
+    }
+
+    /**
+     * Get the longest chain: the one leaving the fewest pegs.
+     * @return int the chain, or -1 if there are none
+     */
+    public int getLongest() {
+        int longest = -1;
+
+        for( int chain = 0; chain < count; chain++ ) {
+            if ( (longest < 0) || (this.getLength(chain) > this.getLength(longest)) )
+                longest = chain;
+        }
+
+        return longest;
+    }
+
+    /**
+     * Get a move of a chain.
+     * @param int the chain
+     * @param int the jump, 0 to getLength(chain) - 1
+     * @return int the move code
+     */
+    public int getMove( int chain, int jump ) {
+        return moves[offsets[chain] + jump] & 0xFF;
+    }
+
+    /**
+     * Copy the moves of a chain, as SolitaireCheckersModel.playMoves takes them.
+     * @param int the chain
+     * @return byte[] the move codes
+     */
+    public byte[] getMoves( int chain ) {
+        byte[] copy = new byte[this.getLength( chain )];
+
+        System.arraycopy( moves, offsets[chain], copy, 0, copy.length );
+
+        return copy;
+    }
+
+    /**
+     * Get the bit the peg lands on at the end of a chain.
+     * @param int the chain
+     * @return int the bit
+     */
+    public int getTo( int chain ) {
+        return geometry.moveTo( this.getMove(chain, this.getLength(chain) - 1) );
+    }
+
+    /**
+     * Append a chain.
+     * @param long the board after it
+     * @param byte[] its moves
+     * @param int its length
+     */
+    private void add( long after, byte[] path, int length ) {
+        int offset = offsets[count];
+
+        if ( count == boards.length ) {
+            boards  = java.util.Arrays.copyOf( boards, count * 2 );
+            offsets = java.util.Arrays.copyOf( offsets, count * 2 + 1 );
+        }
+        if ( offset + length > moves.length )
+            moves = java.util.Arrays.copyOf( moves, Math.max(moves.length * 2, offset + length) );
+
+        System.arraycopy( path, 0, moves, offset, length );
+        boards[count]    = after;
+        offsets[++count] = offset + length;
+    }
+}
@@ -0,0 +1,141 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in nanoseconds, in power of two buckets:
+ * bucket b counts the durations of up to 2^b - 1 nanoseconds that do not
+ * fit bucket b - 1, so bucket 0 counts zero and bucket 63 the rest.
+ *
+ * Like StripedCounter, each thread records into one of several stripes
+ * picked from its id; a stripe is a row of BUCKETS counts plus the sum,
+ * so threads on different stripes do not share a cache line.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class LatencyHistogram {
+
+    public static final int BUCKETS = 64;
+
+    private static final int SUM = BUCKETS;                              // index of a stripe's sum
+    private static final int ROW = BUCKETS + StripedCounter.PADDING;     // longs per stripe
+
+    private final AtomicLongArray cells;
+    private final int             mask;
+
+
+    /**
+     * Creates a histogram with a stripe per available core.
+     */
+    public LatencyHistogram() {
+        this.mask  = StripedCounter.stripes() - 1;
+        this.cells = new AtomicLongArray( (mask + 1) * ROW + StripedCounter.PADDING );
+    }
+
+    /**
+     * Answer the bucket of a duration.
+     * @param long nanoseconds
+     * @return int the bucket, 0 to BUCKETS - 1
+     */
+    public static int bucketOf( long nanos ) {
+        return (nanos <= 0L) ? 0 : Math.min( BUCKETS - Long.numberOfLeadingZeros(nanos), BUCKETS - 1 );
+    }
+
+    /**
+     * Answer the largest duration counted by a bucket.
+     * @param int the bucket
+     * @return long nanoseconds, Long.MAX_VALUE for the last bucket
+     */
+    public static long upperBoundOf( int bucket ) {
+        return (bucket >= BUCKETS - 1) ? Long.MAX_VALUE : (1L << bucket) - 1L;
+    }
+
+    /**
+     * Get the number of durations recorded.
+     * @return long the count
+     */
+    public long getCount() {
+        long   count  = 0L;
+        long[] counts = this.snapshot();
+
+        for( int bucket = 0; bucket < BUCKETS; bucket++ )
+            count += counts[bucket];
+
+        return count;
+    }
+
+    /**
+     * Get the total of the durations recorded.
+     * @return long nanoseconds
+     */
+    public long getSum() {
+        long sum = 0L;
+
+        for( int stripe = 0; stripe <= mask; stripe++ )
+            sum += cells.get( this.offsetOf(stripe) + SUM );
+
+        return sum;
+    }
+
+    /**
+     * Answer a duration at least as large as the given fraction of the
+     * durations recorded: the upper bound of the bucket holding it.
+     * @param double the fraction, 0 to 1 (0.99 for the 99th percentile)
+     * @return long nanoseconds, 0 when nothing was recorded
+     */
+    public long percentile( double fraction ) {
+        long[] counts = this.snapshot();
+        long   total  = 0L;
+        long   seen   = 0L;
+
+        for( int bucket = 0; bucket < BUCKETS; bucket++ )
+            total += counts[bucket];
+        for( int bucket = 0; bucket < BUCKETS; bucket++ ) {
+            seen += counts[bucket];
+            if ( (seen > 0L) && (seen >= Math.ceil(fraction * total)) )
+                return upperBoundOf( bucket );
+        }
+
+        return 0L;
+    }
+
+    /**
+     * Record a duration.
+     * @param long nanoseconds
+     */
+    public void record( long nanos ) {
+        int offset = this.offsetOf( StripedCounter.stripe() & mask );
+
+        cells.getAndIncrement( offset + bucketOf(nanos) );
+        cells.getAndAdd( offset + SUM, nanos );
+    }
+
+    /**
+     * Forget every duration. Durations recorded meanwhile may be lost.
+     */
+    public void reset() {
+        for( int i = 0; i < cells.length(); i++ )
+            cells.set( i, 0L );
+    }
+
+    /**
+     * Get the count of every bucket.
+     * @return long[] BUCKETS counts, indexed by bucket
+     */
+    public long[] snapshot() {
+        long[] counts = new long[BUCKETS];
+
+        for( int stripe = 0; stripe <= mask; stripe++ ) {
+            int offset = this.offsetOf( stripe );
+            for( int bucket = 0; bucket < BUCKETS; bucket++ )
+                counts[bucket] += cells.get( offset + bucket );
+        }
+
+        return counts;
+    }
+
+    private int offsetOf( int stripe ) {
+        return StripedCounter.PADDING + (stripe * ROW);
+    }
+}
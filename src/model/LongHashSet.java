@@ -0,0 +1,137 @@
+package model;
+
+/**
+ * Open addressing set of long keys (linear probing, no boxing).
+ * Used as the transposition table of the solvers.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class LongHashSet {
+
+    private static final long  EMPTY       = 0L;
+    private static final int   MIN_SIZE    = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[]  keys;
+    private int     mask;
+    private int     size;
+    private int     threshold;
+    private boolean containsEmpty;
+
+
+    /**
+     * Creates a set sized for the expected number of keys.
+     * @param int expected number of keys
+     */
+    public LongHashSet( int expected ) {
+        int capacity = MIN_SIZE;
+
+        while( capacity * LOAD_FACTOR < expected )
+            capacity <<= 1;
+
+        this.allocate( capacity );
+    }
+
+    /**
+     * Add key to this set.
+     * @param long key
+     * @return boolean true if the key was not already present; otherwise, false
+     */
+    public boolean add( long key ) {
+        int i;
+
+        if ( key == EMPTY ) {
+            if ( containsEmpty )
+                return false;
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+
+        i = index( key ) & mask;
+        while( keys[i] != EMPTY ) {
+            if ( keys[i] == key )
+                return false;
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        if ( ++size > threshold )
+            this.rehash( keys.length << 1 );
+
+        return true;
+    }
+
+    /**
+     * Remove every key.
+     */
+    public void clear() {
+        java.util.Arrays.fill( keys, EMPTY );
+        containsEmpty = false;
+        size = 0;
+    }
+
+    /**
+     * Answer whether or not key is in this set.
+     * @param long key
+     * @return boolean true if present; otherwise, false
+     */
+    public boolean contains( long key ) {
+        int i;
+
+        if ( key == EMPTY )
+            return containsEmpty;
+
+        i = index( key ) & mask;
+        while( keys[i] != EMPTY ) {
+            if ( keys[i] == key )
+                return true;
+            i = (i + 1) & mask;
+        }
+
+        return false;
+    }
+
+    /**
+     * Answer the number of keys in this set.
+     * @return int the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Spread the key's bits over the low bits used as the table index.
+     * @param long key
+     * @return int the hash
+     */
+    public static int index( long key ) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+
+        return (int) key;
+    }
+
+    private void allocate( int capacity ) {
+        keys      = new long[capacity];
+        mask      = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash( int capacity ) {
+        long[] old = keys;
+
+        this.allocate( capacity );
+        for( int j = 0; j < old.length; j++ ) {
+            long key = old[j];
+            if ( key != EMPTY ) {
+                int i = index( key ) & mask;
+                while( keys[i] != EMPTY )
+                    i = (i + 1) & mask;
+                keys[i] = key;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package model;
+
+import java.io.IOException;
+
+/**
+ * Counters and latencies of every SolitaireCheckersModel in the process,
+ * exported in the Prometheus text format.
+ *
+ * Metrics are off unless the system property solitairecheckers.metrics is
+ * "true" when this class is loaded. ENABLED is a static final constant, so
+ * once the JIT has compiled a hot path (SolitaireCheckersModel.applyMove
+ * is called millions of times by search code) a disabled
+ * "if ( ModelMetrics.ENABLED )" block is dropped from the compiled code.
+ * When enabled, the counters are striped (see StripedCounter), so models
+ * on different threads do not contend.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class ModelMetrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean( "solitairecheckers.metrics" );
+
+    /** Moves played on a board, including by search code and redo. */
+    public static final StripedCounter   MOVES_APPLIED         = new StripedCounter();
+    /** Taps on a peg with several jumps, answered by showing them. */
+    public static final StripedCounter   MULTIPLE_JUMP_PROMPTS = new StripedCounter();
+    /** Calls of isLost(). */
+    public static final StripedCounter   LOST_CHECKS           = new StripedCounter();
+    /** Starts of a configuration, by reset() or setConfiguration(). */
+    public static final StripedCounter   CONFIGURATION_RESETS  = new StripedCounter();
+    /** Time spent notifying the listeners and observers of a change. */
+    public static final LatencyHistogram NOTIFICATION_LATENCY  = new LatencyHistogram();
+
+    private static final String PREFIX = "solitairecheckers_";
+
+
+    private ModelMetrics() {
+    }
+
+    /**
+     * Write every metric in the Prometheus text exposition format. The
+     * notification latency is a histogram in seconds, cumulative as the
+     * format expects; its empty buckets above the largest count are left out.
+     * The buckets, +Inf and the count come from one snapshot, so they agree
+     * even while durations are being recorded.
+     * @param Appendable where to write
+     * @throws IOException if out cannot be written
+     */
+    public static void export( Appendable out ) throws IOException {
+        long[] counts = NOTIFICATION_LATENCY.snapshot();
+        long   total  = 0L;
+        long   seen   = 0L;
+        int    last   = 0;
+
+        counter( out, "moves_applied_total", "Moves played on a board.", MOVES_APPLIED );
+        counter( out, "multiple_jump_prompts_total", "Taps on a peg with several jumps.", MULTIPLE_JUMP_PROMPTS );
+        counter( out, "lost_checks_total", "Checks of whether a game is lost.", LOST_CHECKS );
+        counter( out, "configuration_resets_total", "Starts of a configuration.", CONFIGURATION_RESETS );
+
+        for( int bucket = 0; bucket < LatencyHistogram.BUCKETS; bucket++ ) {
+            total += counts[bucket];
+            if ( counts[bucket] != 0L )
+                last = bucket;
+        }
+        out.append( "# HELP " + PREFIX + "notification_seconds Time spent notifying listeners and observers.\n" );
+        out.append( "# TYPE " + PREFIX + "notification_seconds histogram\n" );
+        for( int bucket = 0; bucket <= last && bucket < LatencyHistogram.BUCKETS - 1; bucket++ ) {
+            seen += counts[bucket];
+            out.append( PREFIX + "notification_seconds_bucket{le=\"" )
+               .append( Double.toString(LatencyHistogram.upperBoundOf(bucket) / 1e9) )
+               .append( "\"} " + seen + "\n" );
+        }
+        out.append( PREFIX + "notification_seconds_bucket{le=\"+Inf\"} " + total + "\n" );
+        out.append( PREFIX + "notification_seconds_sum " + (NOTIFICATION_LATENCY.getSum() / 1e9) + "\n" );
+        out.append( PREFIX + "notification_seconds_count " + total + "\n" );
+    }
+
+    /**
+     * Export every metric as a string.
+     * @return String the metrics (see export(Appendable))
+     */
+    public static String export() {
+        StringBuilder s = new StringBuilder();
+
+        try {
+            export( s );
+        } catch( IOException e ) {
+            throw new IllegalStateException( e );   // a StringBuilder does not throw
+        }
+
+        return s.toString();
+    }
+
+    /**
+     * Set every metric to zero.
+     */
+    public static void reset() {
+        MOVES_APPLIED.reset();
+        MULTIPLE_JUMP_PROMPTS.reset();
+        LOST_CHECKS.reset();
+        CONFIGURATION_RESETS.reset();
+        NOTIFICATION_LATENCY.reset();
+    }
+
+    private static void counter( Appendable out, String name, String help, StripedCounter counter )
+            throws IOException {
+        out.append( "# HELP " + PREFIX + name + " " + help + "\n" );
+        out.append( "# TYPE " + PREFIX + name + " counter\n" );
+        out.append( PREFIX + name + " " + counter.sum() + "\n" );
+    }
+}
@@ -0,0 +1,115 @@
+package model;
+
+/**
+ * Undo/redo log of the moves of one game.
+ *
+ * Each move is stored as its move code (see BoardGeometry)
+ * in a single byte, so a whole game is at most one byte per hole and
+ * exports as is.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public class MoveHistory {
+
+    public static final int MAX_MOVES = BoardGeometry.ENGLISH.getHoles();
+
+    private final byte[] log;
+    private int          cursor;
+    private int          length;
+
+
+    /**
+     * Creates an empty history for a game on the English board.
+     */
+    public MoveHistory() {
+        this( MAX_MOVES );
+    }
+
+    /**
+     * Creates an empty history holding up to capacity moves.
+     * @param int capacity, the number of holes of the board is always enough
+     */
+    public MoveHistory( int capacity ) {
+        log = new byte[capacity];
+    }
+
+    /**
+     * Answer whether or not a move can be redone.
+     * @return boolean true if a move was undone and not replaced; otherwise, false
+     */
+    public boolean canRedo() {
+        return cursor < length;
+    }
+
+    /**
+     * Answer whether or not a move can be undone.
+     * @return boolean true if at least one move was played; otherwise, false
+     */
+    public boolean canUndo() {
+        return cursor > 0;
+    }
+
+    /**
+     * Forget every move.
+     */
+    public void clear() {
+        cursor = 0;
+        length = 0;
+    }
+
+    /**
+     * Get the number of moves played (undone moves excluded).
+     * @return int the number of moves
+     */
+    public int getNumberOfMoves() {
+        return cursor;
+    }
+
+    /**
+     * Get the move at index.
+     * @param int index 0 to getNumberOfMoves() - 1
+     * @return int the move code
+     */
+    public int moveAt( int index ) {
+        return log[index] & 0xFF;
+    }
+
+    /**
+     * Record a move played after the current one; moves that were
+     * undone can no longer be redone.
+     * @param int the move code
+     */
+    public void record( int move ) {
+        log[cursor++] = (byte) move;
+        length = cursor;
+    }
+
+    /**
+     * Step forward to the next undone move.
+     * @return int the move code to play again
+     */
+    public int redo() {
+        return log[cursor++] & 0xFF;
+    }
+
+    /**
+     * Export the moves played as one byte per move.
+     * @return byte[] the moves
+     */
+    public byte[] toByteArray() {
+        byte[] moves = new byte[cursor];
+
+        System.arraycopy( log, 0, moves, 0, cursor );
+
+        return moves;
+    }
+
+    /**
+     * Step back over the last move played.
+     * @return int the move code to take back
+     */
+    public int undo() {
+        return log[--cursor] & 0xFF;
+    }
+}
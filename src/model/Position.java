@@ -0,0 +1,239 @@
+package model;
+
+/**
+ * An immutable position: the pegs on a board, as a bitboard, with their
+ * count and the configuration the game started from.
+ *
+ * A position is a handful of words, so analysis code can fork millions of
+ * them where it would otherwise build a SolitaireCheckersModel per branch
+ * (tables, history, status and observers). apply(move) returns the next
+ * position and allocates nothing else. Positions convert to and from
+ * models: of(model) reads a game's current position, and toModel() starts
+ * a game from a position.
+ *
+ * Positions are equal when they have the same board on the same geometry,
+ * whatever the configuration they started from.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class Position {
+
+    private final BoardGeometry                   geometry;
+    private final SolitaireCheckersConfigurations configuration;
+    private final long                            board;
+    private final int                             pegs;
+
+
+    /**
+     * Creates a position.
+     * @param BoardGeometry the board
+     * @param SolitaireCheckersConfigurations the configuration started from, or null
+     * @param long the bitboard
+     * @param int the number of pegs on it
+     */
+    private Position( BoardGeometry geometry, SolitaireCheckersConfigurations configuration, long board, int pegs ) {
+        this.geometry      = geometry;
+        this.configuration = configuration;
+        this.board         = board;
+        this.pegs          = pegs;
+    }
+
+    /**
+     * Get the starting position of a configuration.
+     * @param SolitaireCheckersConfigurations the configuration
+     * @return Position the position
+     */
+    public static Position of( SolitaireCheckersConfigurations configuration ) {
+        return of( SolitaireCheckersTemplate.of(configuration) );
+    }
+
+    /**
+     * Get the standard starting position of a board.
+     * @param BoardGeometry the board
+     * @return Position the position
+     */
+    public static Position of( BoardGeometry geometry ) {
+        return of( SolitaireCheckersTemplate.of(geometry) );
+    }
+
+    /**
+     * Get the current position of a game.
+     * @param SolitaireCheckersModel the game
+     * @return Position the position
+     */
+    public static Position of( SolitaireCheckersModel model ) {
+        return new Position( model.getGeometry(), model.getConfiguration(), model.getBitboard(),
+                             model.getNumberOfPegs() );
+    }
+
+    /**
+     * Get the starting position of a template.
+     * @param SolitaireCheckersTemplate the template
+     * @return Position the position
+     */
+    public static Position of( SolitaireCheckersTemplate template ) {
+        return new Position( template.getGeometry(), template.getConfiguration(), template.getBoard(),
+                             template.getNumberOfPegs() );
+    }
+
+    /**
+     * Get a position on a board.
+     * @param BoardGeometry the board
+     * @param SolitaireCheckersConfigurations the configuration it comes
+     * from, or null (configurations are English boards)
+     * @param long the bitboard
+     * @return Position the position
+     * @throws IllegalArgumentException if the bitboard has a peg off the
+     * board, or a configuration is given for another board
+     */
+    public static Position of( BoardGeometry geometry, SolitaireCheckersConfigurations configuration, long board ) {
+        if ( (board & ~geometry.getValid()) != 0L )
+            throw new IllegalArgumentException( "the board has pegs off the " + geometry + " board" );
+        if ( (configuration != null) && (geometry != BoardGeometry.ENGLISH) )
+            throw new IllegalArgumentException( "configurations are for the English board, not the " + geometry + " board" );
+
+        return new Position( geometry, configuration, board, Long.bitCount(board) );
+    }
+
+    /**
+     * Play a move.
+     * @param int the move code (see BoardGeometry)
+     * @return Position the position after the move
+     * @throws IllegalArgumentException if the move is not legal here
+     */
+    public Position apply( int move ) {
+        if ( !this.isLegal(move) )
+            throw new IllegalArgumentException( "move " + move + " is not legal" );
+
+        return new Position( geometry, configuration, geometry.apply(board, move), pegs - 1 );
+    }
+
+    /**
+     * Fill moves with the code of every legal move. Nothing is allocated.
+     * @param int[] buffer of at least BoardGeometry.MAX_MOVES entries
+     * @return int the number of legal moves written
+     */
+    public int generateMoves( int[] moves ) {
+        return geometry.generateMoves( board, moves );
+    }
+
+    /**
+     * Get the bitboard.
+     * @return long the bitboard (see BoardGeometry)
+     */
+    public long getBoard() {
+        return board;
+    }
+
+    /**
+     * Get the canonical hash: the same for every image of this position
+     * under the board's symmetries (see BoardGeometry.canonicalHash).
+     * @return long the hash
+     */
+    public long getCanonicalHash() {
+        return geometry.canonicalHash( board );
+    }
+
+    /**
+     * Get the configuration the game started from.
+     * @return SolitaireCheckersConfigurations the configuration, or null
+     */
+    public SolitaireCheckersConfigurations getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Get the board.
+     * @return BoardGeometry the geometry
+     */
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Get the number of pegs.
+     * @return int the number of pegs
+     */
+    public int getNumberOfPegs() {
+        return pegs;
+    }
+
+    /**
+     * Answer whether or not move is legal here.
+     * @param int the move code (see BoardGeometry)
+     * @return boolean true if the move is legal; otherwise, false
+     */
+    public boolean isLegal( int move ) {
+        return (move >= 0) && (move < geometry.getMoves()) && geometry.isLegal( board, move );
+    }
+
+    /**
+     * Answer whether or not the game is lost: no jump, and more than one peg.
+     * @return boolean true if the game is lost; otherwise, false
+     */
+    public boolean isLost() {
+        for( int direction = 0; direction < geometry.getDirections(); direction++ ) {
+            if ( geometry.jumpers(board, direction) != 0L )
+                return false;
+        }
+
+        return pegs > 1;
+    }
+
+    /**
+     * Answer whether or not the game is won with the last peg off the center.
+     * @return boolean true if the game is won; otherwise, false
+     */
+    public boolean isWon() {
+        return (pegs == 1) && ((board & geometry.getCenter()) == 0L);
+    }
+
+    /**
+     * Answer whether or not the game is won with the last peg in the center.
+     * @return boolean true if the game is perfectly won; otherwise, false
+     */
+    public boolean isWonIdeal() {
+        return (pegs == 1) && ((board & geometry.getCenter()) != 0L);
+    }
+
+    /**
+     * Start a game from this position. Resetting the game comes back here.
+     * @return SolitaireCheckersModel the game
+     */
+    public SolitaireCheckersModel toModel() {
+        return new SolitaireCheckersModel( SolitaireCheckersTemplate.of(this) );
+    }
+
+    @Override
+    public boolean equals( Object other ) {
+        if ( !(other instanceof Position) )
+            return false;
+
+        return (board == ((Position) other).board) && (geometry == ((Position) other).geometry);
+    }
+
+    @Override
+    public int hashCode() {
+        return LongHashSet.index( board );
+    }
+
+    /**
+     * Return this position as a string: 'o' for a peg, '.' for a hole,
+     * one line per row.
+     * @return String
+     */
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+
+        for( int row = 0; row < geometry.getRows(); row++ ) {
+            if ( row > 0 )
+                s.append( '\n' );
+            for( int column = 0; column < geometry.widthOf(row); column++ )
+                s.append( ((board & (1L << geometry.bit(row, column))) != 0L) ? 'o' : '.' );
+        }
+
+        return s.toString();
+    }
+}
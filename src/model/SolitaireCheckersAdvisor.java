@@ -0,0 +1,197 @@
+package model;
+
+/**
+ * Answers hints (see SolitaireCheckersHint) on the positions of one board.
+ *
+ * Positions covered by an endgame database are looked up; others are
+ * solved (see SolitaireCheckersSolver) and remembered in a bounded, least
+ * recently used cache keyed by board. A solve searching more than
+ * NODE_LIMIT positions gives up, leaving the position UNKNOWN, so a hint
+ * always answers in bounded time and memory. Solving a position also remembers
+ * every position along its winning line, so following the hints, or
+ * undoing and replaying them, only hits the cache.
+ *
+ * An advisor is thread-safe: hints are answered one at a time.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class SolitaireCheckersAdvisor {
+
+    public static final int  DEFAULT_CAPACITY = 4096;
+    public static final long NODE_LIMIT       = 2000000L;
+
+    private static final int MOVE_MASK = 0xFFFF;
+    private static final int NO_MOVE   = EndgameDatabase.NO_MOVE & MOVE_MASK;
+
+    private final BoardGeometry           geometry;
+    private final SolitaireCheckersSolver solver;
+    private final AnalysisCache           cache;
+    private EndgameDatabase               endgames;
+
+
+    /**
+     * Creates an advisor with a cache of DEFAULT_CAPACITY positions.
+     * @param BoardGeometry the board
+     */
+    public SolitaireCheckersAdvisor( BoardGeometry geometry ) {
+        this( geometry, DEFAULT_CAPACITY );
+    }
+
+    /**
+     * Creates an advisor.
+     * @param BoardGeometry the board
+     * @param int number of positions remembered, at least 1
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public SolitaireCheckersAdvisor( BoardGeometry geometry, int capacity ) {
+        this.geometry = geometry;
+        this.solver   = new SolitaireCheckersSolver( geometry );
+        this.cache    = new AnalysisCache( capacity );
+        this.solver.setNodeLimit( NODE_LIMIT );
+    }
+
+    /**
+     * Get the next move of a winning line, an ideal one when there is one.
+     * @param long board
+     * @return int the move code, or EndgameDatabase.NO_MOVE when board is
+     * lost, already won, or too hard to solve
+     */
+    public synchronized int getBestMove( long board ) {
+        return this.move( this.analyse(board) );
+    }
+
+    /**
+     * Get the cache's counters.
+     * @return long[] hits, misses and evictions
+     */
+    public synchronized long[] getCacheStatistics() {
+        return new long[] { cache.getHits(), cache.getMisses(), cache.getEvictions() };
+    }
+
+    /**
+     * Get the board.
+     * @return BoardGeometry the geometry
+     */
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Get the hint of a position.
+     * @param long board
+     * @return SolitaireCheckersHint the hint
+     */
+    public synchronized SolitaireCheckersHint getHint( long board ) {
+        int analysis = this.analyse( board );
+
+        return new SolitaireCheckersHint( geometry, board, analysis >> 16, this.move(analysis) );
+    }
+
+    /**
+     * Use an endgame database for the positions it covers.
+     * @param EndgameDatabase the database, or null for none
+     * @throws IllegalArgumentException if the database is for another board
+     */
+    public synchronized void setEndgameDatabase( EndgameDatabase endgames ) {
+        if ( (endgames != null) && (endgames.getIndex().getGeometry() != geometry) )
+            throw new IllegalArgumentException( "the database is not for the " + geometry + " board" );
+
+        this.endgames = endgames;
+    }
+
+    /**
+     * Return this advisor's cache counters as a string.
+     * @return String
+     */
+    @Override
+    public synchronized String toString() {
+        return cache.toString();
+    }
+
+    /**
+     * Analyse board: from the database, the cache, or the solver.
+     * @param long board
+     * @return int the outcome in the high 16 bits, the move in the low 16
+     */
+    private int analyse( long board ) {
+        int pegs = Long.bitCount( board );
+        int analysis;
+
+        if ( pegs <= 1 ) {
+            if ( pegs == 0 )
+                return pack( EndgameDatabase.LOST, EndgameDatabase.NO_MOVE );
+            return pack( ((board & geometry.getCenter()) != 0L) ? EndgameDatabase.WINNABLE_IDEAL
+                                                                : EndgameDatabase.WINNABLE,
+                         EndgameDatabase.NO_MOVE );
+        }
+
+        if ( (endgames != null) && (pegs <= endgames.getMaxPegs() + 1) )
+            return this.lookup( board );
+
+        analysis = cache.get( board );
+        if ( analysis == AnalysisCache.MISSING )
+            analysis = this.solve( board );
+
+        return analysis;
+    }
+
+    /**
+     * Analyse board from the endgame database, which covers its successors.
+     * @param long board
+     * @return int the analysis
+     */
+    private int lookup( long board ) {
+        int move = endgames.bestMove( board );
+
+        if ( move == EndgameDatabase.NO_MOVE )
+            return pack( EndgameDatabase.LOST, move );
+
+        return pack( endgames.lookup(geometry.apply(board, move)), move );
+    }
+
+    /**
+     * Solve board, caching it and every position along its winning line.
+     * @param long board
+     * @return int the analysis
+     */
+    private int solve( long board ) {
+        SolitaireCheckersSolution solution = solver.solve( board );
+        int[]                     line     = solution.getMoves();
+        long[]                    position = new long[line.length];
+        int                       outcome;
+
+        if ( !solution.isComplete() ) {
+            cache.put( board, pack(EndgameDatabase.UNKNOWN, EndgameDatabase.NO_MOVE) );
+            return pack( EndgameDatabase.UNKNOWN, EndgameDatabase.NO_MOVE );
+        }
+
+        if ( !solution.isWinnable() ) {
+            cache.put( board, pack(EndgameDatabase.LOST, EndgameDatabase.NO_MOVE) );
+            return pack( EndgameDatabase.LOST, EndgameDatabase.NO_MOVE );
+        }
+
+        /* A position after an ideal move is ideal, and one after a winning
+         * move is not, or the position before it would have been. */
+        outcome = solution.isWinnableIdeal() ? EndgameDatabase.WINNABLE_IDEAL : EndgameDatabase.WINNABLE;
+        position[0] = board;
+        for( int i = 1; i < line.length; i++ ) {
+            position[i] = geometry.apply( position[i - 1], line[i - 1] );
+        }
+        for( int i = line.length - 1; i >= 0; i-- ) {
+            cache.put( position[i], pack(outcome, line[i]) );
+        }
+
+        return pack( outcome, line[0] );
+    }
+
+    private int move( int analysis ) {
+        int move = analysis & MOVE_MASK;
+
+        return (move == NO_MOVE) ? EndgameDatabase.NO_MOVE : move;
+    }
+
+    private static int pack( int outcome, int move ) {
+        return (outcome << 16) | (move & MOVE_MASK);
+    }
+}
@@ -0,0 +1,151 @@
+package model;
+
+/**
+ * Advice on a solitaire checkers position: how it can end and, when it can
+ * still be won, the next move of a winning line (see SolitaireCheckersAdvisor).
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class SolitaireCheckersHint {
+
+    private final BoardGeometry geometry;
+    private final long          board;
+    private final int           outcome;
+    private final int           move;
+
+
+    /**
+     * Creates a hint.
+     * @param BoardGeometry the board
+     * @param long the position
+     * @param int EndgameDatabase.WINNABLE_IDEAL, WINNABLE, LOST or UNKNOWN
+     * @param int the move code, or EndgameDatabase.NO_MOVE
+     */
+    public SolitaireCheckersHint( BoardGeometry geometry, long board, int outcome, int move ) {
+        this.geometry = geometry;
+        this.board    = board;
+        this.outcome  = outcome;
+        this.move     = move;
+    }
+
+    /**
+     * Get the position the hint is for.
+     * @return long the board
+     */
+    public long getBoard() {
+        return board;
+    }
+
+    /**
+     * Get the column of the peg to jump.
+     * @return int the column, or -1 when there is no move
+     */
+    public int getFromColumn() {
+        return this.hasMove() ? geometry.columnOf( geometry.moveFrom(move) ) : -1;
+    }
+
+    /**
+     * Get the row of the peg to jump.
+     * @return int the row, or -1 when there is no move
+     */
+    public int getFromRow() {
+        return this.hasMove() ? geometry.rowOf( geometry.moveFrom(move) ) : -1;
+    }
+
+    /**
+     * Get the move to play.
+     * @return int the move code, or EndgameDatabase.NO_MOVE when the
+     * position is lost, already won, or unknown
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * Get how the position can end.
+     * @return int EndgameDatabase.WINNABLE_IDEAL, WINNABLE, LOST, or UNKNOWN
+     * when the position was too hard to solve
+     */
+    public int getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Get the column the peg lands in.
+     * @return int the column, or -1 when there is no move
+     */
+    public int getToColumn() {
+        return this.hasMove() ? geometry.columnOf( geometry.moveTo(move) ) : -1;
+    }
+
+    /**
+     * Get the row the peg lands in.
+     * @return int the row, or -1 when there is no move
+     */
+    public int getToRow() {
+        return this.hasMove() ? geometry.rowOf( geometry.moveTo(move) ) : -1;
+    }
+
+    /**
+     * Answer whether or not there is a move to play.
+     * @return boolean true if getMove() is a move; otherwise, false
+     */
+    public boolean hasMove() {
+        return move != EndgameDatabase.NO_MOVE;
+    }
+
+    /**
+     * Answer whether or not the outcome of the position is known.
+     * @return boolean true if solved; otherwise, false
+     */
+    public boolean isKnown() {
+        return outcome != EndgameDatabase.UNKNOWN;
+    }
+
+    /**
+     * Answer whether or not the position can no longer be won.
+     * @return boolean true if lost; otherwise, false
+     */
+    public boolean isLost() {
+        return outcome == EndgameDatabase.LOST;
+    }
+
+    /**
+     * Answer whether or not the position can still be ideally won.
+     * @return boolean true if the last peg can still finish in the center; otherwise, false
+     */
+    public boolean isWinnableIdeal() {
+        return outcome == EndgameDatabase.WINNABLE_IDEAL;
+    }
+
+    /**
+     * Return this hint as a string, rows and columns numbered from 1 as
+     * the model's status names pegs.
+     * @return String
+     */
+    @Override
+    public String toString() {
+        StringBuffer s;
+
+        if ( this.isLost() )
+            return "lost";
+        if ( !this.isKnown() )
+            return "unknown";
+
+        s = new StringBuffer( this.isWinnableIdeal() ? "winnable ideal" : "winnable" );
+        if ( this.hasMove() ) {
+            s.append( ", jump (" );
+            s.append( this.getFromRow() + 1 );
+            s.append( ',' );
+            s.append( this.getFromColumn() + 1 );
+            s.append( ") to (" );
+            s.append( this.getToRow() + 1 );
+            s.append( ',' );
+            s.append( this.getToColumn() + 1 );
+            s.append( ')' );
+        }
+
+        return s.toString();
+    }
+}
@@ -1,6 +1,7 @@
 package model;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Model the game of solitaire checkers (also known as Hi-Q).
@@ -11,35 +12,43 @@ import java.util.*;
 public class SolitaireCheckersModel extends Observable implements SolitaireCheckersConstants
                                                                 , SolitaireCheckersGameable
 {
-    private static final int CENTER_COLUMN = 3;
-    private static final int CENTER_ROW    = 3;
-    private static final int DELTA         = 2;
-    private static final int MAX_COLUMNS   = 7;
-    private static final int MAX_ROWS      = 7;
-
-    private static final int DOWN_OFFSET  = 1;
-    private static final int LEFT_OFFSET  = -1;
-    private static final int RIGHT_OFFSET = 1;
-    private static final int UP_OFFSET    = -1;
-
-    private static final int UP           = 0;
-    private static final int RIGHT        = 1;
-    private static final int DOWN         = 2;
-    private static final int LEFT         = 3;
     public  static final int ROW          = 0;
     public  static final int COLUMN       = 1;
     public  static final int ILLEGAL_JUMP = -1;
 
+    public  static final int MAX_MOVES    = BoardGeometry.MAX_MOVES;   // size of a generateMoves buffer
+
     private static final int UNDEFINED    = -1;
 
-    private boolean[][]                     board;
+    private static final String NO_STATUS = "";
+
+    private static final BoardChangeListener[] NO_LISTENERS = new BoardChangeListener[0];
+
+    private final BoardGeometry             geometry;
+    private long                            board;
+    private int                             pegs;
+    private long[]                          jumpers;
+    private long[]                          hashes;
     private SolitaireCheckersConfigurations configuration;
     private int                             numberOfStartingPegs;
     private int                             lastColumn;
     private int                             lastRow;
     private int[][]                         possibleJumps;
+    private MoveHistory                     history;
+    private SolitaireCheckersTemplate       template;
+    private EndgameDatabase                 endgames;
+    private SolitaireCheckersAdvisor        advisor;
+    private long                            possibleJumpCells;
     private String                          status;
 
+    private final AtomicReference<BoardChangeListener[]> listeners;
+    private volatile boolean                             observed;
+    private int                                          batchDepth;
+    private boolean                                      batchChanged;
+    private long                                         publishedBoard;
+    private long                                         publishedPossibleJumps;
+    private int                                          publishedPegs;
+
 
     /**
      * Default constructor that creates a solitaire checkers board.
@@ -53,179 +62,124 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
      * @param SolitaireCheckersConfiguration starting configuration
      */
     public SolitaireCheckersModel( SolitaireCheckersConfigurations configuration ) {
-        super();
+        this( SolitaireCheckersTemplate.of(configuration) );
+    }
 
-        board = new boolean[MAX_ROWS][];
-        board[0] = new boolean[3];
-        board[1] = new boolean[3];
-        board[2] = new boolean[7];
-        board[3] = new boolean[7];
-        board[4] = new boolean[7];
-        board[5] = new boolean[3];
-        board[6] = new boolean[3];
+    /**
+     * Creates a game on a board, from its standard start.
+     * @param BoardGeometry the board
+     */
+    public SolitaireCheckersModel( BoardGeometry geometry ) {
+        this( SolitaireCheckersTemplate.of(geometry) );
+    }
 
-        possibleJumps = new int[4][2];
+    /**
+     * Creates a game from a starting position.
+     * @param SolitaireCheckersTemplate the starting position
+     */
+    public SolitaireCheckersModel( SolitaireCheckersTemplate template ) {
+        super();
 
-        this.setConfiguration( configuration );
+        geometry      = template.getGeometry();
+        listeners     = new AtomicReference<BoardChangeListener[]>( NO_LISTENERS );
+        possibleJumps = new int[geometry.getDirections()][2];
+        jumpers       = new long[geometry.getDirections()];
+        hashes        = new long[geometry.getSymmetries()];
+        history       = new MoveHistory( geometry.getHoles() );
 
-        this.reset();
+        this.setTemplate( template );
     }
 
     /**
-     * Put a peg to each cell on the board.
+     * Register a listener of board changes.
+     * Registration is lock-free, and listeners are called in the order
+     * they were added.
+     * @param BoardChangeListener the listener
      */
-    private void addAllPegs() {
-        for( int i = 0; i < board.length; i++ ) {
-            for( int j = 0; j < board[i].length; j++ ) {
-                board[i][j] = true;
-            }
-        }
+    public void addBoardChangeListener( BoardChangeListener listener ) {
+        BoardChangeListener[] current;
+        BoardChangeListener[] next;
+
+        do {
+            current = listeners.get();
+            next = new BoardChangeListener[current.length + 1];
+            System.arraycopy( current, 0, next, 0, current.length );
+            next[current.length] = listener;
+        } while( listeners.compareAndSet(current, next) == false );
     }
 
     /**
-     * Put a peg at position row, column
-     * @param int row
-     * @param int column
+     * Register an Observer; observers are only notified while at least
+     * one is registered.
+     * @param Observer the observer
      */
-    private void addPegAt( int row, int column ) {
-        board[row][column] = true;
+    @Override
+    public synchronized void addObserver( Observer observer ) {
+        super.addObserver( observer );
+        observed = true;
     }
 
     /**
-     * Answer whether or not the peg at row, column can jump
-     * an any direction.
-     * @param int row
-     * @param int column
-     * @return boolean true if the peg can jump; otherwise, false
+     * Play a move on the board (and its hashes) only: the status, the
+     * possible jumps and the observers are left alone, so search code can
+     * call this (and undoMove) millions of times without side effects or
+     * allocation.
+     * @param int the move code (see BoardGeometry); must be legal
      */
-    private boolean canPegAtJump( int row, int column ) {
-        return (this.canPegAtJumpVertical(row, column, UP_OFFSET) ||
-                this.canPegAtJumpVertical(row, column, DOWN_OFFSET) ||
-                this.canPegAtJumpHorizontal(row, column, LEFT_OFFSET) ||
-                this.canPegAtJumpHorizontal(row, column, RIGHT_OFFSET) );
+    public void applyMove( int move ) {
+        if ( ModelMetrics.ENABLED )
+            ModelMetrics.MOVES_APPLIED.increment();
+
+        board = geometry.apply( board, move );
+        pegs--;
+        this.updateJumpers( geometry.moveNeighbourhood(move) );
+        this.updateHashes( move );
     }
 
     /**
-     * Answer whether or not the peg at row, column can jump
-     * left or right.
-     * @param int row
-     * @param int column
-     * @return boolean true if the peg can jump left or right; otherwise, false
+     * Start a batch: until the matching endBatch, changes are not
+     * published. Batches nest.
      */
-    private boolean canPegAtJumpHorizontal( int row, int column, int offset ) {
-        int row1;
-        int column1;
-        int row2;
-        int column2;
-        int orientation;
-
-
-        if ( offset > 0 )
-            orientation = RIGHT;
-        else
-            orientation = LEFT;
-
-        possibleJumps[orientation][ROW]    = ILLEGAL_JUMP;
-        possibleJumps[orientation][COLUMN] = ILLEGAL_JUMP;
-
-        row2 = row;
-        column2 = column + (DELTA * offset);
-        if ( this.isRowAndColumnValid(row2, column2) == false )
-            return false;
-
-        if ( this.isPegAt(row2, column2) )
-            return false;
-
-        row1    = row;
-        column1 = column + offset;
-        if ( this.isRowAndColumnValid(row1, column1) == false )
-            return false;
+    public void beginBatch() {
+        batchDepth++;
+    }
 
-        if ( this.isPegAt(row1, column1) ) {
-            possibleJumps[orientation][ROW]    = row2;
-            possibleJumps[orientation][COLUMN] = column2;
-            return true;
-        }
+    /**
+     * Answer whether or not a move can be redone.
+     * @return boolean true if a move was undone; otherwise, false
+     */
+    public boolean canRedo() {
+        return history.canRedo();
+    }
 
-        return false;
+    /**
+     * Answer whether or not a move can be undone.
+     * @return boolean true if a move was played; otherwise, false
+     */
+    public boolean canUndo() {
+        return history.canUndo();
     }
 
     /**
      * Answer whether or not the peg at row, column can jump
-     * to multiple positions.
+     * an any direction.
      * @param int row
      * @param int column
-     * @return boolean true if the peg can jump to multiple positions; otherwise, false
+     * @return boolean true if the peg can jump; otherwise, false
      */
-    private boolean canPegAtJumpMultiple( int row, int column ) {
-        int count;
-
-        count = 0;
-
-        if ( this.canPegAtJumpVertical(row, column, UP_OFFSET) )
-            count++;
-
-        if ( this.canPegAtJumpVertical(row, column, DOWN_OFFSET) )
-            count++;
-
-        if ( this.canPegAtJumpHorizontal(row, column, LEFT_OFFSET) )
-            count++;
-
-        if ( this.canPegAtJumpHorizontal(row, column, RIGHT_OFFSET) )
-            count++;
-
-        return count > 1;
+    private boolean canPegAtJump( int row, int column ) {
+        return this.jumpDirectionsAt( row, column ) != 0;
     }
 
     /**
      * Answer whether or not the peg at row, column can jump
-     * up or down.
+     * to multiple positions.
      * @param int row
      * @param int column
-     * @return boolean true if the peg can jump up or down; otherwise, false
+     * @return boolean true if the peg can jump to multiple positions; otherwise, false
      */
-    private boolean canPegAtJumpVertical( int row, int column, int offset ) {
-        int row1;
-        int column1;
-        int row2;
-        int column2;
-        int orientation;
-
-
-        if ( offset > 0 )
-            orientation = DOWN;
-        else
-            orientation = UP;
-
-        possibleJumps[orientation][ROW]    = ILLEGAL_JUMP;
-        possibleJumps[orientation][COLUMN] = ILLEGAL_JUMP;
-
-        row2 = row + (DELTA * offset);
-        if ( this.isRowValid(row2) == false )
-            return false;
-
-        column2 = this.transposeColumn( row, column, row2 );
-        if ( this.isRowAndColumnValid(row2, column2) == false )
-            return false;
-
-        if ( this.isPegAt(row2, column2) )
-            return false;
-
-        row1 = row + offset;
-        if ( this.isRowValid(row1) == false )
-            return false;
-
-        column1 = this.transposeColumn( row, column, row1 );
-        if ( this.isRowAndColumnValid(row1, column1) == false )
-            return false;
-
-        if ( this.isPegAt(row1, column1) ) {
-            possibleJumps[orientation][ROW]    = row2;
-            possibleJumps[orientation][COLUMN] = column2;
-            return true;
-        }
-
-        return false;
+    private boolean canPegAtJumpMultiple( int row, int column ) {
+        return Integer.bitCount( this.jumpDirectionsAt(row, column) ) > 1;
     }
 
     /**
@@ -236,6 +190,7 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
             possibleJumps[i][ROW]    = ILLEGAL_JUMP;
             possibleJumps[i][COLUMN] = ILLEGAL_JUMP;
         }
+        possibleJumpCells = 0L;
     }
 
     /**
@@ -244,197 +199,191 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
      * @return int the number of columns
      */
     public int columnsAt( int row ) {
-        return board[row].length;
+        return geometry.widthOf( row );
     }
 
     /**
-     * Set the board in (up) arrow configuration.
+     * Describe the peg a move jumps from as "row, column" (1 based).
+     * @param int the move code
+     * @return String the description
      */
-    private void configureAsArrow() {
-
-        this.removeAllPegs();
+    private String describeMove( int move ) {
+        int from = geometry.moveFrom( move );
 
-        this.addPegAt( 0, 1 );
-        this.addPegAt( 1, 0 );
-        this.addPegAt( 1, 1 );
-        this.addPegAt( 1, 2 );
-        this.addPegAt( 2, 1 );
-        this.addPegAt( 2, 2 );
-        this.addPegAt( 2, 3 );
-        this.addPegAt( 2, 4 );
-        this.addPegAt( 2, 5 );
-        this.addPegAt( 3, 3 );
-        this.addPegAt( 4, 3 );
-        this.addPegAt( 5, 0 );
-        this.addPegAt( 5, 1 );
-        this.addPegAt( 5, 2 );
-        this.addPegAt( 6, 0 );
-        this.addPegAt( 6, 1 );
-        this.addPegAt( 6, 2 );
-
-        this.setNumberOfStartingPegs( 17 );
+        return (geometry.rowOf(from) + 1) + ", " + (geometry.columnOf(from) + 1);
     }
 
     /**
-     * Set the board in cross configuration.
+     * Unregister an Observer.
+     * @param Observer the observer
      */
-    private void configureAsCross() {
-
-        this.removeAllPegs();
-
-        this.addPegAt( 1, 1 );
-        this.addPegAt( 2, 2 );
-        this.addPegAt( 2, 3 );
-        this.addPegAt( 2, 4 );
-        this.addPegAt( 3, 3 );
-        this.addPegAt( 4, 3 );
-
-        this.setNumberOfStartingPegs( 6 );
+    @Override
+    public synchronized void deleteObserver( Observer observer ) {
+        super.deleteObserver( observer );
+        observed = this.countObservers() > 0;
     }
 
     /**
-     * Set the board in diamond configuration.
+     * Unregister every Observer.
      */
-    private void configureAsDiamond() {
-
-        this.addAllPegs();
-
-        this.removePegAt( 0, 0 );
-        this.removePegAt( 0, 2 );
-        this.removePegAt( 2, 0 );
-        this.removePegAt( 2, 6 );
-        this.removePegAt( 3, 3 );
-        this.removePegAt( 4, 0 );
-        this.removePegAt( 4, 6 );
-        this.removePegAt( 6, 0 );
-        this.removePegAt( 6, 2 );
-
-        this.setNumberOfStartingPegs( 8 );
+    @Override
+    public synchronized void deleteObservers() {
+        super.deleteObservers();
+        observed = false;
     }
 
     /**
-     * Set the board in double-arrow configuration.
+     * Display the board to standard out.
+     * Debug method.
      */
-    private void configureAsDoubleArrow() {
+    public void displayPossibleJumps() {
+        for( int i = 0; i < possibleJumps.length; i++ ) {
+            System.out.println( "possibleJumps[" + i + "] is " +
+                possibleJumps[i][ROW] + ", " + possibleJumps[i][COLUMN] );
+        }
+    }
 
-        this.configureAsArrow();
+    /**
+     * End a batch. When the outermost batch ends, every change made
+     * during the batch is published as a single event.
+     */
+    public void endBatch() {
+        if ( batchDepth == 0 )
+            return;
 
-        this.addPegAt( 3, 2 );
-        this.addPegAt( 3, 4 );
-        this.addPegAt( 4, 1 );
-        this.addPegAt( 4, 2 );
-        this.addPegAt( 4, 4 );
-        this.addPegAt( 4, 5 );
-        this.removePegAt( 6, 0 );
-        this.removePegAt( 6, 2 );
+        if ( (--batchDepth == 0) && batchChanged )
+            this.publishChanges();
     }
 
     /**
-     * Set the board in fireplace configuration.
+     * Fill moves with the code of every legal move (see BoardGeometry).
+     * Nothing is allocated.
+     * @param int[] caller supplied buffer of at least MAX_MOVES entries
+     * @return int the number of legal moves written to the buffer
      */
-    private void configureAsFireplace() {
-
-        this.removeAllPegs();
+    public int generateMoves( int[] moves ) {
+        int count = 0;
 
-        this.addPegAt( 0, 0 );
-        this.addPegAt( 0, 1 );
-        this.addPegAt( 0, 2 );
-        this.addPegAt( 1, 0 );
-        this.addPegAt( 1, 1 );
-        this.addPegAt( 1, 2 );
-        this.addPegAt( 2, 2 );
-        this.addPegAt( 2, 3 );
-        this.addPegAt( 2, 4 );
-        this.addPegAt( 3, 2 );
-        this.addPegAt( 3, 4 );
+        for( int direction = 0; direction < jumpers.length; direction++ ) {
+            long from = jumpers[direction];
+            while( from != 0L ) {
+                moves[count++] = geometry.moveCode( Long.numberOfTrailingZeros(from), direction );
+                from &= from - 1;
+            }
+        }
 
-        this.setNumberOfStartingPegs( 11 );
+        return count;
     }
 
     /**
-     * Set the board in plus configuration.
+     * Get the board as a bitboard (see BoardGeometry).
+     * @return long the pegs on the board
      */
-    private void configureAsPlus() {
+    public long getBitboard() {
+        return board;
+    }
 
-        this.removeAllPegs();
+    public int getBoardLength() {
+    	return geometry.getRows();
+    }
+    
+    public int getBoardLengthAt( int row ) {
+    	return geometry.widthOf( row );
+    }
 
-        this.addPegAt( 1, 1 );
-        this.addPegAt( 2, 3 );
-        this.addPegAt( 3, 1 );
-        this.addPegAt( 3, 2 );
-        this.addPegAt( 3, 3 );
-        this.addPegAt( 3, 4 );
-        this.addPegAt( 3, 5 );
-        this.addPegAt( 4, 3 );
-        this.addPegAt( 5, 1 );
+    /**
+     * Get the advisor answering getHint and getBestMove, created on first use.
+     * @return SolitaireCheckersAdvisor the advisor, shared with any other thread
+     */
+    public SolitaireCheckersAdvisor getAdvisor() {
+        if ( advisor == null ) {
+            advisor = new SolitaireCheckersAdvisor( geometry );
+            advisor.setEndgameDatabase( endgames );
+        }
 
-        this.setNumberOfStartingPegs( 9 );
+        return advisor;
     }
 
     /**
-     * Set the board in pyramid configuration.
+     * Get the next move of a winning line from the position, an ideal one
+     * when there is one. Repeated positions are answered from the advisor's cache.
+     * @return int the move code, or EndgameDatabase.NO_MOVE when the
+     * position is lost or already won
      */
-    private void configureAsPyramid() {
-
-        this.removeAllPegs();
+    public int getBestMove() {
+        return this.getAdvisor().getBestMove( board );
+    }
 
-        this.addPegAt( 1, 1 );
-        this.addPegAt( 2, 2 );
-        this.addPegAt( 2, 3 );
-        this.addPegAt( 2, 4 );
-        this.addPegAt( 3, 1 );
-        this.addPegAt( 3, 2 );
-        this.addPegAt( 3, 3 );
-        this.addPegAt( 3, 4 );
-        this.addPegAt( 3, 5 );
-        this.addPegAt( 4, 0 );
-        this.addPegAt( 4, 1 );
-        this.addPegAt( 4, 2 );
-        this.addPegAt( 4, 3 );
-        this.addPegAt( 4, 4 );
-        this.addPegAt( 4, 5 );
-        this.addPegAt( 4, 6 );
+    /**
+     * Get the best move of the position from the endgame database.
+     * @return int the move code, or EndgameDatabase.NO_MOVE when there is
+     * no database, the position is not in it, or it is lost
+     */
+    public int getEndgameMove() {
+        if ( (endgames == null) || (pegs > endgames.getMaxPegs() + 1) )
+            return EndgameDatabase.NO_MOVE;
 
-        this.setNumberOfStartingPegs( 16 );
+        return endgames.bestMove( board );
     }
 
     /**
-     * Set the board in solitaire configuration.
+     * Get the hash of the position, the same for every position that is
+     * an image of this one under a rotation or reflection of the board.
+     * Kept up to date on every move, so this is free.
+     * @return long the canonical hash (see BoardGeometry.canonicalHash)
      */
-    private void configureAsSolitaire() {
+    public long getCanonicalHash() {
+        long best = hashes[BoardGeometry.IDENTITY];
 
-        this.addAllPegs();
+        for( int symmetry = 1; symmetry < hashes.length; symmetry++ ) {
+            best = Math.min( best, hashes[symmetry] );
+        }
 
-        this.removePegAt( 3, 3 );
+        return best;
+    }
 
-        this.setNumberOfStartingPegs( 32 );
+    /**
+     * Get the hint of the position: whether or not it can still be won
+     * and, if it can, the next move of a winning line.
+     * @return SolitaireCheckersHint the hint
+     */
+    public SolitaireCheckersHint getHint() {
+        return this.getAdvisor().getHint( board );
     }
 
     /**
-     * Display the board to standard out.
-     * Debug method.
+     * Get this game's configuration.
+     * @return SolitaireCheckersConfiguration the configuration, or null
+     * on a board other than the English board
      */
-    public void displayPossibleJumps() {
-        for( int i = 0; i < possibleJumps.length; i++ ) {
-            System.out.println( "possibleJumps[" + i + "] is " +
-                possibleJumps[i][ROW] + ", " + possibleJumps[i][COLUMN] );
-        }
+    public SolitaireCheckersConfigurations getConfiguration() {
+        return configuration;
     }
 
-    public int getBoardLength() {
-    	return board.length;
+    /**
+     * Get the board's geometry.
+     * @return BoardGeometry the geometry
+     */
+    public BoardGeometry getGeometry() {
+        return geometry;
     }
-    
-    public int getBoardLengthAt( int row ) {
-    	return board[row].length;
+
+    /**
+     * Get the Zobrist hash of the position. Kept up to date on every move,
+     * so this is free.
+     * @return long the hash (see BoardGeometry.hash)
+     */
+    public long getHash() {
+        return hashes[BoardGeometry.IDENTITY];
     }
 
     /**
-     * Get this game's configuration.
-     * @return SolitaireCheckersConfiguration the configuration
+     * Get the pegs that can jump in direction.
+     * @param int direction 0 to getGeometry().getDirections() - 1
+     * @return long mask of the bits of the jumping pegs
      */
-    public SolitaireCheckersConfigurations getConfiguration() {
-        return configuration;
+    public long getJumpers( int direction ) {
+        return jumpers[direction];
     }
 
     /**
@@ -442,17 +391,36 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
      * @return int the number of remaining pegs
      */
     public int getNumberOfPegs() {
-        int count;
+        return pegs;
+    }
 
-        count = 0;
-        for( int i = 0; i < board.length; i++ ) {
-            for( int j = 0; j < board[i].length; j++ ) {
-                if ( board[i][j] )
-                    count++;
-            }
-        }
+    /**
+     * Get the moves played since the last reset, one byte (move code) per move.
+     * @return byte[] the moves
+     */
+    public byte[] getMoves() {
+        return history.toByteArray();
+    }
 
-        return count;
+    /**
+     * Get every chain of jumps the peg at row, column can make (see JumpChains),
+     * to offer or weigh whole chains instead of one jump at a time.
+     * @param int row
+     * @param int column
+     * @return JumpChains the chains, none if there is no peg at row, column
+     */
+    public JumpChains getJumpChains( int row, int column ) {
+        int bit = geometry.bit( row, column );
+
+        return JumpChains.search( geometry, board, (bit == BoardGeometry.NO_HOLE) ? -1 : bit );
+    }
+
+    /**
+     * Get the position this game started from.
+     * @return SolitaireCheckersTemplate the template
+     */
+    SolitaireCheckersTemplate getTemplate() {
+        return template;
     }
 
     /**
@@ -463,6 +431,18 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
         return numberOfStartingPegs;
     }
 
+    /**
+     * Answer how the position can end, from the endgame database.
+     * @return int EndgameDatabase.WINNABLE_IDEAL, WINNABLE, LOST, or UNKNOWN
+     * when there is no database or the position is not in it
+     */
+    public int getOutlook() {
+        if ( endgames == null )
+            return EndgameDatabase.UNKNOWN;
+
+        return endgames.lookup( board );
+    }
+
     /**
      * Get all known possible jump positions.
      * @return int[][] collection of rows and columns
@@ -486,17 +466,13 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
      * can jump; otherwise, false
      */
     private boolean hasMoreJumps() {
-        for( int i = 0; i < board.length; i++ ) {
-            for( int j = 0; j < board[i].length; j++ ) {
-                if ( board[i][j] ) {
-                    if ( this.canPegAtJump(i, j) ) {
-                        return true;
-                    }
-                }
-            }
+        long any = 0L;
+
+        for( int direction = 0; direction < jumpers.length; direction++ ) {
+            any |= jumpers[direction];
         }
 
-        return false;
+        return any != 0L;
     }
 
     /**
@@ -529,6 +505,9 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
      */
     @Override
     public boolean isLost() {
+        if ( ModelMetrics.ENABLED )
+            ModelMetrics.LOST_CHECKS.increment();
+
         if ( this.hasMoreJumps() )
             return false;
 
@@ -536,16 +515,12 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
     }
 
     /**
-     * Answer whether or not there is a peg at position row, column.
-     * @param int row
-     * @param int column
-     * @return boolean true if there is a peg at row, column; otherwise, false
+     * Answer whether or not move is legal on the board.
+     * @param int the move code (see BoardGeometry)
+     * @return boolean true if the move is legal; otherwise, false
      */
-    public boolean isPegAt( int row, int column ) {
-        if ( this.isRowAndColumnValid(row, column) )
-            return board[row][column];
-
-        return false;
+    public boolean isLegalMove( int move ) {
+        return (move >= 0) && (move < geometry.getMoves()) && geometry.isLegal( board, move );
     }
 
     /**
@@ -554,21 +529,13 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
      * @param int column
      * @return boolean true if there is a peg at row, column; otherwise, false
      */
-    private boolean isRowAndColumnValid( int row, int column ) {
+    public boolean isPegAt( int row, int column ) {
+        int bit = geometry.bit( row, column );
 
-        if ( this.isRowValid(row) == false )
+        if ( bit == BoardGeometry.NO_HOLE )
             return false;
 
-        return ( (column >= 0) && (column < board[row].length) );
-    }
-
-    /**
-     * Answer whether or not row is in the range 0 to 7 (inclusive).
-     * @param int row
-     * @return boolean true if the row is valid; otherwise, false
-     */
-    private boolean isRowValid( int row ) {
-        return( (row >= 0) && (row < MAX_ROWS) );
+        return (board & (1L << bit)) != 0L;
     }
 
     /**
@@ -580,7 +547,7 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
      */
     @Override
     public boolean isWon() {
-        return ( (this.getNumberOfPegs() == 1) && (this.isPegAt(CENTER_ROW, CENTER_COLUMN) == false) );
+        return ( (this.getNumberOfPegs() == 1) && ((board & geometry.getCenter()) == 0L) );
     }
 
     /**
@@ -592,7 +559,7 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
      */
     @Override
     public boolean isWonIdeal() {
-        return ( (this.getNumberOfPegs() == 1) && this.isPegAt(CENTER_ROW, CENTER_COLUMN) );
+        return ( (this.getNumberOfPegs() == 1) && ((board & geometry.getCenter()) != 0L) );
     }
 
     /**
@@ -601,7 +568,7 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
      * @param int column
      */
     public void jumpPegAt( int row, int column ) {
-        StringBuffer b = new StringBuffer();
+        int directions;
 
         if ( this.isPegAt(row, column) == false )
             return;
@@ -609,81 +576,59 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
         this.rememberPegAt( row, column );
 
         if ( this.canPegAtJumpMultiple(row, column) ) {
-            b.append( "peg " );
-            b.append( (row + 1) + ", " + (column + 1) );
-            b.append( " has multiple jumps" );
-            this.setStatus( b.toString() );
+            if ( ModelMetrics.ENABLED )
+                ModelMetrics.MULTIPLE_JUMP_PROMPTS.increment();
+            this.rememberPossibleJumps( row, column );
+            this.setStatus( "peg " + (row + 1) + ", " + (column + 1) + " has multiple jumps" );
             this.updateObservers();
             return;
         }
 
-        if ( this.canPegAtJump(row, column) ) {
-            b.append( "peg " );
-            b.append( (row + 1) + ", " + (column + 1) );
-            b.append( " jumped" );
-        }
-        this.setStatus( b.toString() );
-
-        // up
-        if ( this.canPegAtJumpVertical(row, column, UP_OFFSET) ) {
-            // DEBUG
-            //System.out.println( "r " + row + " c " + column + " can jump UP" );
-            this.jumpPegAtVertical( row, column, UP_OFFSET );
-        }
-
-        // down
-        if ( this.canPegAtJumpVertical(row, column, DOWN_OFFSET) ) {
-            // DEBUG
-            //System.out.println( "r " + row + " c " + column + " can jump DOWN" );
-            this.jumpPegAtVertical( row, column, DOWN_OFFSET );
-        }
-
-        // left
-        if ( this.canPegAtJumpHorizontal(row, column, LEFT_OFFSET) ) {
-            // DEBUG
-            //System.out.println( "r " + row + " c " + column + " can jump LEFT" );
-            this.jumpPegAtHorizontal( row, column, LEFT_OFFSET );
-        }
+        this.clearPossibleJumps();
 
-        // right
-        if ( this.canPegAtJumpHorizontal(row, column, RIGHT_OFFSET) ) {
-            // DEBUG
-            //System.out.println( "r " + row + " c " + column + " can jump RIGHT" );
-            this.jumpPegAtHorizontal( row, column, RIGHT_OFFSET );
+        directions = this.jumpDirectionsAt( row, column );
+        if ( directions != 0 ) {
+            this.jumpPegAtToward( row, column, Integer.numberOfTrailingZeros(directions) );
+            this.setStatus( "peg " + (row + 1) + ", " + (column + 1) + " jumped" );
+        } else {
+            this.setStatus( NO_STATUS );
         }
 
         this.updateObservers();
     }
 
     /**
-     * Take the peg at position row, column and jump left or right.
+     * Take the peg at position row, column and jump toward direction.
+     * The jump must be legal.
      * @param int row
      * @param int column
+     * @param int direction (see BoardGeometry)
      */
-    private void jumpPegAtHorizontal( int row, int column, int offset ) {
-        int row2 = row;
-        int column2 = column + (DELTA * offset);
+    private void jumpPegAtToward( int row, int column, int direction ) {
+        int move = geometry.moveCode( geometry.bit(row, column), direction );
 
-        this.movePegFromTo( row, column, row2, column2 );
-
-        column2 = column + offset;
-        this.removePegAt( row2, column2 );
+        this.applyMove( move );
+        history.record( move );
     }
 
     /**
-     * Take the peg at position row, column and jump up or down.
+     * Answer the directions in which the peg at row, column can jump.
      * @param int row
      * @param int column
+     * @return int mask with bit (1 << direction) set for each legal jump
      */
-    private void jumpPegAtVertical( int row, int column, int offset ) {
-        int row2 = row + (DELTA * offset);
-        int column2 = this.transposeColumn( row, column, row2 );
+    private int jumpDirectionsAt( int row, int column ) {
+        int bit = geometry.bit( row, column );
+        int directions = 0;
 
-        this.movePegFromTo( row, column, row2, column2 );
+        if ( bit == BoardGeometry.NO_HOLE )
+            return 0;
 
-        row2 = row + offset;
-        column2 = this.transposeColumn( row, column, row2 );
-        this.removePegAt( row2, column2 );
+        for( int direction = 0; direction < jumpers.length; direction++ ) {
+            directions |= (int) ((jumpers[direction] >>> bit) & 1L) << direction;
+        }
+
+        return directions;
     }
 
     /**
@@ -693,41 +638,124 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
      * @param int the column the peg will move to
      */
     public void moveLastPegTo( int row2, int column2 ) {
-        StringBuffer b = new StringBuffer();
+        int from;
+        int to;
+        int direction = BoardGeometry.NO_DIRECTION;
 
         this.clearPossibleJumps();
         //DEBUG
         //System.out.println( "lr lc r2 c2: " + lastRow + " " + lastColumn + " " + row2 + " " + column2 );
 
-        if ( lastRow == row2 ) {
-            if ( (lastColumn + DELTA) == column2 )
-                this.jumpPegAtHorizontal( lastRow, lastColumn, RIGHT_OFFSET );
-            else
-                this.jumpPegAtHorizontal( lastRow, lastColumn, LEFT_OFFSET );
-        } else {
-            if ( lastRow > row2 )
-                this.jumpPegAtVertical( lastRow, lastColumn, UP_OFFSET );
-            else
-                this.jumpPegAtVertical( lastRow, lastColumn, DOWN_OFFSET );
+        from = geometry.bit( lastRow, lastColumn );
+        to   = geometry.bit( row2, column2 );
+        if ( (from != BoardGeometry.NO_HOLE) && (to != BoardGeometry.NO_HOLE) )
+            direction = geometry.directionOf( from, to );
+
+        if ( (direction != BoardGeometry.NO_DIRECTION) &&
+             ((this.jumpDirectionsAt(lastRow, lastColumn) & (1 << direction)) != 0) )
+            this.jumpPegAtToward( lastRow, lastColumn, direction );
+
+        this.setStatus( "you chose " + (row2 + 1) + ", " + (column2 + 1) );
+
+        this.updateObservers();
+    }
+
+    /**
+     * Play moves exported by getMoves() from the current position,
+     * stopping at the first illegal move. Observers are notified once.
+     * @param byte[] the moves
+     * @return int the number of moves played
+     */
+    public int playMoves( byte[] moves ) {
+        int played = 0;
+
+        this.clearPossibleJumps();
+        while( (played < moves.length) && this.isLegalMove(moves[played] & 0xFF) ) {
+            int move = moves[played] & 0xFF;
+            this.applyMove( move );
+            history.record( move );
+            played++;
         }
 
-        b.append( "you chose " );
-        b.append( (row2 + 1) + ", " + (column2 + 1) );
-        this.setStatus( b.toString() );
+        this.setStatus( "played " + played + " moves" );
+        this.updateObservers();
 
+        return played;
+    }
+
+    /**
+     * Play a whole chain of jumps found by getJumpChains on this game's
+     * current board. Observers are notified once.
+     * @param JumpChains the chains
+     * @param int the chain to play
+     * @return boolean true if the chain was played; otherwise (the board
+     * has changed since the chains were found), false
+     */
+    public boolean playChain( JumpChains chains, int chain ) {
+        if ( chains.getBoard() != board )
+            return false;
+
+        this.beginBatch();
+        this.rememberPegAt( UNDEFINED, UNDEFINED );
+        this.playMoves( chains.getMoves(chain) );
+        this.setStatus( "peg " + this.describeMove(chains.getMove(chain, 0)) + " jumped "
+                        + chains.getLength(chain) + " times" );
         this.updateObservers();
+        this.endBatch();
+
+        return true;
     }
 
     /**
-     * Move the peg located at row1, column1 to row2, column2.
-     * @param int row1 starting row
-     * @param int column1 starting column
-     * @param int row2 end row
-     * @param int column2 end column
+     * Publish what changed since the last publication to the listeners,
+     * and notify the observers (if any).
      */
-    private void movePegFromTo( int row1, int column1, int row2, int column2 ) {
-        this.removePegAt( row1, column1 );
-        this.addPegAt( row2, column2 );
+    private void publishChanges() {
+        BoardChangeListener[] current = listeners.get();
+        long                  begin   = ModelMetrics.ENABLED ? System.nanoTime() : 0L;
+
+        batchChanged = false;
+        if ( current.length > 0 ) {
+            BoardChangeEvent event = new BoardChangeEvent( this,
+                                                           (board ^ publishedBoard) | (possibleJumpCells ^ publishedPossibleJumps),
+                                                           possibleJumpCells,
+                                                           publishedPegs - pegs,
+                                                           status );
+            for( int i = 0; i < current.length; i++ )
+                current[i].boardChanged( event );
+        }
+
+        publishedBoard         = board;
+        publishedPossibleJumps = possibleJumpCells;
+        publishedPegs          = pegs;
+
+        if ( observed ) {
+            this.setChanged();
+            this.notifyObservers();
+        }
+
+        if ( ModelMetrics.ENABLED )
+            ModelMetrics.NOTIFICATION_LATENCY.record( System.nanoTime() - begin );
+    }
+
+    /**
+     * Play again the last move undone.
+     * @return boolean true if a move was redone; otherwise, false
+     */
+    public boolean redo() {
+        int move;
+
+        if ( history.canRedo() == false )
+            return false;
+
+        move = history.redo();
+        this.applyMove( move );
+        this.clearPossibleJumps();
+        this.rememberPegAt( UNDEFINED, UNDEFINED );
+        this.setStatus( "redo peg " + this.describeMove(move) );
+        this.updateObservers();
+
+        return true;
     }
 
     /**
@@ -741,33 +769,55 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
     }
 
     /**
-     * Clear the board of all pegs.
+     * Remember the landing position of every jump the peg
+     * located at row, column can make.
+     * @param int the row
+     * @param int the column
      */
-    private void removeAllPegs() {
-        for( int i = 0; i < board.length; i++ ) {
-            for( int j = 0; j < board[i].length; j++ ) {
-                board[i][j] = false;
+    private void rememberPossibleJumps( int row, int column ) {
+        int bit = geometry.bit( row, column );
+        int directions = this.jumpDirectionsAt( row, column );
+
+        this.clearPossibleJumps();
+        for( int direction = 0; direction < possibleJumps.length; direction++ ) {
+            if ( (directions & (1 << direction)) != 0 ) {
+                int to = geometry.moveTo( geometry.moveCode(bit, direction) );
+                possibleJumps[direction][ROW]    = geometry.rowOf( to );
+                possibleJumps[direction][COLUMN] = geometry.columnOf( to );
+                possibleJumpCells |= 1L << to;
             }
         }
     }
 
     /**
-     * Remove the peg at position row, column
-     * @param int row
-     * @param int column
+     * Unregister a listener of board changes.
+     * @param BoardChangeListener the listener
      */
-    private void removePegAt( int row, int column ) {
-        board[row][column] = false;
+    public void removeBoardChangeListener( BoardChangeListener listener ) {
+        BoardChangeListener[] current;
+        BoardChangeListener[] next;
+
+        do {
+            current = listeners.get();
+            int i = 0;
+            while( (i < current.length) && (current[i] != listener) )
+                i++;
+            if ( i == current.length )
+                return;
+            next = new BoardChangeListener[current.length - 1];
+            System.arraycopy( current, 0, next, 0, i );
+            System.arraycopy( current, i + 1, next, i, next.length - i );
+        } while( listeners.compareAndSet(current, next) == false );
     }
 
     /**
-     * Reset the game according to the configuration.
+     * Reset the game according to the configuration (or starting position).
      */
     @Override
     public void reset() {
         this.clearPossibleJumps();
         this.rememberPegAt( UNDEFINED, UNDEFINED );
-        this.setConfiguration( this.getConfiguration() );
+        this.setTemplate( template );
     }
 
     /**
@@ -775,7 +825,7 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
      * @return int the number of rows
      */
     public int rows() {
-        return board.length;
+        return geometry.getRows();
     }
 
     public void setConfiguration( String configuration )
@@ -788,62 +838,28 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
     /**
      * Set this game's configuration.
      * @param SolitaireCheckersConfiguration new configuration
+     * @throws IllegalArgumentException if the board is not the English board
      */
     public void setConfiguration( SolitaireCheckersConfigurations configuration ) {
-        this.configuration = configuration;
-
-        switch( configuration ) {
-
-            case Arrow:
-                    this.configureAsArrow();
-                    break;
-
-            case Cross:
-                    this.configureAsCross();
-                    break;
-
-            case Diamond:
-                    this.configureAsDiamond();
-                    break;
+        if ( geometry != BoardGeometry.ENGLISH )
+            throw new IllegalArgumentException( "configurations are for the English board, not the " + geometry + " board" );
 
-            case DoubleArrow:
-                    this.configureAsDoubleArrow();
-                    break;
-
-            case Fireplace:
-                    this.configureAsFireplace();
-                    break;
-
-            case Plus:
-                    this.configureAsPlus();
-                    break;
-
-            case Pyramid:
-                    this.configureAsPyramid();
-                    break;
-
-            case Solitaire:
-                    this.configureAsSolitaire();
-                    break;
-
-            default:
-                    this.setConfiguration( SolitaireCheckersConfigurations.Solitaire );
-                    break;
-        }
-
-        //XXX bug-fix of phantom yellow cells when configuration is changed
-        this.clearPossibleJumps();
-
-        this.setStatus( this.toString() );
-        this.updateObservers();
+        this.setTemplate( SolitaireCheckersTemplate.of(configuration) );
     }
 
     /**
-     * Set the number of starting pegs.
-     * @param int the number of starting pegs
+     * Use an endgame database to answer getOutlook, getEndgameMove, and
+     * the hints of the positions it covers.
+     * @param EndgameDatabase the database, or null for none
+     * @throws IllegalArgumentException if the database is for another board
      */
-    private void setNumberOfStartingPegs( int count ) {
-        this.numberOfStartingPegs = count;
+    public void setEndgameDatabase( EndgameDatabase endgames ) {
+        if ( (endgames != null) && (endgames.getIndex().getGeometry() != geometry) )
+            throw new IllegalArgumentException( "the database is not for the " + geometry + " board" );
+
+        this.endgames = endgames;
+        if ( advisor != null )
+            advisor.setEndgameDatabase( endgames );
     }
 
     /**
@@ -851,11 +867,35 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
      * @param String new status
      */
     private void setStatus( String status ) {
-        this.status = new String( status );
+        this.status = status;
 //        this.status.insert(0, status);
 //        this.status.append("\n");
     }
 
+    /**
+     * Set up the board as the template's starting position.
+     * @param SolitaireCheckersTemplate the starting position (on this game's board)
+     */
+    private void setTemplate( SolitaireCheckersTemplate template ) {
+        if ( ModelMetrics.ENABLED )
+            ModelMetrics.CONFIGURATION_RESETS.increment();
+
+        this.template        = template;
+        configuration        = template.getConfiguration();
+        board                = template.getBoard();
+        pegs                 = template.getNumberOfPegs();
+        numberOfStartingPegs = pegs;
+        template.copyJumpers( jumpers );
+        template.copyHashes( hashes );
+        history.clear();
+
+        //XXX bug-fix of phantom yellow cells when configuration is changed
+        this.clearPossibleJumps();
+
+        this.setStatus( template.getDescription() );
+        this.updateObservers();
+    }
+
     /**
      * Start this game.
      */
@@ -870,44 +910,75 @@ public class SolitaireCheckersModel extends Observable implements SolitaireCheck
      */
     @Override
     public String toString() {
-        StringBuffer s;
+        return template.getDescription();
+    }
 
-        s = new StringBuffer( "Solitaire Checkers in " );
-        s.append( this.getConfiguration().toString() );
-        s.append( " configuration" );
+    /**
+     * Take back the last move played.
+     * @return boolean true if a move was undone; otherwise, false
+     */
+    public boolean undo() {
+        int move;
+
+        if ( history.canUndo() == false )
+            return false;
 
-        return s.toString();
+        move = history.undo();
+        this.undoMove( move );
+        this.clearPossibleJumps();
+        this.rememberPegAt( UNDEFINED, UNDEFINED );
+        this.setStatus( "undo peg " + this.describeMove(move) );
+        this.updateObservers();
+
+        return true;
     }
 
     /**
-     * Transpose the column for position row1, column1 compared to row2.
-     * @param int row1
-     * @param int column1
-     * @param int row2
-     * @return int the transposed column for row2
+     * Take back a move played with applyMove.
+     * @param int the move code (see BoardGeometry); must be the last move applied
      */
-    private int transposeColumn( int row1, int column1, int row2 ) {
-        int column2;
+    public void undoMove( int move ) {
+        board = geometry.apply( board, move );
+        pegs++;
+        this.updateJumpers( geometry.moveNeighbourhood(move) );
+        this.updateHashes( move );
+    }
 
-        if ( board[row1].length == board[row2].length ) {
-            column2 = column1;
-        } else {
-            if ( board[row1].length == MAX_COLUMNS ) {
-                column2 = column1 - DELTA;
-            } else {
-                column2 = column1 + DELTA;
-            }
+    /**
+     * Update the hash of every image of the board after a move.
+     * @param int the move code
+     */
+    private void updateHashes( int move ) {
+        long[] keys  = geometry.zobristMove;
+        int    moves = geometry.getMoves();
+
+        for( int symmetry = 0; symmetry < hashes.length; symmetry++ ) {
+            hashes[symmetry] ^= keys[(symmetry * moves) + move];
         }
+    }
 
-        return column2;
+    /**
+     * Refresh the legal jumps of the pegs in near after a move.
+     * Jumps from every other peg cannot have changed.
+     * @param long mask of the jump origins near the move
+     */
+    private void updateJumpers( long near ) {
+        for( int direction = 0; direction < jumpers.length; direction++ ) {
+            jumpers[direction] = (jumpers[direction] & ~near)
+                               | (geometry.jumpers(board, direction) & near);
+        }
     }
 
     /**
      * The game has changed state!
-     * Inform all registered observers.
+     * Inform all registered listeners and observers, unless a batch is open.
      */
     private void updateObservers() {
-        this.setChanged();
-        this.notifyObservers();
+        if ( batchDepth > 0 ) {
+            batchChanged = true;
+            return;
+        }
+
+        this.publishChanges();
     }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package model;
+
+/**
+ * The outcome of solving a solitaire checkers position.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class SolitaireCheckersSolution {
+
+    private final long    board;
+    private final boolean winnable;
+    private final boolean winnableIdeal;
+    private final int[]   moves;
+    private final long    nodes;
+    private final int     positions;
+    private final boolean complete;
+
+
+    /**
+     * Creates a solution.
+     * @param long the solved board
+     * @param boolean whether or not the board can be won
+     * @param boolean whether or not the board can be won with the last peg in the center
+     * @param int[] winning move codes (the ideal line when there is one), empty if lost
+     * @param long number of positions searched
+     * @param int number of dead positions remembered
+     */
+    public SolitaireCheckersSolution( long board, boolean winnable, boolean winnableIdeal,
+                                      int[] moves, long nodes, int positions ) {
+        this( board, winnable, winnableIdeal, moves, nodes, positions, true );
+    }
+
+    /**
+     * Creates a solution.
+     * @param long the solved board
+     * @param boolean whether or not the board can be won
+     * @param boolean whether or not the board can be won with the last peg in the center
+     * @param int[] winning move codes (the ideal line when there is one), empty if lost
+     * @param long number of positions searched
+     * @param int number of dead positions remembered
+     * @param boolean false if the search gave up before an answer (see SolitaireCheckersSolver.setNodeLimit)
+     */
+    public SolitaireCheckersSolution( long board, boolean winnable, boolean winnableIdeal,
+                                      int[] moves, long nodes, int positions, boolean complete ) {
+        this.board         = board;
+        this.winnable      = winnable;
+        this.winnableIdeal = winnableIdeal;
+        this.moves         = moves.clone();
+        this.nodes         = nodes;
+        this.positions     = positions;
+        this.complete      = complete;
+    }
+
+    /**
+     * Get the solved board.
+     * @return long the board
+     */
+    public long getBoard() {
+        return board;
+    }
+
+    /**
+     * Get the winning line as move codes (see BoardGeometry).
+     * @return int[] the moves, empty when the board cannot be won
+     */
+    public int[] getMoves() {
+        return moves.clone();
+    }
+
+    /**
+     * Get the number of positions searched.
+     * @return long the number of nodes
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Get the number of dead positions held in the transposition table.
+     * @return int the number of positions
+     */
+    public int getPositions() {
+        return positions;
+    }
+
+    /**
+     * Answer whether or not the search finished.
+     * @return boolean true if the solution is an answer; otherwise, false
+     * (the board may or may not be winnable)
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Answer whether or not the board can be won.
+     * @return boolean true if a single peg can be left; otherwise, false
+     */
+    public boolean isWinnable() {
+        return winnable;
+    }
+
+    /**
+     * Answer whether or not the board can be ideally won.
+     * @return boolean true if a single peg can be left in the center; otherwise, false
+     */
+    public boolean isWinnableIdeal() {
+        return winnableIdeal;
+    }
+
+    /**
+     * Return this solution as a string.
+     * @return String
+     */
+    @Override
+    public String toString() {
+        StringBuffer s;
+
+        if ( !complete )
+            return "unknown after " + nodes + " nodes";
+
+        s = new StringBuffer( "winnable " );
+        s.append( winnable );
+        s.append( ", ideal " );
+        s.append( winnableIdeal );
+        s.append( ", " );
+        s.append( moves.length );
+        s.append( " moves, " );
+        s.append( nodes );
+        s.append( " nodes" );
+
+        return s.toString();
+    }
+}
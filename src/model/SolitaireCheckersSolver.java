@@ -0,0 +1,194 @@
+package model;
+
+/**
+ * Exhaustive depth-first solver for solitaire checkers positions.
+ *
+ * Positions proven dead are remembered in a transposition table keyed by
+ * their canonical board: the smallest image under the board's symmetries
+ * (see BoardGeometry) that keep the finishing holes in place, so each of
+ * the 8 images of an English position ending in the center is searched
+ * at most once.
+ *
+ * A search can be given a node limit (see setNodeLimit); past it, the
+ * search stops and its solution is incomplete.
+ *
+ * A solver is not thread-safe; use one per thread.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public class SolitaireCheckersSolver {
+
+    private static final int EXPECTED_POSITIONS = 1 << 16;
+
+    private final BoardGeometry geometry;
+    private final LongHashSet   dead;
+    private final int[][]       moves;
+    private final int[]         line;
+    private final int[]         symmetries;
+    private int                 numberOfSymmetries;
+    private long                target;
+    private long                nodes;
+    private long                nodeLimit;
+
+
+    /**
+     * Creates a solver for the English board.
+     */
+    public SolitaireCheckersSolver() {
+        this( BoardGeometry.ENGLISH );
+    }
+
+    /**
+     * Creates a solver.
+     * @param BoardGeometry the board
+     */
+    public SolitaireCheckersSolver( BoardGeometry geometry ) {
+        this.geometry   = geometry;
+        this.dead       = new LongHashSet( EXPECTED_POSITIONS );
+        this.moves      = new int[geometry.getHoles()][geometry.getMoves()];
+        this.line       = new int[geometry.getHoles()];
+        this.symmetries = new int[geometry.getSymmetries()];
+        this.nodeLimit  = Long.MAX_VALUE;
+    }
+
+    /**
+     * Set the number of positions a solve may search before giving up.
+     * @param long the limit, Long.MAX_VALUE (the default) for none
+     * @throws IllegalArgumentException if limit is less than 1
+     */
+    public void setNodeLimit( long limit ) {
+        if ( limit < 1L )
+            throw new IllegalArgumentException( "the node limit must be at least 1: " + limit );
+
+        this.nodeLimit = limit;
+    }
+
+    /**
+     * Solve the starting position of a configuration.
+     * @param SolitaireCheckersConfigurations the configuration
+     * @return SolitaireCheckersSolution the solution
+     * @throws IllegalArgumentException if this solver is not for the English board
+     */
+    public SolitaireCheckersSolution solve( SolitaireCheckersConfigurations configuration ) {
+        if ( geometry != BoardGeometry.ENGLISH )
+            throw new IllegalArgumentException( "configurations are for the English board" );
+
+        return this.solve( SolitaireCheckersTemplate.of(configuration).getBoard() );
+    }
+
+    /**
+     * Solve the current position of a game.
+     * @param SolitaireCheckersModel the game
+     * @return SolitaireCheckersSolution the solution
+     * @throws IllegalArgumentException if the game is not on this solver's board
+     */
+    public SolitaireCheckersSolution solve( SolitaireCheckersModel model ) {
+        if ( model.getGeometry() != geometry )
+            throw new IllegalArgumentException( "this solver plays on the " + geometry + " board" );
+
+        return this.solve( model.getBitboard() );
+    }
+
+    /**
+     * Solve a board.
+     * The ideal (center) finish is searched first; only when it fails is
+     * any single peg finish searched.
+     * @param long the board
+     * @return SolitaireCheckersSolution the solution
+     */
+    public SolitaireCheckersSolution solve( long board ) {
+        int pegs = Long.bitCount( board );
+        int[] winningLine = new int[0];
+        boolean winnable;
+        boolean winnableIdeal;
+
+        nodes = 0L;
+
+        winnableIdeal = this.search( board, pegs, geometry.getCenter() );
+        winnable      = winnableIdeal || ((nodes <= nodeLimit) && this.search( board, pegs, geometry.getValid() ));
+
+        if ( nodes > nodeLimit )
+            return new SolitaireCheckersSolution( board, false, false, winningLine, nodes, dead.size(), false );
+
+        if ( winnable ) {
+            winningLine = new int[pegs - 1];
+            System.arraycopy( line, 0, winningLine, 0, pegs - 1 );
+        }
+
+        return new SolitaireCheckersSolution( board, winnable, winnableIdeal,
+                                              winningLine, nodes, dead.size() );
+    }
+
+    /**
+     * Search for a line leaving the last peg inside finish.
+     * @param long board
+     * @param int number of pegs on board
+     * @param long mask of holes the last peg may finish in
+     * @return boolean true if such a line exists (left in line); otherwise, false
+     */
+    private boolean search( long board, int pegs, long finish ) {
+        dead.clear();
+        target = finish;
+
+        numberOfSymmetries = 0;
+        for( int symmetry = 0; symmetry < geometry.getSymmetries(); symmetry++ ) {
+            if ( geometry.transform(finish, symmetry) == finish )
+                symmetries[numberOfSymmetries++] = symmetry;
+        }
+
+        if ( pegs == 0 )
+            return false;
+
+        return this.search( board, pegs, 0 );
+    }
+
+    /**
+     * Answer the smallest image of board under the symmetries that keep the
+     * finishing holes in place (all of them when the finish is the center).
+     * @param long board
+     * @return long the canonical board
+     */
+    private long canonical( long board ) {
+        long best = board;
+
+        if ( numberOfSymmetries == geometry.getSymmetries() )
+            return geometry.canonical( board );
+
+        for( int i = 1; i < numberOfSymmetries; i++ ) {
+            best = Math.min( best, geometry.transform(board, symmetries[i]) );
+        }
+
+        return best;
+    }
+
+    private boolean search( long board, int pegs, int depth ) {
+        int[] buffer;
+        int   count;
+        long  key;
+
+        if ( ++nodes > nodeLimit )
+            return false;
+        if ( pegs == 1 )
+            return (board & target) != 0L;
+
+        key = this.canonical( board );
+        if ( dead.contains(key) )
+            return false;
+
+        buffer = moves[depth];
+        count  = geometry.generateMoves( board, buffer );
+        for( int i = 0; i < count; i++ ) {
+            int move = buffer[i];
+            if ( this.search(geometry.apply(board, move), pegs - 1, depth + 1) ) {
+                line[depth] = move;
+                return true;
+            }
+        }
+
+        if ( nodes > nodeLimit )
+            return false;
+        dead.add( key );
+        return false;
+    }
+}
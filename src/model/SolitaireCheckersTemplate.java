@@ -0,0 +1,261 @@
+package model;
+
+/**
+ * Starting position of a game, compiled once: the board, its peg count,
+ * its legal jumps, its hashes and its description. Every SolitaireCheckersConfigurations
+ * value has a template compiled from its picture on the English board, and
+ * every BoardGeometry has one for its standard start, compiled the first
+ * time it is asked for and kept by the geometry. Templates are immutable,
+ * so setting up a game is a copy.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class SolitaireCheckersTemplate {
+
+    private static final char PEG = 'o';
+
+    /* One picture per configuration, in declaration order: 'o' is a peg, '.' a hole. */
+    private static final String[][] PICTURES = {
+        { "ooo",                /* Solitaire */
+          "ooo",
+          "ooooooo",
+          "ooo.ooo",
+          "ooooooo",
+          "ooo",
+          "ooo" },
+        { ".o.",                /* Arrow */
+          "ooo",
+          ".ooooo.",
+          "...o...",
+          "...o...",
+          "ooo",
+          "ooo" },
+        { "...",                /* Cross */
+          ".o.",
+          "..ooo..",
+          "...o...",
+          "...o...",
+          "...",
+          "..." },
+        { ".o.",                /* Diamond */
+          "ooo",
+          ".ooooo.",
+          "ooo.ooo",
+          ".ooooo.",
+          "ooo",
+          ".o." },
+        { ".o.",                /* DoubleArrow */
+          "ooo",
+          ".ooooo.",
+          "..ooo..",
+          ".ooooo.",
+          "ooo",
+          ".o." },
+        { "ooo",                /* Fireplace */
+          "ooo",
+          "..ooo..",
+          "..o.o..",
+          ".......",
+          "...",
+          "..." },
+        { "...",                /* Plus */
+          ".o.",
+          "...o...",
+          ".ooooo.",
+          "...o...",
+          ".o.",
+          "..." },
+        { "...",                /* Pyramid */
+          ".o.",
+          "..ooo..",
+          ".ooooo.",
+          "ooooooo",
+          "...",
+          "..." }
+    };
+
+    private static final SolitaireCheckersTemplate[] TEMPLATES;
+
+    static {
+        SolitaireCheckersConfigurations[] configurations = SolitaireCheckersConfigurations.values();
+
+        TEMPLATES = new SolitaireCheckersTemplate[configurations.length];
+        for( int i = 0; i < configurations.length; i++ ) {
+            TEMPLATES[i] = new SolitaireCheckersTemplate( BoardGeometry.ENGLISH,
+                                                          configurations[i],
+                                                          compile( PICTURES[i] ),
+                                                          "Solitaire Checkers in " + configurations[i].toString() + " configuration" );
+        }
+    }
+
+    private final BoardGeometry                   geometry;
+    private final SolitaireCheckersConfigurations configuration;
+    private final long                            board;
+    private final int                             pegs;
+    private final long[]                          jumpers;
+    private final long[]                          hashes;
+    private final String                          description;
+
+
+    /**
+     * Creates a template.
+     * @param BoardGeometry the board
+     * @param SolitaireCheckersConfigurations the configuration, or null
+     * @param long the starting bitboard
+     * @param String the description
+     */
+    private SolitaireCheckersTemplate( BoardGeometry geometry, SolitaireCheckersConfigurations configuration,
+                                       long board, String description ) {
+        this.geometry      = geometry;
+        this.configuration = configuration;
+        this.board         = board;
+        this.pegs          = Long.bitCount( board );
+        this.jumpers       = new long[geometry.getDirections()];
+        for( int direction = 0; direction < jumpers.length; direction++ ) {
+            this.jumpers[direction] = geometry.jumpers( board, direction );
+        }
+        this.hashes        = new long[geometry.getSymmetries()];
+        for( int symmetry = 0; symmetry < hashes.length; symmetry++ ) {
+            this.hashes[symmetry] = geometry.hash( board, symmetry );
+        }
+        this.description   = description;
+    }
+
+    /**
+     * Compile a picture of the English board.
+     * @param String[] one string per row, one character per hole
+     * @return long the bitboard
+     */
+    private static long compile( String[] picture ) {
+        BoardGeometry english = BoardGeometry.ENGLISH;
+        long          pegs    = 0L;
+
+        for( int row = 0; row < english.getRows(); row++ ) {
+            for( int column = 0; column < english.widthOf(row); column++ ) {
+                if ( picture[row].charAt(column) == PEG )
+                    pegs |= 1L << english.bit( row, column );
+            }
+        }
+
+        return pegs;
+    }
+
+    /**
+     * Get the template of a configuration.
+     * @param SolitaireCheckersConfigurations the configuration
+     * @return SolitaireCheckersTemplate the template
+     */
+    public static SolitaireCheckersTemplate of( SolitaireCheckersConfigurations configuration ) {
+        return TEMPLATES[configuration.ordinal()];
+    }
+
+    /**
+     * Get the template of the standard start of a geometry: every hole
+     * but the starting vacancy. The English board's is Solitaire's.
+     * @param BoardGeometry the board
+     * @return SolitaireCheckersTemplate the template
+     */
+    public static SolitaireCheckersTemplate of( BoardGeometry geometry ) {
+        SolitaireCheckersTemplate template;
+
+        if ( geometry == BoardGeometry.ENGLISH )
+            return of( SolitaireCheckersConfigurations.Solitaire );
+
+        template = geometry.standard;
+        if ( template == null ) {
+            template = new SolitaireCheckersTemplate( geometry, null, geometry.getStart(),
+                                                      "Solitaire Checkers on the " + geometry.getName() + " board" );
+            geometry.standard = template;
+        }
+
+        return template;
+    }
+
+    /**
+     * Get the template of a position: its configuration's, or its board's
+     * standard one, when the position is that start; otherwise, a template
+     * starting from the position.
+     * @param Position the position
+     * @return SolitaireCheckersTemplate the template
+     */
+    public static SolitaireCheckersTemplate of( Position position ) {
+        SolitaireCheckersTemplate start = (position.getConfiguration() != null) ? of( position.getConfiguration() )
+                                                                                : of( position.getGeometry() );
+
+        if ( start.getBoard() == position.getBoard() )
+            return start;
+
+        return new SolitaireCheckersTemplate( position.getGeometry(), position.getConfiguration(), position.getBoard(),
+                                              "Solitaire Checkers from a position of " + position.getNumberOfPegs()
+                                              + " pegs" );
+    }
+
+    /**
+     * Copy the starting board's hash under every symmetry into hashes.
+     * @param long[] at least geometry.getSymmetries() entries
+     */
+    void copyHashes( long[] hashes ) {
+        System.arraycopy( this.hashes, 0, hashes, 0, this.hashes.length );
+    }
+
+    /**
+     * Copy the starting jumpers of every direction into jumpers.
+     * @param long[] at least geometry.getDirections() entries
+     */
+    void copyJumpers( long[] jumpers ) {
+        System.arraycopy( this.jumpers, 0, jumpers, 0, this.jumpers.length );
+    }
+
+    /**
+     * Get the starting board.
+     * @return long the bitboard (see BoardGeometry)
+     */
+    public long getBoard() {
+        return board;
+    }
+
+    /**
+     * Get the configuration.
+     * @return SolitaireCheckersConfigurations the configuration, or null
+     * for the start of a board other than the English board
+     */
+    public SolitaireCheckersConfigurations getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Get the description, as SolitaireCheckersModel.toString().
+     * @return String the description
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Get the board.
+     * @return BoardGeometry the geometry
+     */
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Get the pegs that can jump in direction on the starting board.
+     * @param int direction 0 to geometry.getDirections() - 1
+     * @return long mask of jumping pegs
+     */
+    public long getJumpers( int direction ) {
+        return jumpers[direction];
+    }
+
+    /**
+     * Get the number of starting pegs, counted on the board. (The counts
+     * once kept by hand said 8 for Diamond, which starts with 24 pegs, and
+     * 17 for DoubleArrow, which kept Arrow's count but starts with 21.)
+     * @return int the number of pegs
+     */
+    public int getNumberOfPegs() {
+        return pegs;
+    }
+}
@@ -0,0 +1,97 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that many threads can add to without contending: each thread
+ * adds to one of several cells, picked from its id, and sum() adds up the
+ * cells. The cells are a cache line apart, so threads adding to different
+ * cells do not share a line. (LongAdder does the same, but is not
+ * available on every Android release the app supports.)
+ *
+ * sum() is not an atomic snapshot: additions made while it runs may or
+ * may not be counted.
+ *
+ * @author Gerald.Hurdle@AlgonquinCollege.com
+ * @version 1.0
+ */
+public final class StripedCounter {
+
+    static final int PADDING = 8;   // longs per cache line
+
+    private final AtomicLongArray cells;
+    private final int             mask;
+
+
+    /**
+     * Creates a counter with a cell per available core.
+     */
+    public StripedCounter() {
+        this.mask  = stripes() - 1;
+        this.cells = new AtomicLongArray( (mask + 2) * PADDING );
+    }
+
+    /**
+     * Add to the counter.
+     * @param long the amount
+     */
+    public void add( long amount ) {
+        cells.getAndAdd( (stripe() & mask) * PADDING + PADDING, amount );
+    }
+
+    /**
+     * Add one to the counter.
+     */
+    public void increment() {
+        this.add( 1L );
+    }
+
+    /**
+     * Set the counter to zero. Additions made meanwhile may be lost.
+     */
+    public void reset() {
+        for( int i = PADDING; i < cells.length(); i += PADDING )
+            cells.set( i, 0L );
+    }
+
+    /**
+     * Get the sum of every addition.
+     * @return long the sum
+     */
+    public long sum() {
+        long sum = 0L;
+
+        for( int i = PADDING; i < cells.length(); i += PADDING )
+            sum += cells.get( i );
+
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString( this.sum() );
+    }
+
+    /**
+     * Answer the calling thread's stripe: its id, mixed (see splitmix64).
+     * @return int the stripe, before masking
+     */
+    static int stripe() {
+        long z = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+
+        return (int) (z ^ (z >>> 31));
+    }
+
+    /**
+     * Answer the number of stripes: the available cores rounded up to a
+     * power of two, at most 64.
+     * @return int the number of stripes
+     */
+    static int stripes() {
+        int cores = Math.min( Runtime.getRuntime().availableProcessors(), 64 );
+
+        return (cores <= 1) ? 1 : Integer.highestOneBit( cores - 1 ) << 1;
+    }
+}